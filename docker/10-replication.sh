@@ -0,0 +1,6 @@
+#!/bin/sh
+# Lets the replica container stream WAL from the primary. Runs on the first start of a fresh volume.
+set -e
+
+grep -q "host replication" "$PGDATA/pg_hba.conf" || echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
+psql -U "${POSTGRES_USER:-postgres}" -c "SELECT pg_reload_conf();"
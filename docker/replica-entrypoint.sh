@@ -0,0 +1,18 @@
+#!/bin/bash
+# Clones the primary on first start, then runs as a hot standby following it.
+set -e
+
+if [ ! -s "$PGDATA/PG_VERSION" ]; then
+
+  mkdir -p "$PGDATA"
+  chown postgres:postgres "$PGDATA"
+  chmod 0700 "$PGDATA"
+
+  until gosu postgres pg_basebackup -h ekko-postgres -U "$POSTGRES_USER" -D "$PGDATA" -R -X stream; do
+    echo "Waiting for the primary..."
+    rm -rf "${PGDATA:?}"/*
+    sleep 2
+  done
+fi
+
+exec docker-entrypoint.sh postgres -c hot_standby=on -c hot_standby_feedback=on
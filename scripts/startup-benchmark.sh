@@ -0,0 +1,68 @@
+#!/usr/bin/env bash
+# Measures time to first request: from launching the JVM until the server answers its first HTTP request.
+#
+# Usage: scripts/startup-benchmark.sh [jar|aot|cds] [runs]
+#   jar  the plain fat jar from ./mvnw package
+#   aot  the extracted jar from ./mvnw -Pcds package with Spring AOT on
+#   cds  the same with the class data sharing archive from the training run
+#
+# Needs the database from docker-compose.yml. Polls the health endpoint on the management port, any response counts.
+set -euo pipefail
+
+MODE="${1:-cds}"
+RUNS="${2:-5}"
+PORT="${PORT:-18080}"
+MANAGEMENT_PORT=$((PORT + 1))
+URL="http://localhost:${MANAGEMENT_PORT}/actuator/health"
+TIMEOUT_S=120
+
+cd "$(dirname "$0")/.."
+
+JAR_NAME="ekkochatsrv-0.0.1-SNAPSHOT.jar"
+
+case "$MODE" in
+  jar) CMD=(java -jar "target/${JAR_NAME}") ;;
+  aot) CMD=(java -Dspring.aot.enabled=true -jar "target/cds/${JAR_NAME}") ;;
+  cds) CMD=(java -XX:SharedArchiveFile=target/cds/application.jsa
+            -Dspring.aot.enabled=true -jar "target/cds/${JAR_NAME}") ;;
+  *) echo "Unknown mode $MODE, use jar, aot or cds" >&2; exit 1 ;;
+esac
+
+results=()
+
+for run in $(seq 1 "$RUNS"); do
+
+  start=$(date +%s%N)
+  "${CMD[@]}" --server.port="$PORT" --management.server.port="$MANAGEMENT_PORT" > "target/startup-benchmark-${MODE}.log" 2>&1 &
+  pid=$!
+
+  elapsed_ms=""
+  while [ -z "$elapsed_ms" ]; do
+
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "Server exited during startup, see target/startup-benchmark-${MODE}.log" >&2
+      exit 1
+    fi
+
+    code=$(curl -s -o /dev/null -w '%{http_code}' --max-time 1 "$URL" || true)
+
+    if [ "$code" != "000" ]; then
+      elapsed_ms=$(( ($(date +%s%N) - start) / 1000000 ))
+    elif [ $(( ($(date +%s%N) - start) / 1000000000 )) -ge "$TIMEOUT_S" ]; then
+      kill "$pid"
+      echo "No response within ${TIMEOUT_S}s" >&2
+      exit 1
+    else
+      sleep 0.02
+    fi
+  done
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+
+  echo "run ${run}: ${elapsed_ms} ms"
+  results+=("$elapsed_ms")
+done
+
+sorted=($(printf '%s\n' "${results[@]}" | sort -n))
+echo "${MODE}: median $(( sorted[RUNS / 2] )) ms, best ${sorted[0]} ms over ${RUNS} runs"
@@ -0,0 +1,25 @@
+package com.cdcrane.ekkochatsrv.attachments.api;
+
+import com.cdcrane.ekkochatsrv.attachments.dto.AttachmentContent;
+import com.cdcrane.ekkochatsrv.attachments.dto.AttachmentDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+public interface AttachmentUseCase {
+
+    /**
+     * Streams the body to disk while hashing it, nothing is buffered in memory beyond a small copy buffer.
+     * Content that is already stored is kept only once.
+     * @param conversationId Conversation the attachment is shared into, its members can download it. Null to keep it to the owner.
+     * @param declaredLength Content-Length of the upload, -1 if unknown.
+     */
+    AttachmentDTO upload(UUID ownerId, UUID conversationId, String contentType, String fileName, long declaredLength, InputStream body) throws IOException;
+
+    /**
+     * Only the owner and members of the conversation it was shared into can open an attachment, everyone else is
+     * told it doesn't exist.
+     */
+    AttachmentContent open(UUID requesterId, UUID attachmentId);
+}
@@ -0,0 +1,9 @@
+package com.cdcrane.ekkochatsrv.attachments.dto;
+
+import java.nio.file.Path;
+
+/**
+ * Where a stored attachment's bytes are, for serving them straight from disk.
+ */
+public record AttachmentContent(Path file, long sizeBytes, String contentType, String fileName, String sha256) {
+}
@@ -0,0 +1,7 @@
+package com.cdcrane.ekkochatsrv.attachments.dto;
+
+import java.util.Date;
+import java.util.UUID;
+
+public record AttachmentDTO(UUID attachmentId, UUID conversationId, String contentType, String fileName, long sizeBytes, String sha256, Date createdAt) {
+}
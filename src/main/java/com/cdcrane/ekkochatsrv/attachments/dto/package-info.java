@@ -0,0 +1,4 @@
+@NamedInterface("dto")
+package com.cdcrane.ekkochatsrv.attachments.dto;
+
+import org.springframework.modulith.NamedInterface;
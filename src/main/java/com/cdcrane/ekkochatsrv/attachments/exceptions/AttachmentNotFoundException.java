@@ -0,0 +1,7 @@
+package com.cdcrane.ekkochatsrv.attachments.exceptions;
+
+public class AttachmentNotFoundException extends RuntimeException {
+    public AttachmentNotFoundException(String message) {
+        super(message);
+    }
+}
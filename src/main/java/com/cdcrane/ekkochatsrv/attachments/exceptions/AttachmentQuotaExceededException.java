@@ -0,0 +1,7 @@
+package com.cdcrane.ekkochatsrv.attachments.exceptions;
+
+public class AttachmentQuotaExceededException extends RuntimeException {
+    public AttachmentQuotaExceededException(String message) {
+        super(message);
+    }
+}
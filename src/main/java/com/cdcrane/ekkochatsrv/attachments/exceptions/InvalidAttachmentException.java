@@ -0,0 +1,7 @@
+package com.cdcrane.ekkochatsrv.attachments.exceptions;
+
+public class InvalidAttachmentException extends RuntimeException {
+    public InvalidAttachmentException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,4 @@
+@NamedInterface("exceptions")
+package com.cdcrane.ekkochatsrv.attachments.exceptions;
+
+import org.springframework.modulith.NamedInterface;
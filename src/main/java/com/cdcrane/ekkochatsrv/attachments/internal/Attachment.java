@@ -0,0 +1,43 @@
+package com.cdcrane.ekkochatsrv.attachments.internal;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * An uploaded file as its owner sees it. Many attachments can share one stored blob.
+ */
+@Entity
+@Table(name = "attachments")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Attachment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID attachmentId;
+
+    private UUID ownerId;
+
+    // Members of this conversation may download it too, null if only the owner can.
+    private UUID conversationId;
+
+    // Hex SHA-256 of the content, also the blob's file name in the store.
+    @Column(length = 64)
+    private String sha256;
+
+    private String contentType;
+
+    private String fileName;
+
+    private Long sizeBytes;
+
+    private Date createdAt;
+}
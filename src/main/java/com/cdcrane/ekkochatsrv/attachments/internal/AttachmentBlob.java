@@ -0,0 +1,32 @@
+package com.cdcrane.ekkochatsrv.attachments.internal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Content stored on disk, keyed by its hash.
+ */
+@Entity
+@Table(name = "attachment_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AttachmentBlob {
+
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    private Long sizeBytes;
+
+    private Date createdAt;
+}
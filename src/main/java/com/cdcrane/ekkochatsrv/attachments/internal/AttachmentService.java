@@ -0,0 +1,170 @@
+package com.cdcrane.ekkochatsrv.attachments.internal;
+
+import com.cdcrane.ekkochatsrv.attachments.api.AttachmentUseCase;
+import com.cdcrane.ekkochatsrv.attachments.dto.AttachmentContent;
+import com.cdcrane.ekkochatsrv.attachments.dto.AttachmentDTO;
+import com.cdcrane.ekkochatsrv.attachments.exceptions.AttachmentNotFoundException;
+import com.cdcrane.ekkochatsrv.attachments.exceptions.AttachmentQuotaExceededException;
+import com.cdcrane.ekkochatsrv.attachments.exceptions.InvalidAttachmentException;
+import com.cdcrane.ekkochatsrv.chat.api.ChatMessageUseCase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.UUID;
+
+@Service
+@Slf4j
+public class AttachmentService implements AttachmentUseCase {
+
+    private static final int MAX_FILE_NAME_LENGTH = 255;
+
+    private final AttachmentRepository attachmentRepo;
+    private final BlobStore blobStore;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ChatMessageUseCase chat;
+
+    @Value("${attachments.max_file_bytes}")
+    private long maxFileBytes;
+
+    @Value("${attachments.quota_bytes_per_user}")
+    private long quotaBytesPerUser;
+
+    AttachmentService(AttachmentRepository attachmentRepo, BlobStore blobStore, JdbcTemplate jdbc, PlatformTransactionManager txManager,
+                      ChatMessageUseCase chat) {
+        this.attachmentRepo = attachmentRepo;
+        this.blobStore = blobStore;
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.chat = chat;
+    }
+
+    @Override
+    public AttachmentDTO upload(UUID ownerId, UUID conversationId, String contentType, String fileName, long declaredLength, InputStream body) throws IOException {
+
+        if (conversationId != null && !chat.isMember(ownerId, conversationId)) {
+            throw new InvalidAttachmentException("Attachments can only be shared into conversations you are in.");
+        }
+
+        long remainingQuota = quotaBytesPerUser - usedBytes(ownerId);
+        long limit = Math.min(maxFileBytes, remainingQuota);
+
+        // Refuse before reading a single byte when the client already told us it won't fit.
+        if (declaredLength > limit) {
+            throw tooLarge(limit == remainingQuota);
+        }
+
+        var blob = blobStore.stage(body, limit);
+
+        if (blob == null) {
+            throw tooLarge(limit == remainingQuota);
+        }
+
+        try {
+
+            if (blob.sizeBytes() == 0) {
+                throw new InvalidAttachmentException("Attachment is empty.");
+            }
+
+            var attachment = Attachment.builder()
+                    .ownerId(ownerId)
+                    .conversationId(conversationId)
+                    .sha256(blob.sha256())
+                    .contentType(contentType == null || contentType.isBlank() ? "application/octet-stream" : contentType)
+                    .fileName(cleanFileName(fileName))
+                    .sizeBytes(blob.sizeBytes())
+                    .createdAt(new Date())
+                    .build();
+
+            var saved = tx.execute(status -> {
+
+                // Charged atomically, two parallel uploads can't both squeeze into the last bit of quota.
+                int charged = jdbc.update("INSERT INTO attachment_usage (user_id, used_bytes) VALUES (?, ?) " +
+                                "ON CONFLICT (user_id) DO UPDATE SET used_bytes = attachment_usage.used_bytes + EXCLUDED.used_bytes " +
+                                "WHERE attachment_usage.used_bytes + EXCLUDED.used_bytes <= ?",
+                        ownerId, blob.sizeBytes(), quotaBytesPerUser);
+
+                if (charged == 0) throw tooLarge(true);
+
+                jdbc.update("INSERT INTO attachment_blobs (sha256, size_bytes, created_at) VALUES (?, ?, ?) ON CONFLICT (sha256) DO NOTHING",
+                        blob.sha256(), blob.sizeBytes(), new Timestamp(System.currentTimeMillis()));
+
+                // Flushed so a failing insert rolls back before the file is in place, nothing is published for a rejected upload.
+                var stored = attachmentRepo.saveAndFlush(attachment);
+
+                try {
+                    if (!blobStore.publish(blob)) {
+                        log.debug("Attachment {} deduplicated against stored content {}", stored.getAttachmentId(), blob.sha256());
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+
+                return stored;
+            });
+
+            return toDto(saved);
+
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            blobStore.discard(blob);
+        }
+    }
+
+    @Override
+    public AttachmentContent open(UUID requesterId, UUID attachmentId) {
+
+        // Same answer whether the attachment doesn't exist or the requester may not see it.
+        var attachment = attachmentRepo.findById(attachmentId)
+                .filter(a -> a.getOwnerId().equals(requesterId)
+                        || (a.getConversationId() != null && chat.isMember(requesterId, a.getConversationId())))
+                .orElseThrow(() -> new AttachmentNotFoundException("Attachment not found: " + attachmentId));
+
+        return new AttachmentContent(blobStore.pathOf(attachment.getSha256()), attachment.getSizeBytes(),
+                attachment.getContentType(), attachment.getFileName(), attachment.getSha256());
+    }
+    private long usedBytes(UUID userId) {
+
+        Long used = jdbc.query("SELECT used_bytes FROM attachment_usage WHERE user_id = ?",
+                rs -> rs.next() ? rs.getLong(1) : 0L, userId);
+
+        return used != null ? used : 0;
+    }
+
+    private RuntimeException tooLarge(boolean quota) {
+
+        return quota
+                ? new AttachmentQuotaExceededException("Attachment doesn't fit in your remaining storage quota.")
+                : new InvalidAttachmentException("Attachments can be at most " + maxFileBytes + " bytes.");
+    }
+
+    // Only the last path segment, without control characters, it ends up in a Content-Disposition header.
+    private String cleanFileName(String fileName) {
+
+        if (fileName == null) return null;
+
+        String name = fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1)
+                .replaceAll("\\p{Cntrl}", "")
+                .strip();
+
+        if (name.isEmpty()) return null;
+
+        return name.length() > MAX_FILE_NAME_LENGTH ? name.substring(0, MAX_FILE_NAME_LENGTH) : name;
+    }
+
+    private AttachmentDTO toDto(Attachment a) {
+
+        return new AttachmentDTO(a.getAttachmentId(), a.getConversationId(), a.getContentType(), a.getFileName(),
+                a.getSizeBytes(), a.getSha256(), a.getCreatedAt());
+    }
+}
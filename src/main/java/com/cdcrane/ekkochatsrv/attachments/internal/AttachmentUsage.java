@@ -0,0 +1,28 @@
+package com.cdcrane.ekkochatsrv.attachments.internal;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Bytes a user has uploaded, counted per attachment even when the content was deduplicated.
+ */
+@Entity
+@Table(name = "attachment_usage")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AttachmentUsage {
+
+    @Id
+    private UUID userId;
+
+    private Long usedBytes;
+}
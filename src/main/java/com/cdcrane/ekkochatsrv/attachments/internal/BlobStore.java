@@ -0,0 +1,139 @@
+package com.cdcrane.ekkochatsrv.attachments.internal;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Content addressed files on local disk, every blob lives at {@code <root>/<first 2 hash chars>/<hash>}.
+ * Uploads are staged in a temp file while they are hashed, and only published, moved into place or dropped if that
+ * content is already stored, once the upload has been accepted. A rejected upload never leaves a blob behind.
+ */
+@Component
+@Slf4j
+class BlobStore {
+
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    @Value("${attachments.store_dir}")
+    private String storeDir;
+
+    private Path root;
+    private Path tmp;
+
+    @PostConstruct
+    private void createDirectories() throws IOException {
+
+        root = Path.of(storeDir).toAbsolutePath();
+        tmp = root.resolve("tmp");
+
+        Files.createDirectories(tmp);
+    }
+
+    /**
+     * @param maxBytes The upload is aborted as soon as it goes past this.
+     * @return Null if the stream held more than maxBytes.
+     */
+    StagedBlob stage(InputStream in, long maxBytes) throws IOException {
+
+        MessageDigest digest = sha256();
+        Path temp = tmp.resolve(UUID.randomUUID() + ".part");
+
+        long size = 0;
+
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+
+            byte[] buffer = new byte[COPY_BUFFER_BYTES];
+            ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+            int read;
+
+            while ((read = in.read(buffer)) != -1) {
+
+                size += read;
+
+                if (size > maxBytes) {
+                    Files.deleteIfExists(temp);
+                    return null;
+                }
+
+                digest.update(buffer, 0, read);
+
+                wrapped.clear().limit(read);
+                while (wrapped.hasRemaining()) {
+                    out.write(wrapped);
+                }
+            }
+
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        return new StagedBlob(temp, HexFormat.of().formatHex(digest.digest()), size);
+    }
+
+    /**
+     * Moves a staged blob into place.
+     * @return False if identical content was already stored and the staged copy was dropped.
+     */
+    boolean publish(StagedBlob blob) throws IOException {
+
+        Path target = pathOf(blob.sha256());
+
+        if (Files.exists(target)) {
+            Files.delete(blob.temp());
+            return false;
+        }
+
+        Files.createDirectories(target.getParent());
+
+        try {
+            Files.move(blob.temp(), target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Some filesystems refuse to replace the same content that finished uploading concurrently, it's identical anyway.
+            Files.deleteIfExists(blob.temp());
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Drops the temp file of a blob that wasn't published, does nothing once it was.
+     */
+    void discard(StagedBlob blob) {
+
+        try {
+            Files.deleteIfExists(blob.temp());
+        } catch (IOException e) {
+            log.warn("Couldn't delete staged upload {}: {}", blob.temp(), e.getMessage());
+        }
+    }
+
+    Path pathOf(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    private MessageDigest sha256() {
+
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Hash type for attachments is wrong!");
+        }
+    }
+
+    record StagedBlob(Path temp, String sha256, long sizeBytes) {
+    }
+}
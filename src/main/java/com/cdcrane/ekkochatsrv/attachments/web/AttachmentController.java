@@ -0,0 +1,165 @@
+package com.cdcrane.ekkochatsrv.attachments.web;
+
+import com.cdcrane.ekkochatsrv.attachments.api.AttachmentUseCase;
+import com.cdcrane.ekkochatsrv.attachments.dto.AttachmentContent;
+import com.cdcrane.ekkochatsrv.attachments.dto.AttachmentDTO;
+import com.cdcrane.ekkochatsrv.users.principal.EkkoUserPrincipal;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Attachments are read from and written to the raw request and response, Spring never holds a body in memory.
+ */
+@RestController
+@RequestMapping("/api/v1/attachments")
+@RequiredArgsConstructor
+public class AttachmentController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final AttachmentUseCase attachmentUseCase;
+
+    /**
+     * The body is the file itself (not multipart), its Content-Type is kept and sent back on download.
+     */
+    @PostMapping
+    public ResponseEntity<AttachmentDTO> upload(@AuthenticationPrincipal EkkoUserPrincipal principal,
+                                                @RequestParam(required = false) String name,
+                                                @RequestParam(required = false) UUID conversationId,
+                                                HttpServletRequest request) throws IOException {
+
+        var attachment = attachmentUseCase.upload(principal.getUserId(), conversationId, request.getContentType(), name,
+                request.getContentLengthLong(), request.getInputStream());
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(attachment);
+    }
+
+    @GetMapping("/{attachmentId}")
+    public void download(@AuthenticationPrincipal EkkoUserPrincipal principal, @PathVariable UUID attachmentId,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        AttachmentContent content = attachmentUseCase.open(principal.getUserId(), attachmentId);
+        String etag = "\"" + content.sha256() + "\"";
+
+        // Content never changes under an id, clients can keep it for good.
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long size = content.sizeBytes();
+        long start = 0;
+        long end = size - 1;
+
+        String range = request.getHeader(HttpHeaders.RANGE);
+
+        if (range != null) {
+
+            long[] parsed = parseRange(range, size);
+
+            if (parsed == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+
+            if (parsed.length == 2) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+
+        // Served as a download with sniffing off, so an uploaded html or svg can never run in our origin.
+        response.setContentType(content.contentType());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(content.fileName() != null ? content.fileName() : content.sha256(), StandardCharsets.UTF_8)
+                .build().toString());
+        response.setContentLengthLong(length);
+
+        // Tomcat hands the file to the kernel with sendfile once the request returns, no bytes pass through the JVM.
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, content.file().toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel file = FileChannel.open(content.file(), StandardOpenOption.READ)) {
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+
+            while (remaining > 0) {
+                long sent = file.transferTo(position, remaining, out);
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Only single ranges are supported, anything else is answered with the whole file like the spec allows.
+     * @return {start, end} inclusive, an empty array to send the whole file, null if the range can't be satisfied.
+     */
+    private long[] parseRange(String header, long size) {
+
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) return new long[0];
+
+        String spec = header.substring(6).strip();
+        int dash = spec.indexOf('-');
+
+        if (dash < 0) return new long[0];
+
+        try {
+
+            long start;
+            long end;
+
+            if (dash == 0) {
+                // Suffix range, the last n bytes.
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) return null;
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? size - 1 : Math.min(Long.parseLong(spec.substring(dash + 1)), size - 1);
+            }
+
+            if (start >= size || start > end) return null;
+
+            return new long[]{start, end};
+
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
@@ -1,4 +1,4 @@
-package com.cdcrane.ekkochatsrv.auth.internal;
+package com.cdcrane.ekkochatsrv.auth.api;
 
 import com.cdcrane.ekkochatsrv.auth.dto.AccessJwtData;
 import com.cdcrane.ekkochatsrv.auth.dto.RefreshJwtData;
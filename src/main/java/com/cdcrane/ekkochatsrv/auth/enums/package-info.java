@@ -0,0 +1,4 @@
+@NamedInterface("enums")
+package com.cdcrane.ekkochatsrv.auth.enums;
+
+import org.springframework.modulith.NamedInterface;
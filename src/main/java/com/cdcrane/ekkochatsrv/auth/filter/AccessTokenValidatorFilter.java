@@ -1,22 +1,24 @@
 package com.cdcrane.ekkochatsrv.auth.filter;
 
-import com.cdcrane.ekkochatsrv.auth.internal.JwtUseCase;
+import com.cdcrane.ekkochatsrv.auth.api.JwtUseCase;
 import com.cdcrane.ekkochatsrv.auth.internal.SecurityConfig;
 import com.cdcrane.ekkochatsrv.auth.enums.JwtTypes;
 import com.cdcrane.ekkochatsrv.auth.enums.NamedJwtClaims;
 import com.cdcrane.ekkochatsrv.auth.exceptions.BadJwtException;
+import com.cdcrane.ekkochatsrv.profiling.RequestProfiler;
 import com.cdcrane.ekkochatsrv.users.principal.EkkoUserPrincipal;
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -24,10 +26,23 @@ import java.io.IOException;
 import java.util.UUID;
 
 @Component
-@RequiredArgsConstructor
 public class AccessTokenValidatorFilter extends OncePerRequestFilter {
 
     private final JwtUseCase jwtService;
+    private final RequestMatcher publicRequests;
+
+    @Autowired
+    public AccessTokenValidatorFilter(JwtUseCase jwtService) {
+        this(jwtService, AccessTokenValidatorFilter::isPublicUri);
+    }
+
+    /**
+     * @param publicRequests Let through without a token, the security chain decides what they may reach.
+     */
+    public AccessTokenValidatorFilter(JwtUseCase jwtService, RequestMatcher publicRequests) {
+        this.jwtService = jwtService;
+        this.publicRequests = publicRequests;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
@@ -40,7 +55,11 @@ public class AccessTokenValidatorFilter extends OncePerRequestFilter {
 
             try {
 
-                Claims claims = jwtService.verifyAccessJwt(token);
+                Claims claims;
+
+                try (var stage = RequestProfiler.stage("jwt verify")) {
+                    claims = jwtService.verifyAccessJwt(token);
+                }
 
                 String username = claims.get(NamedJwtClaims.USERNAME.name(), String.class);
                 String authorities = claims.get(NamedJwtClaims.AUTHORITIES.name(), String.class);
@@ -80,7 +99,10 @@ public class AccessTokenValidatorFilter extends OncePerRequestFilter {
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
+        return publicRequests.matches(request);
+    }
 
+    private static boolean isPublicUri(HttpServletRequest request) {
 
         for (String uri : SecurityConfig.PUBLIC_URIS){
             if (request.getRequestURI().equals(uri)){
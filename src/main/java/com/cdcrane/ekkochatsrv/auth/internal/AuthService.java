@@ -1,10 +1,13 @@
 package com.cdcrane.ekkochatsrv.auth.internal;
 
+import com.cdcrane.ekkochatsrv.auth.api.JwtUseCase;
 import com.cdcrane.ekkochatsrv.auth.dto.TokenPairResponse;
 import com.cdcrane.ekkochatsrv.auth.exceptions.BadAuthenticationException;
 import com.cdcrane.ekkochatsrv.users.dto.UserDTO;
 import com.cdcrane.ekkochatsrv.users.api.UserUseCase;
 import com.cdcrane.ekkochatsrv.users.principal.EkkoUserPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -23,11 +26,16 @@ public class AuthService {
     private final AuthenticationManager authManager;
     private final JwtUseCase jwtUseCase;
     private final UserUseCase userUseCase;
+    private final MeterRegistry meterRegistry;
 
     public TokenPairResponse login(String usernameOrEmail, String password) {
 
         Authentication auth = new UsernamePasswordAuthenticationToken(usernameOrEmail, password);
 
+        // The user lookup and BCrypt inside authenticate() are timed on their own, as ekko.users.lookup and ekko.auth.password.
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+
         try {
 
             Authentication authentication = authManager.authenticate(auth);
@@ -43,15 +51,21 @@ public class AuthService {
 
             jwtUseCase.persistNewRefreshToken(refreshTokenData);
 
+            outcome = "success";
+
             return new  TokenPairResponse(accessTokenData, refreshTokenData);
 
         } catch (DisabledException e) {
 
+            outcome = "disabled";
+
             log.info("User {} tried to login when their account is not verified yet.", usernameOrEmail);
             throw new BadAuthenticationException("Account has not been verified and enabled yet");
 
         } catch (BadCredentialsException e) {
 
+            outcome = "bad_credentials";
+
             log.info("User {} tried to log in with invalid credentials", usernameOrEmail);
             throw new BadAuthenticationException("Invalid credentials.");
 
@@ -61,6 +75,8 @@ public class AuthService {
 
             throw new BadAuthenticationException("Something went wrong with your authentication.");
 
+        } finally {
+            sample.stop(meterRegistry.timer("ekko.auth.login", "outcome", outcome));
         }
 
     }
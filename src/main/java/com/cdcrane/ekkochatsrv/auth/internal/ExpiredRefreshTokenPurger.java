@@ -0,0 +1,29 @@
+package com.cdcrane.ekkochatsrv.auth.internal;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+
+/**
+ * Expired refresh tokens can't be used anymore, every rotation leaves one behind otherwise.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class ExpiredRefreshTokenPurger {
+
+    private final RefreshTokenRepository refreshTokenRepo;
+
+    @Scheduled(cron = "${jwt.refresh_token_purge_cron}")
+    @Transactional
+    public void purgeExpired() {
+
+        int purged = refreshTokenRepo.deleteExpired(new Date());
+
+        if (purged > 0) log.info("Purged {} expired refresh tokens", purged);
+    }
+}
@@ -1,5 +1,6 @@
 package com.cdcrane.ekkochatsrv.auth.internal;
 
+import com.cdcrane.ekkochatsrv.auth.api.JwtUseCase;
 import com.cdcrane.ekkochatsrv.auth.dto.AccessJwtData;
 import com.cdcrane.ekkochatsrv.auth.dto.RefreshJwtData;
 import com.cdcrane.ekkochatsrv.auth.dto.TokenPairResponse;
@@ -13,6 +14,8 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -34,6 +37,7 @@ public class JwtService implements JwtUseCase {
 
     private final RefreshTokenRepository refreshTokenRepo;
     private final UserUseCase userService;
+    private final MeterRegistry meterRegistry;
 
     @Value("${jwt.refresh_token_storage_pepper}")
     private String refreshTokenStoragePepper;
@@ -76,6 +80,7 @@ public class JwtService implements JwtUseCase {
     @Override
     public AccessJwtData createAccessJwt(Authentication auth, UUID userId) {
 
+        Timer.Sample sample = Timer.start(meterRegistry);
         Date expiration = new Date(System.currentTimeMillis() + accessTokenExpirationMs);
 
         String jwt =  Jwts.builder()
@@ -91,6 +96,8 @@ public class JwtService implements JwtUseCase {
                 .signWith(accessSecretKey)
                 .compact();
 
+        sample.stop(meterRegistry.timer("ekko.auth.jwt.create", "type", "access"));
+
         return new AccessJwtData(jwt, auth.getName(), expiration);
 
     }
@@ -104,6 +111,7 @@ public class JwtService implements JwtUseCase {
     @Override
     public AccessJwtData createAccessJwt(String username, Set<String> roles, UUID userId) {
 
+        Timer.Sample sample = Timer.start(meterRegistry);
         Date expiration = new Date(System.currentTimeMillis() + accessTokenExpirationMs);
 
         String jwt =  Jwts.builder()
@@ -118,6 +126,8 @@ public class JwtService implements JwtUseCase {
                 .signWith(accessSecretKey)
                 .compact();
 
+        sample.stop(meterRegistry.timer("ekko.auth.jwt.create", "type", "access"));
+
         return new AccessJwtData(jwt, username, expiration);
 
     }
@@ -130,6 +140,7 @@ public class JwtService implements JwtUseCase {
     @Override
     public RefreshJwtData createRefreshJwt(UUID userId) {
 
+        Timer.Sample sample = Timer.start(meterRegistry);
         Date expiration = new Date(System.currentTimeMillis() + refreshTokenExpirationMs);
         var jti =  UUID.randomUUID(); // Token ID.
 
@@ -144,6 +155,8 @@ public class JwtService implements JwtUseCase {
                 .signWith(refreshSecretKey)
                 .compact();
 
+        sample.stop(meterRegistry.timer("ekko.auth.jwt.create", "type", "refresh"));
+
         return new RefreshJwtData(jwt, userId, expiration, jti);
 
     }
@@ -158,18 +171,27 @@ public class JwtService implements JwtUseCase {
     @Override
     public Claims verifyAccessJwt(String jwt) {
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "invalid";
+
         try {
 
-            return Jwts.parser()
+            var claims = Jwts.parser()
                     .verifyWith(accessSecretKey)
                     .build()
                         .parseSignedClaims(jwt)
                         .getPayload();
 
+            outcome = "valid";
+            return claims;
+
         } catch (ExpiredJwtException e) {
+            outcome = "expired";
             throw new BadJwtException("Your authentication has expired, please refresh your access token.");
         } catch (Exception e) {
             throw new BadJwtException("Your token is invalid, make sure you are using your access token.");
+        } finally {
+            sample.stop(meterRegistry.timer("ekko.auth.jwt.verify", "type", "access", "outcome", outcome));
         }
     }
 
@@ -182,18 +204,27 @@ public class JwtService implements JwtUseCase {
     @Override
     public Claims verifyRefreshJwt(String jwt) {
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "invalid";
+
         try {
 
-            return Jwts.parser()
+            var claims = Jwts.parser()
                     .verifyWith(refreshSecretKey)
                     .build()
                     .parseSignedClaims(jwt)
                     .getPayload();
 
+            outcome = "valid";
+            return claims;
+
         } catch (ExpiredJwtException e) {
+            outcome = "expired";
             throw new BadJwtException("Your refresh token has expired, please log in again.");
         } catch (Exception e) {
             throw new BadJwtException("Your refresh token is invalid or has been tampered with, please log in again.");
+        } finally {
+            sample.stop(meterRegistry.timer("ekko.auth.jwt.verify", "type", "refresh", "outcome", outcome));
         }
     }
 
@@ -208,6 +239,28 @@ public class JwtService implements JwtUseCase {
     @Transactional
     public TokenPairResponse refreshBothTokens(String refreshToken) {
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+
+        try {
+
+            var tokens = rotateTokens(refreshToken);
+            outcome = "success";
+            return tokens;
+
+        } catch (BadJwtException e) {
+            outcome = "bad_token";
+            throw e;
+        } catch (TokenNotFoundException e) {
+            outcome = "revoked";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("ekko.auth.jwt.refresh", "outcome", outcome));
+        }
+    }
+
+    private TokenPairResponse rotateTokens(String refreshToken) {
+
         // Verifies its integrity & expiry (will throw an exception if its expired), then returns the claims
         var refreshClaims = this.verifyRefreshJwt(refreshToken);
 
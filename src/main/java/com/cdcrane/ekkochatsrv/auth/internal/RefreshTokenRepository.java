@@ -1,13 +1,24 @@
 package com.cdcrane.ekkochatsrv.auth.internal;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshTokenEntry, UUID> {
 
+    // May be served by a replica, the refresh rotation calls this inside its write transaction so it always sees the primary.
+    @Transactional(readOnly = true)
     Optional<RefreshTokenEntry> findByJti(UUID jti);
+
+    // Bulk delete on the expiry index, never loads the entries.
+    @Modifying
+    @Query("DELETE FROM RefreshTokenEntry r WHERE r.expiry < ?1")
+    int deleteExpired(Date now);
 }
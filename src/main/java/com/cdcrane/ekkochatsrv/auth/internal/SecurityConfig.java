@@ -1,11 +1,15 @@
 package com.cdcrane.ekkochatsrv.auth.internal;
 
+import com.cdcrane.ekkochatsrv.auth.api.JwtUseCase;
 import com.cdcrane.ekkochatsrv.auth.exceptions.handlers.EkkoAccessDeniedHandler;
 import com.cdcrane.ekkochatsrv.auth.exceptions.handlers.EkkoAuthEntryPoint;
 import com.cdcrane.ekkochatsrv.auth.filter.AccessTokenValidatorFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.security.autoconfigure.actuate.web.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -15,6 +19,8 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.access.ExceptionTranslationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 @Configuration
 @RequiredArgsConstructor
@@ -28,10 +34,41 @@ public class SecurityConfig {
             "/api/v1/auth/login",
             "/api/v1/user/register",
             "/api/v1/user/verify",
-            "/api/v1/auth/refresh"
+            "/api/v1/auth/refresh",
+            "/ws/notifications" // The handshake checks the access JWT itself, see the notifications module.
     };
 
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
+    /**
+     * Actuator endpoints, wherever they are served. Health and metrics are only open on the management port, which
+     * stays off the public load balancer. Without the port override they are served next to the API and need a token
+     * like everything else.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain managementFilterChain(HttpSecurity http) {
+
+        RequestMatcher onManagementPort = request -> request.getLocalPort() == managementPort;
+        RequestMatcher probes = new AndRequestMatcher(EndpointRequest.to("health", "prometheus"), onManagementPort);
+
+        http.securityMatcher(EndpointRequest.toAnyEndpoint());
+
+        http.authorizeHttpRequests(requests -> requests
+                .requestMatchers(probes).permitAll()
+                // Profiles show paths and timings of other users' requests.
+                .requestMatchers(EndpointRequest.to("requestprofiles")).hasAuthority("ADMIN")
+                .anyRequest().authenticated()
+        );
+
+        statelessTokenAuth(http, new AccessTokenValidatorFilter(jwtService, probes));
+
+        return http.build();
+    }
+
     @Bean
+    @Order(2)
     public SecurityFilterChain filterChain(HttpSecurity http) {
 
         http.authorizeHttpRequests(requests -> requests
@@ -39,6 +76,14 @@ public class SecurityConfig {
                 .anyRequest().authenticated()
         );
 
+        statelessTokenAuth(http, new AccessTokenValidatorFilter(jwtService));
+
+        return http.build();
+
+    }
+
+    private void statelessTokenAuth(HttpSecurity http, AccessTokenValidatorFilter tokenFilter) {
+
         http.formLogin(AbstractHttpConfigurer::disable);
         http.httpBasic(AbstractHttpConfigurer::disable);
         http.csrf(AbstractHttpConfigurer::disable);
@@ -47,15 +92,12 @@ public class SecurityConfig {
 
         http.cors(c -> c.configurationSource(corsConfig));
 
-        http.addFilterAfter(new AccessTokenValidatorFilter(jwtService), ExceptionTranslationFilter.class);
+        http.addFilterAfter(tokenFilter, ExceptionTranslationFilter.class);
 
         http.exceptionHandling(eh -> eh
                 .authenticationEntryPoint(new EkkoAuthEntryPoint())
                 .accessDeniedHandler(new EkkoAccessDeniedHandler())
         );
-
-        return http.build();
-
     }
 
 
@@ -0,0 +1,45 @@
+package com.cdcrane.ekkochatsrv.auth.internal;
+
+import com.cdcrane.ekkochatsrv.profiling.RequestProfiler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Times the hashing separately from everything else, BCrypt is deliberately slow and usually the biggest part of a login.
+ * Sampled requests also get it as a stage of their profile.
+ */
+class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+
+        this.delegate = delegate;
+        this.encodeTimer = Timer.builder("ekko.auth.password").tag("operation", "encode")
+                .description("Password hashing").register(meterRegistry);
+        this.matchesTimer = Timer.builder("ekko.auth.password").tag("operation", "matches")
+                .description("Password hashing").register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        try (var stage = RequestProfiler.stage("bcrypt encode")) {
+            return encodeTimer.record(() -> delegate.encode(rawPassword));
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        try (var stage = RequestProfiler.stage("bcrypt matches")) {
+            return Boolean.TRUE.equals(matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,26 @@
+package com.cdcrane.ekkochatsrv.chat.api;
+
+import com.cdcrane.ekkochatsrv.chat.dto.MessageDTO;
+import com.cdcrane.ekkochatsrv.chat.dto.MessagePageDTO;
+import com.cdcrane.ekkochatsrv.chat.dto.SendMessageRequest;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+public interface ChatMessageUseCase {
+
+    /**
+     * Sanitizes, encrypts and queues the message for the next ingestion batch.
+     * @return Completes once the batch holding the message has committed.
+     */
+    CompletableFuture<MessageDTO> sendMessage(UUID senderId, UUID conversationId, SendMessageRequest request);
+
+    /**
+     * Messages past the cursor in commit order, a message that commits late is never skipped. This is how members of
+     * large groups receive messages, sync only tells them there is something to pull.
+     * @param cursor From the previous page, null or blank to start at the beginning of the conversation.
+     */
+    MessagePageDTO getMessagesAfter(UUID userId, UUID conversationId, String cursor, int limit);
+
+    boolean isMember(UUID userId, UUID conversationId);
+}
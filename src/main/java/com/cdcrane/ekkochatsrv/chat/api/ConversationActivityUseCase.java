@@ -0,0 +1,20 @@
+package com.cdcrane.ekkochatsrv.chat.api;
+
+import java.util.UUID;
+
+/**
+ * High frequency, low value activity in a conversation, delivered as ephemeral notifications.
+ */
+public interface ConversationActivityUseCase {
+
+    /**
+     * Shows the other members that the user is typing, repeats are coalesced.
+     */
+    void typing(UUID userId, UUID conversationId);
+
+    /**
+     * Sends a read receipt to the other members and resets the unread count right away, the read cursor itself is
+     * only written on the next flush, with the highest message seen since the last one.
+     */
+    void markSeen(UUID userId, UUID conversationId, long lastSeenMessageId);
+}
@@ -0,0 +1,14 @@
+package com.cdcrane.ekkochatsrv.chat.api;
+
+import com.cdcrane.ekkochatsrv.chat.dto.InboxPageDTO;
+
+import java.util.UUID;
+
+public interface InboxUseCase {
+
+    /**
+     * Conversations of the user, most recently active first.
+     * @param cursor Null for the first page, otherwise the nextCursor of the previous page.
+     */
+    InboxPageDTO getInbox(UUID userId, String cursor, int limit);
+}
@@ -0,0 +1,15 @@
+package com.cdcrane.ekkochatsrv.chat.api;
+
+import com.cdcrane.ekkochatsrv.chat.dto.SyncPageDTO;
+
+import java.util.UUID;
+
+public interface SyncUseCase {
+
+    /**
+     * Everything that changed for the user after the cursor, cut off by response size rather than count.
+     * @param cursor Null to start from the oldest retained change.
+     * @return A page flagged resetRequired if the cursor is older than the retained changes.
+     */
+    SyncPageDTO sync(UUID userId, String cursor);
+}
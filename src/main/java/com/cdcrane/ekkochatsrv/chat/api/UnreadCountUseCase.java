@@ -0,0 +1,22 @@
+package com.cdcrane.ekkochatsrv.chat.api;
+
+import com.cdcrane.ekkochatsrv.chat.dto.UnreadCountDTO;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface UnreadCountUseCase {
+
+    /**
+     * Counts a new message as unread for every recipient except the sender. Only touches memory.
+     */
+    void messageDelivered(UUID conversationId, UUID senderId, Collection<UUID> recipientIds);
+
+    /**
+     * Moves the user's read cursor forward and resets their unread count in the conversation.
+     */
+    void markRead(UUID userId, UUID conversationId, long lastReadMessageId);
+
+    List<UnreadCountDTO> getUnreadCounts(UUID userId);
+}
@@ -0,0 +1,15 @@
+package com.cdcrane.ekkochatsrv.chat.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * One synced change, only the fields of its type are set.
+ * @param messageId The new message for MESSAGE_CREATED, the new read cursor for READ_CURSOR_MOVED, the newest message
+ *                  of a large group for CONVERSATION_ACTIVITY, whose messages are then pulled from the conversation.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChangeDTO(String type, UUID conversationId, Long messageId, UUID senderId, String body, Date at) {
+}
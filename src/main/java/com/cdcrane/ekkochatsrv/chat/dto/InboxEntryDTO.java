@@ -0,0 +1,11 @@
+package com.cdcrane.ekkochatsrv.chat.dto;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * @param preview Start of the last message, null if the conversation has no messages yet.
+ */
+public record InboxEntryDTO(UUID conversationId, Long lastMessageId, UUID lastSenderId,
+                            String preview, Date lastActivityAt, long unread) {
+}
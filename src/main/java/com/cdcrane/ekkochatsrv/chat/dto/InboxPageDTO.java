@@ -0,0 +1,9 @@
+package com.cdcrane.ekkochatsrv.chat.dto;
+
+import java.util.List;
+
+/**
+ * @param nextCursor Pass back to get the next page, null on the last page.
+ */
+public record InboxPageDTO(List<InboxEntryDTO> entries, String nextCursor) {
+}
@@ -0,0 +1,10 @@
+package com.cdcrane.ekkochatsrv.chat.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * @param lastReadMessageId Newest message the client has shown, everything up to it counts as read.
+ */
+public record MarkReadRequest(@NotNull @Positive Long lastReadMessageId) {
+}
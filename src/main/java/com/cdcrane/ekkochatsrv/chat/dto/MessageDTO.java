@@ -0,0 +1,7 @@
+package com.cdcrane.ekkochatsrv.chat.dto;
+
+import java.util.Date;
+import java.util.UUID;
+
+public record MessageDTO(Long messageId, UUID conversationId, UUID senderId, String body, Date createdAt) {
+}
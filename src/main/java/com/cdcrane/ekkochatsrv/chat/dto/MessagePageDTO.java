@@ -0,0 +1,10 @@
+package com.cdcrane.ekkochatsrv.chat.dto;
+
+import java.util.List;
+
+/**
+ * @param cursor Pass back on the next pull, also when there were no messages.
+ * @param hasMore True if the page is full, pull again straight away.
+ */
+public record MessagePageDTO(List<MessageDTO> messages, String cursor, boolean hasMore) {
+}
@@ -0,0 +1,7 @@
+package com.cdcrane.ekkochatsrv.chat.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public record SendMessageRequest(@NotBlank @Size(max = 4000) String body) {
+}
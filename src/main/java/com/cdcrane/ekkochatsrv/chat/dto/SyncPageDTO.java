@@ -0,0 +1,12 @@
+package com.cdcrane.ekkochatsrv.chat.dto;
+
+import java.util.List;
+
+/**
+ * @param cursor Pass back on the next sync, also when there were no changes.
+ * @param hasMore True if the byte budget ran out before the log did, sync again straight away.
+ * @param resetRequired True if the cursor is older than the change log keeps, changes were lost. Reload everything,
+ *                      then continue syncing from the cursor that came with this page.
+ */
+public record SyncPageDTO(List<ChangeDTO> changes, String cursor, boolean hasMore, boolean resetRequired) {
+}
@@ -0,0 +1,6 @@
+package com.cdcrane.ekkochatsrv.chat.dto;
+
+import java.util.UUID;
+
+public record UnreadCountDTO(UUID conversationId, long unread) {
+}
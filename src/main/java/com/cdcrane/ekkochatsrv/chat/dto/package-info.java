@@ -0,0 +1,4 @@
+@NamedInterface("dto")
+package com.cdcrane.ekkochatsrv.chat.dto;
+
+import org.springframework.modulith.NamedInterface;
@@ -0,0 +1,7 @@
+package com.cdcrane.ekkochatsrv.chat.exceptions;
+
+public class ConversationNotFoundException extends RuntimeException {
+    public ConversationNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.cdcrane.ekkochatsrv.chat.exceptions;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
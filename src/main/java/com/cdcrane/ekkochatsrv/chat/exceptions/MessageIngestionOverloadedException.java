@@ -0,0 +1,7 @@
+package com.cdcrane.ekkochatsrv.chat.exceptions;
+
+public class MessageIngestionOverloadedException extends RuntimeException {
+    public MessageIngestionOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.cdcrane.ekkochatsrv.chat.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    // Whole seconds until the request would be accepted, sent back as Retry-After.
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,4 @@
+@NamedInterface("exceptions")
+package com.cdcrane.ekkochatsrv.chat.exceptions;
+
+import org.springframework.modulith.NamedInterface;
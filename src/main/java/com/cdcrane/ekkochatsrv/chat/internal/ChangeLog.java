@@ -0,0 +1,207 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import com.cdcrane.ekkochatsrv.chat.exceptions.InvalidCursorException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Per user change log behind the sync endpoint.
+ * <p>
+ * Entries are read in (transaction id, id) order and only once every transaction that could still add an entry
+ * before them has finished, so a client cursor never moves past an entry that commits late. The price is that a
+ * long running transaction anywhere holds sync back until it ends.
+ * <p>
+ * Large groups write no entries per member, their conversation_heads row carries a change log position that moves
+ * with every batch and is read as a CONVERSATION_ACTIVITY change by each member, telling them to pull.
+ * <p>
+ * The retention purge records the newest transaction it deleted entries of, a cursor at or before it can't be
+ * continued without losing changes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class ChangeLog {
+
+    private static final String APPEND_SQL = "INSERT INTO user_changes (id, user_id, type, conversation_id, ref_id, created_at) " +
+            "VALUES (nextval('user_changes_id_seq'), ?, ?, ?, ?, ?)";
+
+    // One statement, so the safe point returned is the one the entries were filtered by. Always at least one row.
+    private static final String READ_SQL = "WITH s AS (SELECT pg_snapshot_xmin(pg_current_snapshot()) AS safe_tx) " +
+            "SELECT s.safe_tx::text, c.tx_id::text, c.id, c.type, c.conversation_id, c.ref_id, c.created_at, c.sender_id, c.body FROM s " +
+            "LEFT JOIN LATERAL (SELECT * FROM (" +
+            "(SELECT c.tx_id, c.id, c.type, c.conversation_id, c.ref_id, c.created_at, m.sender_id, m.body " +
+            "FROM user_changes c " +
+            "LEFT JOIN messages m ON c.type = 'MESSAGE_CREATED' AND m.id = c.ref_id " +
+            "WHERE c.user_id = ? AND (c.tx_id, c.id) > (?::xid8, ?) AND c.tx_id < s.safe_tx " +
+            "ORDER BY c.tx_id, c.id LIMIT ?) " +
+            "UNION ALL " +
+            "(SELECT h.tx_id, h.change_id, 'CONVERSATION_ACTIVITY', h.conversation_id, h.last_message_id, h.last_activity_at, NULL::uuid, NULL::bytea " +
+            "FROM conversation_members cm JOIN conversation_heads h ON h.conversation_id = cm.conversation_id " +
+            "WHERE cm.user_id = ? AND (h.tx_id, h.change_id) > (?::xid8, ?) AND h.tx_id < s.safe_tx)" +
+            ") u ORDER BY u.tx_id, u.id LIMIT ?) c ON true " +
+            "ORDER BY c.tx_id, c.id";
+
+    // Deletes one batch and moves the purge watermark in the same statement, a crash can't lose it.
+    private static final String PURGE_SQL = "WITH d AS (DELETE FROM user_changes WHERE id IN " +
+            "(SELECT id FROM user_changes WHERE created_at < ? LIMIT ?) RETURNING tx_id), " +
+            "w AS (UPDATE change_log_retention SET purged_through = GREATEST(purged_through, " +
+            "(SELECT tx_id FROM d ORDER BY tx_id DESC LIMIT 1)) WHERE EXISTS (SELECT 1 FROM d)) " +
+            "SELECT COUNT(*) FROM d";
+
+    private final JdbcTemplate jdbc;
+
+    @Value("${chat.sync.retention_days}")
+    private int retentionDays;
+
+    @Value("${chat.sync.purge_batch_size}")
+    private int purgeBatchSize;
+
+    /**
+     * Has to run inside the transaction making the change, the entry commits or rolls back with it.
+     */
+    void append(List<Change> changes) {
+
+        if (changes.isEmpty()) return;
+
+        var now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> rows = new ArrayList<>(changes.size());
+
+        for (Change change : changes) {
+            rows.add(new Object[]{change.userId(), change.type().name(), change.conversationId(), change.refId(), now});
+        }
+
+        jdbc.batchUpdate(APPEND_SQL, rows);
+    }
+
+    Chunk read(UUID userId, Position after, int limit) {
+
+        return jdbc.query(READ_SQL, rs -> {
+
+            String safeTxId = null;
+            List<Entry> entries = new ArrayList<>();
+
+            while (rs.next()) {
+
+                safeTxId = rs.getString(1);
+
+                if (rs.getString(2) == null) continue;
+
+                entries.add(new Entry(
+                        new Position(rs.getString(2), rs.getLong(3)),
+                        ChangeType.valueOf(rs.getString(4)),
+                        rs.getObject(5, UUID.class),
+                        rs.getLong(6),
+                        rs.getTimestamp(7),
+                        rs.getObject(8, UUID.class),
+                        rs.getBytes(9)));
+            }
+
+            return new Chunk(entries, new Position(safeTxId, 0));
+
+        }, userId, after.txId(), after.id(), limit, userId, after.txId(), after.id(), limit);
+    }
+
+    /**
+     * @return True if the retention purge may have deleted entries after the position.
+     */
+    boolean purgedPast(Position position) {
+
+        return Boolean.TRUE.equals(jdbc.queryForObject("SELECT ?::xid8 <= purged_through FROM change_log_retention",
+                Boolean.class, position.txId()));
+    }
+
+    /**
+     * @return A position every entry that is already readable lies before.
+     */
+    Position safePoint() {
+        return new Position(jdbc.queryForObject("SELECT pg_snapshot_xmin(pg_current_snapshot())::text", String.class), 0);
+    }
+
+    /**
+     * Drops entries past the retention window in small batches, so the delete never holds many locks at once.
+     */
+    @Scheduled(cron = "${chat.sync.purge_cron}")
+    void purgeExpired() {
+
+        var cutoff = new Timestamp(System.currentTimeMillis() - retentionDays * 86_400_000L);
+        long purged = 0;
+        int deleted;
+
+        do {
+            Integer count = jdbc.queryForObject(PURGE_SQL, Integer.class, cutoff, purgeBatchSize);
+            deleted = count != null ? count : 0;
+            purged += deleted;
+        } while (deleted == purgeBatchSize);
+
+        if (purged > 0) log.info("Purged {} expired change log entries", purged);
+    }
+
+    record Change(UUID userId, ChangeType type, UUID conversationId, Long refId) {
+    }
+
+    record Position(String txId, long id) {
+
+        static final Position START = new Position("0", 0);
+
+        /**
+         * @return Opaque cursor for clients, read back with {@link #decode}.
+         */
+        String encode() {
+
+            String raw = txId + ":" + id;
+
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @throws InvalidCursorException If the cursor wasn't made by {@link #encode}.
+         */
+        static Position decode(String cursor) {
+
+            try {
+
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf(':');
+
+                // Parsed here so nothing but digits ever reaches the xid8 cast.
+                long txId = Long.parseUnsignedLong(raw.substring(0, separator));
+
+                return new Position(Long.toUnsignedString(txId), Long.parseLong(raw.substring(separator + 1)));
+
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new InvalidCursorException("Cursor is not valid.");
+            }
+        }
+
+        /**
+         * @return Whichever of the two comes later in read order.
+         */
+        Position max(Position other) {
+
+            int byTx = Long.compareUnsigned(Long.parseUnsignedLong(txId), Long.parseUnsignedLong(other.txId));
+
+            return byTx > 0 || (byTx == 0 && id >= other.id) ? this : other;
+        }
+    }
+
+    /**
+     * @param safePoint Every entry that can still show up after the read lies after this.
+     */
+    record Chunk(List<Entry> entries, Position safePoint) {
+    }
+
+    /**
+     * @param senderId Only set for MESSAGE_CREATED.
+     * @param body Encrypted message body, only set for MESSAGE_CREATED.
+     */
+    record Entry(Position position, ChangeType type, UUID conversationId, long refId, Date createdAt, UUID senderId, byte[] body) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+public enum ChangeType {
+    // refId is the new message.
+    MESSAGE_CREATED,
+    // refId is the user's new read cursor in the conversation.
+    READ_CURSOR_MOVED,
+    // refId is the newest message of a large group. Never stored in user_changes, it is the group's conversation_heads row.
+    CONVERSATION_ACTIVITY
+}
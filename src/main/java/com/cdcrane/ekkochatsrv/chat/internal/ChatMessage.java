@@ -0,0 +1,43 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.UUID;
+
+@Entity
+@Table(name = "messages", indexes = {
+        // Paging through a conversation and pulling past a watermark, both by id.
+        @Index(name = "idx_messages_conversation_id", columnList = "conversation_id, id"),
+        // Pulling in commit safe order, see ChatMessageService.getMessagesAfter.
+        @Index(name = "idx_messages_conversation_tx", columnList = "conversation_id, tx_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatMessage {
+
+    // Sequence instead of identity so ids are ordered for keyset paging and inserts can be batched.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "messages_seq")
+    @SequenceGenerator(name = "messages_seq", sequenceName = "messages_id_seq", allocationSize = 50)
+    private Long id;
+
+    private UUID conversationId;
+
+    private UUID senderId;
+
+    // Encrypted with the crypto module, the header holds the key version.
+    private byte[] body;
+
+    private Date createdAt;
+
+    // Transaction that wrote the message, pulls go by (txId, id) since ids from the pooled sequence aren't in commit order.
+    @Column(columnDefinition = "xid8 NOT NULL DEFAULT pg_current_xact_id()", insertable = false, updatable = false)
+    private String txId;
+}
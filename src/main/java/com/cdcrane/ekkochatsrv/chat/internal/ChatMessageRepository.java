@@ -0,0 +1,8 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
+}
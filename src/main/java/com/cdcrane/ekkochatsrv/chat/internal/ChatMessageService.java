@@ -0,0 +1,141 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import com.cdcrane.ekkochatsrv.chat.api.ChatMessageUseCase;
+import com.cdcrane.ekkochatsrv.chat.api.UnreadCountUseCase;
+import com.cdcrane.ekkochatsrv.chat.dto.MessageDTO;
+import com.cdcrane.ekkochatsrv.chat.dto.MessagePageDTO;
+import com.cdcrane.ekkochatsrv.chat.dto.SendMessageRequest;
+import com.cdcrane.ekkochatsrv.chat.exceptions.ConversationNotFoundException;
+import com.cdcrane.ekkochatsrv.chat.internal.ChangeLog.Position;
+import com.cdcrane.ekkochatsrv.crypto.api.MessageEncryptionUseCase;
+import com.cdcrane.ekkochatsrv.sanitizer.TextSanitizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+@Service
+@RequiredArgsConstructor
+public class ChatMessageService implements ChatMessageUseCase {
+
+    private final ConversationMemberRepository memberRepo;
+    private final MessageEncryptionUseCase encryption;
+    private final MessageIngestionPipeline ingestionPipeline;
+    private final UnreadCountUseCase unreadCounts;
+    private final SendRateLimiter rateLimiter;
+    private final FanoutPolicy fanoutPolicy;
+    private final JdbcTemplate jdbc;
+    private final TextSanitizer textSanitizer;
+
+    // Same guard as ChangeLog.READ_SQL: ids come from a pooled sequence, so a message with a lower id can commit after
+    // one with a higher id. Only messages of transactions older than every running one are handed out, in (tx_id, id)
+    // order, and the cursor never passes a message that can still commit. Always at least one row.
+    private static final String PULL_SQL = "WITH s AS (SELECT pg_snapshot_xmin(pg_current_snapshot()) AS safe_tx) " +
+            "SELECT s.safe_tx::text, m.tx_id::text, m.id, m.sender_id, m.body, m.created_at FROM s " +
+            "LEFT JOIN LATERAL (SELECT tx_id, id, sender_id, body, created_at FROM messages " +
+            "WHERE conversation_id = ? AND (tx_id, id) > (?::xid8, ?) AND tx_id < s.safe_tx " +
+            "ORDER BY tx_id, id LIMIT ?) m ON true " +
+            "ORDER BY m.tx_id, m.id";
+
+    @Value("${chat.history.max_page_size}")
+    private int maxPageSize;
+
+    @Override
+    public CompletableFuture<MessageDTO> sendMessage(UUID senderId, UUID conversationId, SendMessageRequest request) {
+
+        // Before anything else, a flood shouldn't even cost us the member lookup.
+        rateLimiter.acquire(senderId, conversationId);
+
+        var memberIds = memberRepo.findUserIdsByConversationId(conversationId);
+
+        // Same answer whether the conversation doesn't exist or the sender isn't in it.
+        if (!memberIds.contains(senderId)) {
+            throw new ConversationNotFoundException("Conversation not found: " + conversationId);
+        }
+
+        String body = textSanitizer.sanitize(request.body());
+
+        var message = ChatMessage.builder()
+                .conversationId(conversationId)
+                .senderId(senderId)
+                .body(encryption.encrypt(body))
+                .createdAt(new Date())
+                .build();
+
+        return ingestionPipeline.submit(message, memberIds)
+                .thenApply(saved -> {
+
+                    // Large groups count unread messages on read, from the member's read cursor.
+                    if (!fanoutPolicy.fanOutOnRead(memberIds.size())) {
+                        unreadCounts.messageDelivered(conversationId, senderId, memberIds);
+                    }
+
+                    return new MessageDTO(saved.getId(), saved.getConversationId(), saved.getSenderId(), body, saved.getCreatedAt());
+                });
+    }
+
+    @Override
+    public MessagePageDTO getMessagesAfter(UUID userId, UUID conversationId, String cursor, int limit) {
+
+        if (!memberRepo.existsByConversationIdAndUserId(conversationId, userId)) {
+            throw new ConversationNotFoundException("Conversation not found: " + conversationId);
+        }
+
+        Position after = cursor == null || cursor.isBlank() ? Position.START : Position.decode(cursor);
+        int pageSize = Math.clamp(limit, 1, maxPageSize);
+
+        String[] safeTxId = new String[1];
+        List<ChatMessage> messages = new ArrayList<>();
+
+        jdbc.query(PULL_SQL, rs -> {
+
+            safeTxId[0] = rs.getString(1);
+
+            if (rs.getString(2) == null) return;
+
+            messages.add(ChatMessage.builder()
+                    .txId(rs.getString(2))
+                    .id(rs.getLong(3))
+                    .conversationId(conversationId)
+                    .senderId(rs.getObject(4, UUID.class))
+                    .body(rs.getBytes(5))
+                    .createdAt(rs.getTimestamp(6))
+                    .build());
+
+        }, conversationId, after.txId(), after.id(), pageSize);
+
+        List<byte[]> bodies = new ArrayList<>(messages.size());
+        for (ChatMessage message : messages) {
+            bodies.add(message.getBody());
+        }
+
+        List<String> decrypted = encryption.decryptAll(bodies);
+        List<MessageDTO> page = new ArrayList<>(messages.size());
+
+        for (int i = 0; i < messages.size(); i++) {
+            var m = messages.get(i);
+            page.add(new MessageDTO(m.getId(), m.getConversationId(), m.getSenderId(), decrypted.get(i), m.getCreatedAt()));
+        }
+
+        if (messages.size() == pageSize) {
+            var last = messages.getLast();
+            return new MessagePageDTO(page, new Position(last.getTxId(), last.getId()).encode(), true);
+        }
+
+        // Caught up, nothing the snapshot guard held back sorts before the safe point.
+        Position reached = messages.isEmpty() ? after : new Position(messages.getLast().getTxId(), messages.getLast().getId());
+
+        return new MessagePageDTO(page, reached.max(new Position(safeTxId[0], 0)).encode(), false);
+    }
+
+    @Override
+    public boolean isMember(UUID userId, UUID conversationId) {
+        return memberRepo.existsByConversationIdAndUserId(conversationId, userId);
+    }
+}
@@ -0,0 +1,170 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import com.cdcrane.ekkochatsrv.chat.api.ConversationActivityUseCase;
+import com.cdcrane.ekkochatsrv.chat.exceptions.ConversationNotFoundException;
+import com.cdcrane.ekkochatsrv.chat.internal.UnreadCounterTable.CounterKey;
+import com.cdcrane.ekkochatsrv.notifications.api.EphemeralEventUseCase;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Typing and seen events, neither goes through the event publication registry or JPA.
+ * <p>
+ * Clients send "seen" for every message that scrolls into view, so seen watermarks are merged in memory, keeping only
+ * the highest per user and conversation, and a scheduled flush writes them as one JDBC batch. A watermark that wasn't
+ * flushed yet is lost if the node dies, the user's unread count then comes back with the next unread counter rebuild
+ * until they read the conversation again. A seen event clears the count straight away, the flush corrects it to the
+ * messages past the written watermark.
+ */
+@Service
+@Slf4j
+public class ConversationActivityService implements ConversationActivityUseCase {
+
+    // Same forward only guard as ConversationMemberRepository.advanceReadCursor.
+    private static final String ADVANCE_SQL = "UPDATE conversation_members SET last_read_message_id = ? " +
+            "WHERE conversation_id = ? AND user_id = ? AND (last_read_message_id IS NULL OR last_read_message_id < ?)";
+
+    private final ConversationMemberRepository memberRepo;
+    private final UnreadCounterService unreadCounters;
+    private final FanoutPolicy fanoutPolicy;
+    private final EphemeralEventUseCase ephemeralEvents;
+    private final ChangeLog changeLog;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+
+    private final ConcurrentHashMap<CounterKey, Long> seenWatermarks = new ConcurrentHashMap<>();
+
+    ConversationActivityService(ConversationMemberRepository memberRepo, UnreadCounterService unreadCounters,
+                                FanoutPolicy fanoutPolicy, EphemeralEventUseCase ephemeralEvents, ChangeLog changeLog,
+                                JdbcTemplate jdbc, PlatformTransactionManager txManager) {
+
+        this.memberRepo = memberRepo;
+        this.unreadCounters = unreadCounters;
+        this.fanoutPolicy = fanoutPolicy;
+        this.ephemeralEvents = ephemeralEvents;
+        this.changeLog = changeLog;
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    @Override
+    public void typing(UUID userId, UUID conversationId) {
+
+        // Before the coalescing slot is claimed, a non-member must not get one.
+        requireMember(conversationId, userId);
+
+        // Nobody follows who is typing in a large group, and it would be a push to every member.
+        ephemeralEvents.typing(conversationId, userId, () -> smallGroupMembers(conversationId));
+    }
+
+    @Override
+    public void markSeen(UUID userId, UUID conversationId, long lastSeenMessageId) {
+
+        var key = new CounterKey(userId, conversationId);
+
+        // A pending watermark means membership was already checked, anything at or below it is a repeat.
+        Long pending = seenWatermarks.get(key);
+        if (pending != null && pending >= lastSeenMessageId) return;
+
+        requireMember(conversationId, userId);
+
+        boolean[] advanced = new boolean[1];
+
+        seenWatermarks.compute(key, (k, current) -> {
+            if (current != null && current >= lastSeenMessageId) return current;
+            advanced[0] = true;
+            return lastSeenMessageId;
+        });
+
+        if (!advanced[0]) return;
+
+        unreadCounters.resetUnread(userId, conversationId);
+
+        // Large groups get no receipts, so their member list is never loaded here.
+        var members = smallGroupMembers(conversationId);
+
+        if (!members.isEmpty()) {
+            ephemeralEvents.readReceipt(conversationId, userId, lastSeenMessageId, members);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chat.read_receipts.flush_interval_ms}")
+    void flush() {
+
+        if (seenWatermarks.isEmpty()) return;
+
+        Map<CounterKey, Long> drained = new HashMap<>();
+
+        for (var key : seenWatermarks.keySet()) {
+            Long watermark = seenWatermarks.remove(key);
+            if (watermark != null) drained.put(key, watermark);
+        }
+
+        // Always the same lock order, two nodes flushing overlapping members can't deadlock.
+        List<CounterKey> keys = new ArrayList<>(drained.keySet());
+        keys.sort(Comparator.comparing(CounterKey::conversationId).thenComparing(CounterKey::userId));
+
+        List<Object[]> rows = new ArrayList<>(keys.size());
+        for (var key : keys) {
+            long watermark = drained.get(key);
+            rows.add(new Object[]{watermark, key.conversationId(), key.userId(), watermark});
+        }
+
+        try {
+
+            tx.executeWithoutResult(status -> {
+
+                int[] updated = jdbc.batchUpdate(ADVANCE_SQL, rows);
+
+                List<ChangeLog.Change> changes = new ArrayList<>();
+                for (int i = 0; i < updated.length; i++) {
+                    if (updated[i] > 0) {
+                        var key = keys.get(i);
+                        changes.add(new ChangeLog.Change(key.userId(), ChangeType.READ_CURSOR_MOVED, key.conversationId(), drained.get(key)));
+                    }
+                }
+
+                changeLog.append(changes);
+            });
+
+            // Every drained key was reset in memory, also the ones whose watermark was below the stored cursor.
+            unreadCounters.recountAfterCursors(keys);
+
+        } catch (RuntimeException e) {
+
+            log.warn("Flushing {} read watermarks failed, keeping them for the next flush: {}", drained.size(), e.getMessage());
+            drained.forEach((key, watermark) -> seenWatermarks.merge(key, watermark, Math::max));
+        }
+    }
+
+    @PreDestroy
+    private void flushOnShutdown() {
+        flush();
+    }
+
+    private void requireMember(UUID conversationId, UUID userId) {
+
+        if (!memberRepo.existsByConversationIdAndUserId(conversationId, userId)) {
+            throw new ConversationNotFoundException("Conversation not found: " + conversationId);
+        }
+    }
+
+    /**
+     * @return Empty for a large group, reading stops at the threshold instead of loading every member.
+     */
+    private List<UUID> smallGroupMembers(UUID conversationId) {
+
+        int threshold = fanoutPolicy.largeGroupThreshold();
+        var members = memberRepo.findUserIdsByConversationIdLimited(conversationId, threshold);
+
+        return fanoutPolicy.fanOutOnRead(members.size()) ? List.of() : members;
+    }
+}
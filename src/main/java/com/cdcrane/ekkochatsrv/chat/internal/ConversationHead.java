@@ -0,0 +1,42 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Newest message of a large group, shared by all of its members instead of one inbox entry each. A conversation
+ * has a row here exactly while it is delivered fan-out on read, see {@link FanoutPolicy}.
+ */
+@Entity
+@Table(name = "conversation_heads")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConversationHead {
+
+    @Id
+    private UUID conversationId;
+
+    private Long lastMessageId;
+
+    private UUID lastSenderId;
+
+    private Date lastActivityAt;
+
+    // Change log position of the newest advance, members' sync picks the head up as a CONVERSATION_ACTIVITY change.
+    @Column(columnDefinition = "xid8 NOT NULL DEFAULT pg_current_xact_id()", insertable = false, updatable = false)
+    private String txId;
+
+    @Column(columnDefinition = "bigint NOT NULL DEFAULT nextval('user_changes_id_seq')", insertable = false, updatable = false)
+    private Long changeId;
+}
@@ -0,0 +1,46 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * A user taking part in a conversation, along with how far they have read.
+ */
+@Entity
+@Table(name = "conversation_members")
+@IdClass(ConversationMember.MemberId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConversationMember {
+
+    @Id
+    private UUID conversationId;
+
+    @Id
+    private UUID userId;
+
+    // Read cursor, every message with an id up to and including this one has been read. Null if nothing was read yet.
+    private Long lastReadMessageId;
+
+    private Date joinedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MemberId implements Serializable {
+        private UUID conversationId;
+        private UUID userId;
+    }
+}
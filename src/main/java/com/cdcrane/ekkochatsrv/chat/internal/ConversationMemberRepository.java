@@ -0,0 +1,28 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ConversationMemberRepository extends JpaRepository<ConversationMember, ConversationMember.MemberId> {
+
+    @Query("SELECT m.userId FROM ConversationMember m WHERE m.conversationId = ?1")
+    List<UUID> findUserIdsByConversationId(UUID conversationId);
+
+    // At most limit members, enough to tell a small group from a large one without loading all of a large one.
+    @Query(value = "SELECT user_id FROM conversation_members WHERE conversation_id = ?1 LIMIT ?2", nativeQuery = true)
+    List<UUID> findUserIdsByConversationIdLimited(UUID conversationId, int limit);
+
+    boolean existsByConversationIdAndUserId(UUID conversationId, UUID userId);
+
+    // Cursors only ever move forward, a late receipt from another device must not un-read anything.
+    @Modifying
+    @Query("UPDATE ConversationMember m SET m.lastReadMessageId = ?3 " +
+            "WHERE m.conversationId = ?1 AND m.userId = ?2 AND (m.lastReadMessageId IS NULL OR m.lastReadMessageId < ?3)")
+    int advanceReadCursor(UUID conversationId, UUID userId, long lastReadMessageId);
+}
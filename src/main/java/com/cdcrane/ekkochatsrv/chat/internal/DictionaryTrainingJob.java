@@ -0,0 +1,71 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import com.cdcrane.ekkochatsrv.crypto.api.MessageDictionaryUseCase;
+import com.cdcrane.ekkochatsrv.crypto.api.MessageEncryptionUseCase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Trains a new message compression dictionary from the most recent messages, run it as its own process:
+ * <pre>
+ * java -jar ekkochatsrv.jar --spring.main.web-application-type=none --encryption.compression.training.enabled=true \
+ *      --encryption.compression.training.output_version=2
+ * </pre>
+ * The samples are only decrypted in memory, the dictionary file is the only thing written.
+ */
+@Component
+@ConditionalOnProperty(name = "encryption.compression.training.enabled", havingValue = "true")
+@Slf4j
+class DictionaryTrainingJob implements CommandLineRunner {
+
+    private final MessageEncryptionUseCase encryption;
+    private final MessageDictionaryUseCase dictionaries;
+    private final ApplicationContext context;
+    private final JdbcTemplate jdbc;
+
+    @Value("${encryption.compression.training.sample_size}")
+    private int sampleSize;
+
+    @Value("${encryption.compression.training.output_version}")
+    private int outputVersion;
+
+    DictionaryTrainingJob(MessageEncryptionUseCase encryption, MessageDictionaryUseCase dictionaries,
+                          ApplicationContext context, JdbcTemplate jdbc) {
+
+        this.encryption = encryption;
+        this.dictionaries = dictionaries;
+        this.context = context;
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public void run(String... args) {
+
+        int exitCode;
+
+        try {
+
+            List<byte[]> stored = jdbc.queryForList("SELECT body FROM messages ORDER BY id DESC LIMIT ?", byte[].class, sampleSize);
+
+            var path = dictionaries.trainDictionary(encryption.decryptAll(stored), outputVersion);
+
+            log.info("Dictionary written to {}, set encryption.compression.dictionary_version={} to start using it.", path, outputVersion);
+            exitCode = 0;
+
+        } catch (Exception e) {
+            log.error("Dictionary training failed: {}", e.toString());
+            exitCode = 1;
+        }
+
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
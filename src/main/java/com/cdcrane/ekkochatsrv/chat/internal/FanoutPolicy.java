@@ -0,0 +1,47 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks how a conversation's messages reach its members.
+ * <p>
+ * Below the threshold every message is fanned out on write: an inbox entry, a change log entry, an unread increment
+ * and a push per member, so reading is a lookup of the user's own rows. At or above it that write volume grows with
+ * every member for every message, so large groups are fanned out on read instead: one shared conversation_heads row
+ * per batch, members pull new messages from the messages table past their own watermark (the client's last pulled
+ * id, and last_read_message_id for unread counts), and live pushes are a single hint per conversation per batch.
+ */
+@Component
+class FanoutPolicy {
+
+    /**
+     * Unread count of a fan-out on read conversation, computed from the member's read cursor. Needs the
+     * conversation_members row aliased as cm and the count cap as parameter.
+     */
+    static final String PULLED_UNREAD_SQL = "(SELECT COUNT(*) FROM (SELECT 1 FROM messages g WHERE g.conversation_id = cm.conversation_id " +
+            "AND g.id > COALESCE(cm.last_read_message_id, 0) AND g.sender_id <> cm.user_id LIMIT ?) c)";
+
+    private final int largeGroupThreshold;
+    private final int unreadCountCap;
+
+    FanoutPolicy(@Value("${chat.fanout.large_group_threshold}") int largeGroupThreshold,
+                 @Value("${chat.fanout.unread_count_cap}") int unreadCountCap) {
+
+        this.largeGroupThreshold = largeGroupThreshold;
+        this.unreadCountCap = unreadCountCap;
+    }
+
+    boolean fanOutOnRead(int memberCount) {
+        return memberCount >= largeGroupThreshold;
+    }
+
+    int largeGroupThreshold() {
+        return largeGroupThreshold;
+    }
+
+    // Counting is a range scan per conversation, past this clients only show "cap+".
+    int unreadCountCap() {
+        return unreadCountCap;
+    }
+}
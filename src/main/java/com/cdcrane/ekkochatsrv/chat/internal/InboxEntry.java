@@ -0,0 +1,49 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * One row of a user's conversation list, kept up to date as messages are ingested so the list never has to be
+ * computed from the messages table.
+ */
+@Entity
+@Table(name = "inbox_entries", indexes = {
+        // Serves "newest conversations of a user" and its keyset pages straight from the index.
+        @Index(name = "idx_inbox_entries_user_activity", columnList = "user_id, last_activity_at DESC, conversation_id DESC")
+})
+@IdClass(InboxEntry.EntryId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InboxEntry {
+
+    @Id
+    private UUID userId;
+
+    @Id
+    private UUID conversationId;
+
+    // Null while the conversation has no messages.
+    private Long lastMessageId;
+
+    private UUID lastSenderId;
+
+    private Date lastActivityAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EntryId implements Serializable {
+        private UUID userId;
+        private UUID conversationId;
+    }
+}
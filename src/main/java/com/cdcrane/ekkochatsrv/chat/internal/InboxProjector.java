@@ -0,0 +1,106 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Keeps inbox_entries and conversation_heads in step with the messages table. Runs inside the ingestion transaction,
+ * so an inbox never points at a message that didn't commit.
+ */
+@Component
+@RequiredArgsConstructor
+class InboxProjector {
+
+    // The guard keeps a batch from another writer that committed later with older ids from moving an entry back.
+    private static final String UPSERT_SQL = "INSERT INTO inbox_entries (user_id, conversation_id, last_message_id, last_sender_id, last_activity_at) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT (user_id, conversation_id) DO UPDATE SET " +
+            "last_message_id = EXCLUDED.last_message_id, last_sender_id = EXCLUDED.last_sender_id, last_activity_at = EXCLUDED.last_activity_at " +
+            "WHERE inbox_entries.last_message_id IS NULL OR inbox_entries.last_message_id < EXCLUDED.last_message_id";
+
+    // The newest message only moves forward like above, but the sync marker moves with every batch, an older id that
+    // commits late still has to be pulled.
+    private static final String HEAD_UPSERT_SQL = "INSERT INTO conversation_heads (conversation_id, last_message_id, last_sender_id, last_activity_at) " +
+            "VALUES (?, ?, ?, ?) ON CONFLICT (conversation_id) DO UPDATE SET " +
+            "last_sender_id = CASE WHEN conversation_heads.last_message_id IS NULL OR conversation_heads.last_message_id < EXCLUDED.last_message_id " +
+            "THEN EXCLUDED.last_sender_id ELSE conversation_heads.last_sender_id END, " +
+            "last_activity_at = CASE WHEN conversation_heads.last_message_id IS NULL OR conversation_heads.last_message_id < EXCLUDED.last_message_id " +
+            "THEN EXCLUDED.last_activity_at ELSE conversation_heads.last_activity_at END, " +
+            "last_message_id = GREATEST(conversation_heads.last_message_id, EXCLUDED.last_message_id), " +
+            "tx_id = pg_current_xact_id(), change_id = nextval('user_changes_id_seq')";
+
+    private static final String HEAD_DELETE_SQL = "DELETE FROM conversation_heads WHERE conversation_id = ?";
+
+    private final JdbcTemplate jdbc;
+
+    /**
+     * @param membersByConversation Members of every conversation that appears in messages.
+     */
+    void messagesPersisted(List<ChatMessage> messages, Map<UUID, List<UUID>> membersByConversation) {
+
+        if (messages.isEmpty()) return;
+
+        jdbc.batchUpdate(UPSERT_SQL, upsertRows(messages, membersByConversation));
+
+        // Groups that shrank below the threshold go back to their members' own entries, written just above.
+        List<Object[]> shrunk = new ArrayList<>();
+        for (UUID conversationId : new TreeSet<>(membersByConversation.keySet())) {
+            shrunk.add(new Object[]{conversationId});
+        }
+
+        jdbc.batchUpdate(HEAD_DELETE_SQL, shrunk);
+    }
+
+    /**
+     * Fan-out on read, one conversation_heads row per large group in the batch however many members it has.
+     */
+    void headsAdvanced(List<ChatMessage> messages) {
+
+        if (messages.isEmpty()) return;
+
+        List<Object[]> rows = new ArrayList<>();
+
+        for (ChatMessage message : latestPerConversation(messages)) {
+            rows.add(new Object[]{message.getConversationId(), message.getId(), message.getSenderId(),
+                    new Timestamp(message.getCreatedAt().getTime())});
+        }
+
+        rows.sort(Comparator.<Object[], UUID>comparing(r -> (UUID) r[0]));
+
+        jdbc.batchUpdate(HEAD_UPSERT_SQL, rows);
+    }
+
+    static List<Object[]> upsertRows(List<ChatMessage> messages, Map<UUID, List<UUID>> membersByConversation) {
+
+        List<Object[]> rows = new ArrayList<>();
+
+        // Only the newest message of each conversation in the batch matters, one row per member instead of per message.
+        for (ChatMessage message : latestPerConversation(messages)) {
+
+            var activityAt = new Timestamp(message.getCreatedAt().getTime());
+
+            for (UUID memberId : membersByConversation.get(message.getConversationId())) {
+                rows.add(new Object[]{memberId, message.getConversationId(), message.getId(), message.getSenderId(), activityAt});
+            }
+        }
+
+        // Sorted so concurrent writers always lock rows in the same order and can't deadlock on each other.
+        rows.sort(Comparator.<Object[], UUID>comparing(r -> (UUID) r[0]).thenComparing(r -> (UUID) r[1]));
+
+        return rows;
+    }
+
+    private static Collection<ChatMessage> latestPerConversation(List<ChatMessage> messages) {
+
+        Map<UUID, ChatMessage> latest = new HashMap<>();
+
+        for (ChatMessage message : messages) {
+            latest.merge(message.getConversationId(), message, (a, b) -> a.getId() > b.getId() ? a : b);
+        }
+
+        return latest.values();
+    }
+}
@@ -0,0 +1,128 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Regenerates inbox_entries from conversation_members and messages, run it as its own process:
+ * <pre>
+ * java -jar ekkochatsrv.jar --spring.main.web-application-type=none --chat.inbox.rebuild.enabled=true
+ * </pre>
+ * Conversations are walked in id order (keyset, never OFFSET) and every chunk is rebuilt in its own short
+ * transaction, the newest message of each conversation is found through a LATERAL lookup instead of a GROUP BY over
+ * the whole messages table. Safe to run while the server takes traffic, an entry only ever moves to a newer message.
+ */
+@Component
+@ConditionalOnProperty(name = "chat.inbox.rebuild.enabled", havingValue = "true")
+@Slf4j
+class InboxRebuildJob implements CommandLineRunner {
+
+    private static final String REBUILD_SQL = "INSERT INTO inbox_entries (user_id, conversation_id, last_message_id, last_sender_id, last_activity_at) " +
+            "SELECT m.user_id, m.conversation_id, l.id, l.sender_id, COALESCE(l.created_at, m.joined_at) " +
+            "FROM conversation_members m " +
+            "LEFT JOIN LATERAL (SELECT id, sender_id, created_at FROM messages WHERE conversation_id = m.conversation_id ORDER BY id DESC LIMIT 1) l ON true " +
+            "WHERE m.conversation_id BETWEEN ? AND ? " +
+            "AND NOT EXISTS (SELECT 1 FROM conversation_heads h WHERE h.conversation_id = m.conversation_id) " +
+            "ON CONFLICT (user_id, conversation_id) DO UPDATE SET " +
+            "last_message_id = EXCLUDED.last_message_id, last_sender_id = EXCLUDED.last_sender_id, last_activity_at = EXCLUDED.last_activity_at " +
+            "WHERE inbox_entries.last_message_id IS NULL OR inbox_entries.last_message_id <= EXCLUDED.last_message_id";
+
+    // Large groups are fanned out on read, they get one shared head row instead of an entry per member.
+    private static final String HEADS_SQL = "INSERT INTO conversation_heads (conversation_id, last_message_id, last_sender_id, last_activity_at) " +
+            "SELECT c.conversation_id, l.id, l.sender_id, l.created_at " +
+            "FROM (SELECT conversation_id FROM conversation_members WHERE conversation_id BETWEEN ? AND ? " +
+            "GROUP BY conversation_id HAVING COUNT(*) >= ?) c " +
+            "JOIN LATERAL (SELECT id, sender_id, created_at FROM messages WHERE conversation_id = c.conversation_id ORDER BY id DESC LIMIT 1) l ON true " +
+            "ON CONFLICT (conversation_id) DO UPDATE SET " +
+            "last_message_id = EXCLUDED.last_message_id, last_sender_id = EXCLUDED.last_sender_id, last_activity_at = EXCLUDED.last_activity_at " +
+            "WHERE conversation_heads.last_message_id IS NULL OR conversation_heads.last_message_id <= EXCLUDED.last_message_id";
+
+    // Heads of groups that shrank below the threshold, their members get their own entries back below.
+    private static final String DROP_HEADS_SQL = "DELETE FROM conversation_heads h WHERE h.conversation_id BETWEEN ? AND ? " +
+            "AND (SELECT COUNT(*) FROM conversation_members m WHERE m.conversation_id = h.conversation_id) < ?";
+
+    // Entries of users that left a conversation, and of large groups that now have a head.
+    private static final String PRUNE_SQL = "DELETE FROM inbox_entries e WHERE e.conversation_id BETWEEN ? AND ? " +
+            "AND (NOT EXISTS (SELECT 1 FROM conversation_members m WHERE m.conversation_id = e.conversation_id AND m.user_id = e.user_id) " +
+            "OR EXISTS (SELECT 1 FROM conversation_heads h WHERE h.conversation_id = e.conversation_id))";
+
+    private final ApplicationContext context;
+    private final JdbcTemplate jdbc;
+    private final FanoutPolicy fanoutPolicy;
+    private final TransactionTemplate tx;
+
+    @Value("${chat.inbox.rebuild.chunk_size}")
+    private int chunkSize;
+
+    InboxRebuildJob(ApplicationContext context, JdbcTemplate jdbc, FanoutPolicy fanoutPolicy, PlatformTransactionManager txManager) {
+        this.context = context;
+        this.jdbc = jdbc;
+        this.fanoutPolicy = fanoutPolicy;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    @Override
+    public void run(String... args) {
+
+        int exitCode;
+
+        try {
+            rebuild();
+            exitCode = 0;
+        } catch (Exception e) {
+            log.error("Inbox rebuild failed: {}", e.toString());
+            exitCode = 1;
+        }
+
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+
+    void rebuild() {
+
+        long start = System.currentTimeMillis();
+        long conversations = 0;
+        long entries = 0;
+        UUID after = new UUID(0, 0);
+
+        while (true) {
+
+            List<UUID> chunk = jdbc.queryForList("SELECT DISTINCT conversation_id FROM conversation_members " +
+                    "WHERE conversation_id > ? ORDER BY conversation_id LIMIT ?", UUID.class, after, chunkSize);
+
+            if (chunk.isEmpty()) break;
+
+            UUID first = chunk.getFirst();
+            UUID last = chunk.getLast();
+
+            int threshold = fanoutPolicy.largeGroupThreshold();
+
+            Integer written = tx.execute(status -> {
+                jdbc.update(DROP_HEADS_SQL, first, last, threshold);
+                jdbc.update(HEADS_SQL, first, last, threshold);
+                jdbc.update(PRUNE_SQL, first, last);
+                return jdbc.update(REBUILD_SQL, first, last);
+            });
+
+            conversations += chunk.size();
+            entries += written != null ? written : 0;
+            after = last;
+
+            log.info("Rebuilt inbox entries for {} conversations so far", conversations);
+        }
+
+        log.info("Inbox rebuild finished, {} entries for {} conversations in {} ms",
+                entries, conversations, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,164 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import com.cdcrane.ekkochatsrv.chat.api.InboxUseCase;
+import com.cdcrane.ekkochatsrv.chat.dto.InboxEntryDTO;
+import com.cdcrane.ekkochatsrv.chat.dto.InboxPageDTO;
+import com.cdcrane.ekkochatsrv.chat.exceptions.InvalidCursorException;
+import com.cdcrane.ekkochatsrv.crypto.api.MessageEncryptionUseCase;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+public class InboxService implements InboxUseCase {
+
+    // Own entries of fanned out on write conversations, merged with the shared heads of the user's large groups.
+    private static final String PAGE_SQL = "SELECT x.conversation_id, x.last_message_id, x.last_sender_id, x.last_activity_at, m.body, x.unread, x.shared FROM (" +
+            "(SELECT e.conversation_id, e.last_message_id, e.last_sender_id, e.last_activity_at, COALESCE(u.unread, 0) AS unread, false AS shared " +
+            "FROM inbox_entries e " +
+            "LEFT JOIN unread_counters u ON u.user_id = e.user_id AND u.conversation_id = e.conversation_id " +
+            "WHERE e.user_id = ? AND NOT EXISTS (SELECT 1 FROM conversation_heads h WHERE h.conversation_id = e.conversation_id) %1$s " +
+            "ORDER BY e.last_activity_at DESC, e.conversation_id DESC LIMIT ?) " +
+            "UNION ALL " +
+            "(SELECT h.conversation_id, h.last_message_id, h.last_sender_id, h.last_activity_at, " + FanoutPolicy.PULLED_UNREAD_SQL + ", true " +
+            "FROM conversation_members cm JOIN conversation_heads h ON h.conversation_id = cm.conversation_id " +
+            "WHERE cm.user_id = ? %2$s " +
+            "ORDER BY h.last_activity_at DESC, h.conversation_id DESC LIMIT ?)" +
+            ") x LEFT JOIN messages m ON m.id = x.last_message_id " +
+            "ORDER BY x.last_activity_at DESC, x.conversation_id DESC LIMIT ?";
+
+    private final JdbcTemplate jdbc;
+    private final MessageEncryptionUseCase encryption;
+    private final UnreadCounterService unreadCounters;
+    private final FanoutPolicy fanoutPolicy;
+
+    @Value("${chat.inbox.max_page_size}")
+    private int maxPageSize;
+
+    @Value("${chat.inbox.preview_length}")
+    private int previewLength;
+
+    @Override
+    public InboxPageDTO getInbox(UUID userId, String cursor, int limit) {
+
+        int pageSize = Math.clamp(limit, 1, maxPageSize);
+
+        List<Row> rows;
+        int cap = fanoutPolicy.unreadCountCap();
+
+        // One extra row tells us whether there is a next page without a count query.
+        if (cursor == null || cursor.isBlank()) {
+
+            rows = jdbc.query(PAGE_SQL.formatted("", ""), this::mapRow,
+                    userId, pageSize + 1, cap, userId, pageSize + 1, pageSize + 1);
+
+        } else {
+
+            var after = decodeCursor(cursor);
+
+            rows = jdbc.query(PAGE_SQL.formatted("AND (e.last_activity_at, e.conversation_id) < (?, ?)",
+                            "AND (h.last_activity_at, h.conversation_id) < (?, ?)"), this::mapRow,
+                    userId, after.activityAt(), after.conversationId(), pageSize + 1,
+                    cap, userId, after.activityAt(), after.conversationId(), pageSize + 1,
+                    pageSize + 1);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) rows = rows.subList(0, pageSize);
+
+        List<String> previews = previews(rows);
+        List<InboxEntryDTO> entries = new ArrayList<>(rows.size());
+
+        for (int i = 0; i < rows.size(); i++) {
+
+            Row row = rows.get(i);
+
+            long unread = row.shared() ? row.storedUnread() : unreadCounters.currentUnread(userId, row.conversationId(), row.storedUnread());
+
+            entries.add(new InboxEntryDTO(row.conversationId(), row.lastMessageId(), row.lastSenderId(), previews.get(i),
+                    row.lastActivityAt(), unread));
+        }
+
+        String nextCursor = hasMore ? encodeCursor(rows.getLast()) : null;
+
+        return new InboxPageDTO(entries, nextCursor);
+    }
+
+    /**
+     * Decrypts every preview on the page with one borrowed cipher.
+     */
+    private List<String> previews(List<Row> rows) {
+
+        List<byte[]> bodies = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.body() != null) bodies.add(row.body());
+        }
+
+        Iterator<String> decrypted = encryption.decryptAll(bodies).iterator();
+        List<String> previews = new ArrayList<>(rows.size());
+
+        for (Row row : rows) {
+            previews.add(row.body() != null ? truncate(decrypted.next()) : null);
+        }
+
+        return previews;
+    }
+
+    private String truncate(String text) {
+
+        if (text.length() <= previewLength) return text;
+
+        // Don't cut a surrogate pair in half.
+        int end = Character.isHighSurrogate(text.charAt(previewLength - 1)) ? previewLength - 1 : previewLength;
+
+        return text.substring(0, end);
+    }
+
+    private Row mapRow(ResultSet rs, int i) throws SQLException {
+
+        long lastMessageId = rs.getLong(2);
+        boolean noMessage = rs.wasNull();
+
+        return new Row(rs.getObject(1, UUID.class), noMessage ? null : lastMessageId,
+                rs.getObject(3, UUID.class), rs.getTimestamp(4), rs.getBytes(5), rs.getLong(6), rs.getBoolean(7));
+    }
+
+    private String encodeCursor(Row last) {
+
+        String raw = last.lastActivityAt().getTime() + ":" + last.conversationId();
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decodeCursor(String cursor) {
+
+        try {
+
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+
+            return new Cursor(new Timestamp(Long.parseLong(raw.substring(0, separator))), UUID.fromString(raw.substring(separator + 1)));
+
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InvalidCursorException("Inbox cursor is not valid.");
+        }
+    }
+
+    /**
+     * @param shared A large group's head, storedUnread is then already the full count.
+     */
+    private record Row(UUID conversationId, Long lastMessageId, UUID lastSenderId, Date lastActivityAt, byte[] body,
+                       long storedUnread, boolean shared) {
+    }
+
+    private record Cursor(Timestamp activityAt, UUID conversationId) {
+    }
+}
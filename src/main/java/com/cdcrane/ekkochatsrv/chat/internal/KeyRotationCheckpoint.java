@@ -0,0 +1,35 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Progress of a message key rotation, one row per target key version so an interrupted run can resume.
+ */
+@Entity
+@Table(name = "message_key_rotation_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class KeyRotationCheckpoint {
+
+    @Id
+    private Integer targetKeyVersion;
+
+    // Every message with an id up to and including this one has been migrated.
+    private Long lastMessageId;
+
+    private Long migratedCount;
+
+    private Boolean completed;
+
+    private Date updatedAt;
+}
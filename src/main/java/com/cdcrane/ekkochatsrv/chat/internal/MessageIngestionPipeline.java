@@ -0,0 +1,299 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import com.cdcrane.ekkochatsrv.chat.exceptions.MessageIngestionOverloadedException;
+import com.cdcrane.ekkochatsrv.notifications.api.EphemeralEventUseCase;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for new messages. Writers take whatever arrived within one batch window (or up to the max batch size),
+ * insert it with a single JDBC batch in one transaction and only then complete the callers' futures, so under load
+ * many messages share one commit and no caller waits longer than a window plus the commit itself.
+ * <p>
+ * The inbox rows and change log entries are written inside the same transaction, they only ever refer to messages
+ * that exist. Live pushes go out after the commit on the ephemeral path, the change log already makes every message
+ * durable for sync, so a batch costs no event publication rows. Large groups skip the per member writes, see
+ * {@link FanoutPolicy}, they only get a shared head row and one activity push per conversation.
+ */
+@Component
+@Slf4j
+class MessageIngestionPipeline {
+
+    private final ChatMessageRepository messageRepo;
+    private final InboxProjector inboxProjector;
+    private final ChangeLog changeLog;
+    private final FanoutPolicy fanoutPolicy;
+    private final EphemeralEventUseCase ephemeralEvents;
+    private final TransactionTemplate tx;
+
+    @Value("${chat.ingest.queue_capacity}")
+    private int queueCapacity;
+
+    @Value("${chat.ingest.max_batch_size}")
+    private int maxBatchSize;
+
+    @Value("${chat.ingest.batch_window_ms}")
+    private long batchWindowMs;
+
+    @Value("${chat.ingest.writers}")
+    private int writerCount;
+
+    private BlockingQueue<PendingMessage> queue;
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running;
+
+    MessageIngestionPipeline(ChatMessageRepository messageRepo, InboxProjector inboxProjector, ChangeLog changeLog,
+                             FanoutPolicy fanoutPolicy, EphemeralEventUseCase ephemeralEvents, PlatformTransactionManager txManager) {
+
+        this.messageRepo = messageRepo;
+        this.inboxProjector = inboxProjector;
+        this.changeLog = changeLog;
+        this.fanoutPolicy = fanoutPolicy;
+        this.ephemeralEvents = ephemeralEvents;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    @PostConstruct
+    private void startWriters() {
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+
+        for (int i = 1; i <= writerCount; i++) {
+            Thread writer = new Thread(this::writeLoop, "message-ingest-" + i);
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+        }
+    }
+
+    @PreDestroy
+    private void stopWriters() throws InterruptedException {
+
+        running = false;
+
+        for (Thread writer : writers) {
+            writer.interrupt();
+        }
+
+        for (Thread writer : writers) {
+            writer.join(5000);
+        }
+
+        // Whatever is left was never written, let the callers know instead of leaving them hanging.
+        PendingMessage left;
+        while ((left = queue.poll()) != null) {
+            left.future().completeExceptionally(new MessageIngestionOverloadedException("Server is shutting down, message was not sent."));
+        }
+    }
+
+    /**
+     * @param recipientIds Every member of the conversation, they get notified once the message is committed.
+     */
+    CompletableFuture<ChatMessage> submit(ChatMessage message, List<UUID> recipientIds) {
+
+        var pending = new PendingMessage(message, recipientIds, new CompletableFuture<>());
+
+        // Never block a request thread on a full queue, refusing is better than piling up.
+        if (!running || !queue.offer(pending)) {
+            throw new MessageIngestionOverloadedException("Too many messages are being sent right now, try again shortly.");
+        }
+
+        return pending.future();
+    }
+
+    private void writeLoop() {
+
+        List<PendingMessage> batch = new ArrayList<>(maxBatchSize);
+
+        while (running || !queue.isEmpty()) {
+
+            try {
+
+                collectBatch(batch);
+
+            } catch (InterruptedException e) {
+                // Shutting down, still write whatever was already taken from the queue.
+                if (running) continue;
+            }
+
+            if (batch.isEmpty()) continue;
+
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void collectBatch(List<PendingMessage> batch) throws InterruptedException {
+
+        PendingMessage first = queue.poll(500, TimeUnit.MILLISECONDS);
+
+        if (first == null) return;
+
+        batch.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindowMs);
+
+        while (batch.size() < maxBatchSize) {
+
+            // Take everything already waiting without parking, only wait for the rest of the window when empty.
+            if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) continue;
+
+            long remaining = deadline - System.nanoTime();
+
+            if (remaining <= 0) return;
+
+            PendingMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+
+            if (next == null) return;
+
+            batch.add(next);
+        }
+    }
+
+    private void writeBatch(List<PendingMessage> batch) {
+
+        List<ChatMessage> messages = new ArrayList<>(batch.size());
+        Map<UUID, List<UUID>> membersByConversation = new HashMap<>();
+
+        for (PendingMessage pending : batch) {
+            messages.add(pending.message());
+            membersByConversation.put(pending.message().getConversationId(), pending.recipientIds());
+        }
+
+        FanoutPlan fanoutPlan;
+
+        try {
+
+            fanoutPlan = tx.execute(status -> {
+
+                messageRepo.saveAll(messages);
+                messageRepo.flush();
+
+                // Ids are only known after the insert.
+                var fanout = plan(messages, membersByConversation, fanoutPolicy);
+
+                inboxProjector.messagesPersisted(fanout.perMember(), fanout.perMemberMembers());
+                inboxProjector.headsAdvanced(fanout.shared());
+                changeLog.append(fanout.changes());
+
+                return fanout;
+            });
+
+        } catch (RuntimeException e) {
+
+            log.warn("Writing a batch of {} messages failed: {}", batch.size(), e.getMessage());
+
+            for (PendingMessage pending : batch) {
+                pending.future().completeExceptionally(e);
+            }
+
+            return;
+        }
+
+        for (PendingMessage pending : batch) {
+            pending.future().complete(pending.message());
+        }
+
+        pushNewMessages(fanoutPlan);
+        pushSharedActivity(fanoutPlan);
+    }
+
+    /**
+     * Splits a persisted batch by delivery model and builds the per member change log entries of the small conversations.
+     */
+    static FanoutPlan plan(List<ChatMessage> messages, Map<UUID, List<UUID>> membersByConversation, FanoutPolicy policy) {
+
+        List<ChatMessage> perMember = new ArrayList<>();
+        List<ChatMessage> shared = new ArrayList<>();
+        Map<UUID, List<UUID>> perMemberMembers = new HashMap<>();
+        Map<UUID, List<UUID>> sharedMembers = new HashMap<>();
+        List<ChangeLog.Change> changes = new ArrayList<>();
+
+        for (ChatMessage message : messages) {
+
+            var members = membersByConversation.get(message.getConversationId());
+
+            if (policy.fanOutOnRead(members.size())) {
+                shared.add(message);
+                sharedMembers.put(message.getConversationId(), members);
+                continue;
+            }
+
+            perMember.add(message);
+            perMemberMembers.put(message.getConversationId(), members);
+
+            // The sender too, their other devices need the message as well.
+            for (UUID memberId : members) {
+                changes.add(new ChangeLog.Change(memberId, ChangeType.MESSAGE_CREATED, message.getConversationId(), message.getId()));
+            }
+        }
+
+        return new FanoutPlan(perMember, perMemberMembers, shared, sharedMembers, changes);
+    }
+
+    /**
+     * Best effort, a member that misses the push still finds the messages through sync.
+     */
+    private void pushNewMessages(FanoutPlan plan) {
+
+        for (ChatMessage message : plan.perMember()) {
+            try {
+                ephemeralEvents.messageCreated(message.getConversationId(), message.getId(), message.getSenderId(),
+                        message.getCreatedAt(), plan.perMemberMembers().get(message.getConversationId()));
+            } catch (RuntimeException e) {
+                log.debug("Message push for conversation {} failed: {}", message.getConversationId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Best effort, a member that misses the push still finds the messages through the inbox and the pull endpoint.
+     */
+    private void pushSharedActivity(FanoutPlan plan) {
+
+        if (plan.shared().isEmpty()) return;
+
+        Map<UUID, long[]> activity = new HashMap<>(); // {newest id, count} per conversation
+
+        for (ChatMessage message : plan.shared()) {
+            long[] a = activity.computeIfAbsent(message.getConversationId(), id -> new long[2]);
+            a[0] = Math.max(a[0], message.getId());
+            a[1]++;
+        }
+
+        activity.forEach((conversationId, a) -> {
+            try {
+                ephemeralEvents.conversationActivity(conversationId, a[0], (int) a[1], plan.sharedMembers().get(conversationId));
+            } catch (RuntimeException e) {
+                log.debug("Activity push for conversation {} failed: {}", conversationId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * @param perMember Messages of conversations fanned out on write, with their members in perMemberMembers.
+     * @param shared Messages of large groups fanned out on read, with their members in sharedMembers.
+     */
+    record FanoutPlan(List<ChatMessage> perMember, Map<UUID, List<UUID>> perMemberMembers,
+                      List<ChatMessage> shared, Map<UUID, List<UUID>> sharedMembers, List<ChangeLog.Change> changes) {
+    }
+
+    private record PendingMessage(ChatMessage message, List<UUID> recipientIds, CompletableFuture<ChatMessage> future) {
+    }
+}
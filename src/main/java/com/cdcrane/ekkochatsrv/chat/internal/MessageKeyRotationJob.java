@@ -0,0 +1,271 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import com.cdcrane.ekkochatsrv.crypto.api.MessageEncryptionUseCase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Re-encrypts every stored message with the active key version, run it as its own process:
+ * <pre>
+ * java -jar ekkochatsrv.jar --spring.main.web-application-type=none --encryption.rotation.enabled=true \
+ *      --encryption.message_key=NEW --encryption.message_key_version=2 --encryption.previous_message_keys=1:OLD
+ * </pre>
+ * Messages are read in id ordered chunks, each its own keyset query past the last id of the previous chunk (never
+ * OFFSET), so no cursor or transaction stays open for the run. Every chunk is re-encrypted on a worker and written
+ * back in its own short JDBC batch transaction, so only the updated rows are ever locked. At most 2 chunks per worker are held in memory.
+ * Progress is checkpointed per target key version, a restarted run continues after the last fully migrated chunk.
+ */
+@Component
+@ConditionalOnProperty(name = "encryption.rotation.enabled", havingValue = "true")
+@Slf4j
+class MessageKeyRotationJob implements CommandLineRunner {
+
+    private static final long REPORT_INTERVAL_MS = 10_000;
+
+    private final MessageEncryptionUseCase encryption;
+    private final KeyRotationCheckpointRepository checkpointRepo;
+    private final ApplicationContext context;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readTx;
+    private final TransactionTemplate writeTx;
+
+    @Value("${encryption.rotation.chunk_size}")
+    private int chunkSize;
+
+    @Value("${encryption.rotation.parallelism}")
+    private int parallelism;
+
+    MessageKeyRotationJob(MessageEncryptionUseCase encryption, KeyRotationCheckpointRepository checkpointRepo,
+                          ApplicationContext context, DataSource dataSource, PlatformTransactionManager txManager) {
+
+        this.encryption = encryption;
+        this.checkpointRepo = checkpointRepo;
+        this.context = context;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+        this.writeTx = new TransactionTemplate(txManager);
+    }
+
+    @Override
+    public void run(String... args) {
+
+        int exitCode;
+
+        try {
+            exitCode = rotate() ? 0 : 1;
+        } catch (Exception e) {
+            log.error("Message key rotation failed: {}", e.toString());
+            exitCode = 1;
+        }
+
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+
+    /**
+     * @return True if every message is now encrypted with the active key.
+     */
+    boolean rotate() throws InterruptedException {
+
+        int target = encryption.activeKeyVersion();
+        int workerCount = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+
+        var checkpoint = checkpointRepo.findById(target)
+                .orElseGet(() -> KeyRotationCheckpoint.builder()
+                        .targetKeyVersion(target)
+                        .lastMessageId(0L)
+                        .migratedCount(0L)
+                        .completed(false)
+                        .build());
+
+        if (checkpoint.getCompleted()) {
+            log.info("Messages were already rotated to key version {}, nothing to do.", target);
+            return true;
+        }
+
+        Long maxId = jdbc.queryForObject("SELECT max(id) FROM messages", Long.class);
+
+        if (maxId == null || maxId <= checkpoint.getLastMessageId()) {
+            markCompleted(checkpoint);
+            return true;
+        }
+
+        log.info("Rotating messages to key version {} from id {} up to id {} with {} workers and chunks of {}",
+                target, checkpoint.getLastMessageId(), maxId, workerCount, chunkSize);
+
+        var progress = new Progress(checkpoint, maxId);
+        var failure = new AtomicReference<Throwable>();
+        var inFlight = new Semaphore(workerCount * 2);
+
+        ExecutorService workers = Executors.newFixedThreadPool(workerCount);
+
+        try {
+
+            long cursor = checkpoint.getLastMessageId();
+            long sequence = 0;
+
+            while (failure.get() == null) {
+
+                List<StoredBody> chunk = readChunk(cursor);
+
+                if (chunk.isEmpty()) break;
+
+                cursor = chunk.getLast().id();
+
+                long chunkSequence = sequence++;
+                long chunkEnd = cursor;
+
+                inFlight.acquire();
+
+                workers.execute(() -> {
+                    try {
+                        int migrated = reEncryptChunk(chunk, target);
+                        progress.chunkDone(chunkSequence, chunkEnd, chunk.size(), migrated);
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.HOURS);
+        }
+
+        if (failure.get() != null) {
+            log.error("Rotation stopped at message id {}, run again to resume. Cause: {}",
+                    progress.checkpoint.getLastMessageId(), failure.get().toString());
+            return false;
+        }
+
+        markCompleted(progress.checkpoint);
+        log.info("Rotation to key version {} finished, {} messages re-encrypted.", target, progress.checkpoint.getMigratedCount());
+
+        return true;
+    }
+
+    private List<StoredBody> readChunk(long afterId) {
+
+        return readTx.execute(status -> jdbc.query(
+                "SELECT id, body FROM messages WHERE id > ? ORDER BY id LIMIT ?",
+                (rs, i) -> new StoredBody(rs.getLong(1), rs.getBytes(2)),
+                afterId, chunkSize));
+    }
+
+    private int reEncryptChunk(List<StoredBody> chunk, int target) {
+
+        List<Object[]> updates = new ArrayList<>();
+
+        for (StoredBody row : chunk) {
+
+            if (row.body() == null || encryption.keyVersionOf(row.body()) == target) continue;
+
+            // Only overwrite the row if nobody changed it since it was read.
+            updates.add(new Object[]{encryption.reEncrypt(row.body()), row.id(), row.body()});
+        }
+
+        if (updates.isEmpty()) return 0;
+
+        writeTx.executeWithoutResult(status ->
+                jdbc.batchUpdate("UPDATE messages SET body = ? WHERE id = ? AND body = ?", updates));
+
+        return updates.size();
+    }
+
+    private void markCompleted(KeyRotationCheckpoint checkpoint) {
+
+        checkpoint.setCompleted(true);
+        checkpoint.setUpdatedAt(new Date());
+        checkpointRepo.save(checkpoint);
+    }
+
+    private record StoredBody(long id, byte[] body) {
+    }
+
+    /**
+     * Chunks finish out of order, the checkpoint only moves past a chunk once every earlier chunk is done too.
+     */
+    private class Progress {
+
+        private final KeyRotationCheckpoint checkpoint;
+        private final TreeMap<Long, long[]> finished = new TreeMap<>();
+        private final long startId;
+        private final long maxId;
+        private final long startedAt = System.currentTimeMillis();
+        private long nextSequence;
+        private long scanned;
+        private long lastReportAt = startedAt;
+
+        private Progress(KeyRotationCheckpoint checkpoint, long maxId) {
+            this.checkpoint = checkpoint;
+            this.startId = checkpoint.getLastMessageId();
+            this.maxId = maxId;
+        }
+
+        private synchronized void chunkDone(long sequence, long lastId, int rows, int migrated) {
+
+            finished.put(sequence, new long[]{lastId, rows, migrated});
+
+            boolean advanced = false;
+
+            while (!finished.isEmpty() && finished.firstKey() == nextSequence) {
+
+                long[] done = finished.pollFirstEntry().getValue();
+
+                checkpoint.setLastMessageId(done[0]);
+                checkpoint.setMigratedCount(checkpoint.getMigratedCount() + done[2]);
+                scanned += done[1];
+                nextSequence++;
+                advanced = true;
+            }
+
+            if (!advanced) return;
+
+            checkpoint.setUpdatedAt(new Date());
+            checkpointRepo.save(checkpoint);
+
+            long now = System.currentTimeMillis();
+
+            if (now - lastReportAt >= REPORT_INTERVAL_MS) {
+                lastReportAt = now;
+                report(now);
+            }
+        }
+
+        private void report(long now) {
+
+            double seconds = Math.max(1, now - startedAt) / 1000.0;
+            long doneSpan = checkpoint.getLastMessageId() - startId;
+            long totalSpan = Math.max(1, maxId - startId);
+            double idsPerSecond = doneSpan / seconds;
+            long etaSeconds = idsPerSecond > 0 ? (long) ((maxId - checkpoint.getLastMessageId()) / idsPerSecond) : -1;
+
+            log.info("Key rotation at id {}/{} ({}%), {} rows/s, {} re-encrypted, ETA {}",
+                    checkpoint.getLastMessageId(), maxId, String.format("%.1f", 100.0 * doneSpan / totalSpan),
+                    (long) (scanned / seconds), checkpoint.getMigratedCount(),
+                    etaSeconds < 0 ? "unknown" : String.format("%dh %02dm %02ds", etaSeconds / 3600, (etaSeconds % 3600) / 60, etaSeconds % 60));
+        }
+    }
+}
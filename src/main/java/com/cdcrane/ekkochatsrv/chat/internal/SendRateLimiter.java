@@ -0,0 +1,145 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import com.cdcrane.ekkochatsrv.chat.exceptions.RateLimitExceededException;
+import com.cdcrane.ekkochatsrv.chat.internal.UnreadCounterTable.CounterKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets for sending messages, one per user and one per (user, conversation), so a single client can neither
+ * flood one conversation nor spread a flood over many of them.
+ * <p>
+ * Each bucket is a single AtomicLong (GCRA, the same limits as a token bucket): it holds the time at which the bucket
+ * is full again, a send pushes it one emission interval further and is refused if that would be more than the burst
+ * ahead of now. Acquiring is one CAS, no locks. A bucket whose full time has long passed behaves exactly like a missing
+ * one, so idle buckets are simply removed.
+ */
+@Component
+class SendRateLimiter {
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<UUID, AtomicLong> userBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<CounterKey, AtomicLong> conversationBuckets = new ConcurrentHashMap<>();
+
+    @Value("${chat.rate_limit.enabled}")
+    private boolean enabled;
+
+    @Value("${chat.rate_limit.user_per_second}")
+    private double userPerSecond;
+
+    @Value("${chat.rate_limit.user_burst}")
+    private int userBurst;
+
+    @Value("${chat.rate_limit.conversation_per_second}")
+    private double conversationPerSecond;
+
+    @Value("${chat.rate_limit.conversation_burst}")
+    private int conversationBurst;
+
+    @Value("${chat.rate_limit.idle_eviction_ms}")
+    private long idleEvictionMs;
+
+    private long userInterval;
+    private long conversationInterval;
+
+    private Counter userRejections;
+    private Counter conversationRejections;
+
+    SendRateLimiter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    private void initialize() {
+
+        userInterval = (long) (TimeUnit.SECONDS.toNanos(1) / userPerSecond);
+        conversationInterval = (long) (TimeUnit.SECONDS.toNanos(1) / conversationPerSecond);
+
+        userRejections = Counter.builder("ekko.chat.send.rate_limited").tag("scope", "user")
+                .description("Message sends refused by the per user limit").register(meterRegistry);
+        conversationRejections = Counter.builder("ekko.chat.send.rate_limited").tag("scope", "conversation")
+                .description("Message sends refused by the per conversation limit").register(meterRegistry);
+
+        Gauge.builder("ekko.chat.send.rate_limit_buckets", () -> userBuckets.size() + conversationBuckets.size())
+                .description("Rate limit buckets held in memory").register(meterRegistry);
+    }
+
+    /**
+     * Takes a token from both of the sender's buckets.
+     * @throws RateLimitExceededException If either is empty, nothing is taken then.
+     */
+    void acquire(UUID userId, UUID conversationId) {
+
+        if (!enabled) return;
+
+        long now = System.nanoTime();
+
+        var userBucket = userBuckets.computeIfAbsent(userId, id -> new AtomicLong(now));
+        long userWait = tryTake(userBucket, now, userInterval, userBurst);
+
+        if (userWait > 0) {
+            userRejections.increment();
+            throw rejected("You are sending messages too quickly.", userWait);
+        }
+
+        var conversationBucket = conversationBuckets.computeIfAbsent(new CounterKey(userId, conversationId), k -> new AtomicLong(now));
+        long conversationWait = tryTake(conversationBucket, now, conversationInterval, conversationBurst);
+
+        if (conversationWait > 0) {
+            // Give the user token back, a flood into one conversation shouldn't also block sending to the others.
+            userBucket.addAndGet(-userInterval);
+            conversationRejections.increment();
+            throw rejected("You are sending messages to this conversation too quickly.", conversationWait);
+        }
+    }
+
+    /**
+     * @return 0 if a token was taken, otherwise how many nanoseconds until one is available.
+     */
+    private long tryTake(AtomicLong bucket, long now, long interval, int burst) {
+
+        long capacity = interval * burst;
+
+        while (true) {
+
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + interval;
+            long ahead = next - now;
+
+            if (ahead > capacity) return ahead - capacity;
+
+            if (bucket.compareAndSet(fullAt, next)) return 0;
+        }
+    }
+
+    /**
+     * A racing acquire may still take a token from a bucket just removed here, the next send starts a fresh bucket,
+     * which at worst hands out one extra token.
+     */
+    @Scheduled(fixedDelayString = "${chat.rate_limit.idle_eviction_ms}")
+    void evictIdle() {
+
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleEvictionMs);
+
+        userBuckets.values().removeIf(bucket -> bucket.get() - cutoff < 0);
+        conversationBuckets.values().removeIf(bucket -> bucket.get() - cutoff < 0);
+    }
+
+    private RateLimitExceededException rejected(String message, long waitNanos) {
+
+        long seconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+
+        return new RateLimitExceededException(message, seconds);
+    }
+}
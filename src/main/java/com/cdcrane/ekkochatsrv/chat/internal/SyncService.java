@@ -0,0 +1,102 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import com.cdcrane.ekkochatsrv.chat.api.SyncUseCase;
+import com.cdcrane.ekkochatsrv.chat.dto.ChangeDTO;
+import com.cdcrane.ekkochatsrv.chat.dto.SyncPageDTO;
+import com.cdcrane.ekkochatsrv.chat.internal.ChangeLog.Chunk;
+import com.cdcrane.ekkochatsrv.chat.internal.ChangeLog.Entry;
+import com.cdcrane.ekkochatsrv.chat.internal.ChangeLog.Position;
+import com.cdcrane.ekkochatsrv.crypto.api.MessageEncryptionUseCase;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+public class SyncService implements SyncUseCase {
+
+    // Rough JSON size of a change without its body: field names, two UUIDs, ids and a timestamp.
+    private static final int CHANGE_OVERHEAD_BYTES = 180;
+
+    private final ChangeLog changeLog;
+    private final MessageEncryptionUseCase encryption;
+
+    @Value("${chat.sync.page_bytes}")
+    private int pageBytes;
+
+    @Value("${chat.sync.read_chunk}")
+    private int readChunk;
+
+    @Override
+    public SyncPageDTO sync(UUID userId, String cursor) {
+
+        boolean fromStart = cursor == null || cursor.isBlank();
+        Position position = fromStart ? Position.START : Position.decode(cursor);
+
+        // Offline for longer than the retention, continuing would silently skip whatever was purged.
+        if (!fromStart && changeLog.purgedPast(position)) {
+            return new SyncPageDTO(List.of(), changeLog.safePoint().encode(), false, true);
+        }
+
+        List<ChangeDTO> changes = new ArrayList<>();
+        int budget = pageBytes;
+
+        while (true) {
+
+            Chunk chunk = changeLog.read(userId, position, readChunk);
+            List<Entry> entries = chunk.entries();
+            List<String> bodies = decryptBodies(entries);
+
+            for (int i = 0; i < entries.size(); i++) {
+
+                Entry entry = entries.get(i);
+                String body = bodies.get(i);
+
+                int size = CHANGE_OVERHEAD_BYTES + (body != null ? body.getBytes(StandardCharsets.UTF_8).length : 0);
+
+                // Always hand out at least one change, or a single huge one would stall the client forever.
+                if (size > budget && !changes.isEmpty()) {
+                    return new SyncPageDTO(changes, position.encode(), true, false);
+                }
+
+                changes.add(toDto(entry, body));
+                position = entry.position();
+                budget -= size;
+            }
+
+            if (entries.size() < readChunk) {
+                // Caught up, the cursor moves to the safe point even without changes so it keeps pace with the purge.
+                return new SyncPageDTO(changes, position.max(chunk.safePoint()).encode(), false, false);
+            }
+        }
+    }
+
+    private List<String> decryptBodies(List<Entry> entries) {
+
+        List<byte[]> encrypted = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.body() != null) encrypted.add(entry.body());
+        }
+
+        Iterator<String> decrypted = encryption.decryptAll(encrypted).iterator();
+        List<String> bodies = new ArrayList<>(entries.size());
+
+        for (Entry entry : entries) {
+            bodies.add(entry.body() != null ? decrypted.next() : null);
+        }
+
+        return bodies;
+    }
+
+    private ChangeDTO toDto(Entry entry, String body) {
+
+        return switch (entry.type()) {
+            case MESSAGE_CREATED -> new ChangeDTO("message.created", entry.conversationId(), entry.refId(), entry.senderId(), body, entry.createdAt());
+            case READ_CURSOR_MOVED -> new ChangeDTO("read.cursor", entry.conversationId(), entry.refId(), null, null, entry.createdAt());
+            case CONVERSATION_ACTIVITY -> new ChangeDTO("conversation.activity", entry.conversationId(), entry.refId(), null, null, entry.createdAt());
+        };
+    }
+}
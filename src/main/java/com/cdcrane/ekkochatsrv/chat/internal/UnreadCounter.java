@@ -0,0 +1,46 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Persisted unread count of a user in a conversation. Only ever written by flushes of UnreadCounterService,
+ * so it can lag the in-memory deltas by one flush interval.
+ */
+@Entity
+@Table(name = "unread_counters")
+@IdClass(UnreadCounter.CounterId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UnreadCounter {
+
+    @Id
+    private UUID userId;
+
+    @Id
+    private UUID conversationId;
+
+    private Long unread;
+
+    private Date updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CounterId implements Serializable {
+        private UUID userId;
+        private UUID conversationId;
+    }
+}
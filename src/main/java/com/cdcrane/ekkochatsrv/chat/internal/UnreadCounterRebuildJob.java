@@ -0,0 +1,92 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Recomputes every stored unread count from the read cursors, run it as its own process:
+ * <pre>
+ * java -jar ekkochatsrv.jar --spring.main.web-application-type=none --chat.unread.rebuild.enabled=true
+ * </pre>
+ * Covers increments lost when a node died before flushing them. Batched by user so no single statement scans the
+ * whole messages table. Deltas the running nodes haven't flushed yet are counted twice until the user next reads the
+ * conversation, so prefer a quiet moment.
+ */
+@Component
+@ConditionalOnProperty(name = "chat.unread.rebuild.enabled", havingValue = "true")
+@Slf4j
+class UnreadCounterRebuildJob implements CommandLineRunner {
+
+    private static final String REBUILD_SQL = "INSERT INTO unread_counters (user_id, conversation_id, unread, updated_at) " +
+            "SELECT m.user_id, m.conversation_id, COUNT(msg.id), now() FROM conversation_members m " +
+            "LEFT JOIN messages msg ON msg.conversation_id = m.conversation_id " +
+            "AND msg.id > COALESCE(m.last_read_message_id, 0) AND msg.sender_id <> m.user_id " +
+            "WHERE m.user_id BETWEEN ? AND ? " +
+            "AND NOT EXISTS (SELECT 1 FROM conversation_heads h WHERE h.conversation_id = m.conversation_id) " +
+            "GROUP BY m.user_id, m.conversation_id " +
+            "ON CONFLICT (user_id, conversation_id) DO UPDATE SET unread = EXCLUDED.unread, updated_at = now()";
+
+    private final ApplicationContext context;
+    private final JdbcTemplate jdbc;
+
+    @Value("${chat.unread.rebuild.batch_size}")
+    private int batchSize;
+
+    UnreadCounterRebuildJob(ApplicationContext context, JdbcTemplate jdbc) {
+        this.context = context;
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public void run(String... args) {
+
+        int exitCode;
+
+        try {
+            rebuild();
+            exitCode = 0;
+        } catch (Exception e) {
+            log.error("Unread counter rebuild failed: {}", e.toString());
+            exitCode = 1;
+        }
+
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+
+    void rebuild() {
+
+        long start = System.currentTimeMillis();
+        int users = 0;
+        UUID after = new UUID(0, 0);
+
+        while (true) {
+
+            List<UUID> batch = jdbc.queryForList("SELECT DISTINCT user_id FROM conversation_members WHERE user_id > ? " +
+                    "ORDER BY user_id LIMIT ?", UUID.class, after, batchSize);
+
+            if (batch.isEmpty()) break;
+
+            UUID first = batch.getFirst();
+            UUID last = batch.getLast();
+
+            jdbc.update(REBUILD_SQL, first, last);
+
+            users += batch.size();
+            after = last;
+
+            log.info("Rebuilt unread counters for {} users so far", users);
+        }
+
+        log.info("Unread counter rebuild finished, {} users in {} ms", users, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,219 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import com.cdcrane.ekkochatsrv.chat.api.UnreadCountUseCase;
+import com.cdcrane.ekkochatsrv.chat.dto.UnreadCountDTO;
+import com.cdcrane.ekkochatsrv.chat.exceptions.ConversationNotFoundException;
+import com.cdcrane.ekkochatsrv.chat.internal.UnreadCounterTable.CounterKey;
+import com.cdcrane.ekkochatsrv.chat.internal.UnreadCounterTable.Pending;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.*;
+
+/**
+ * Unread counts per user and conversation, written behind.
+ * <p>
+ * Delivering a message only adds to in-memory deltas, a scheduled flush writes everything that piled up since the
+ * last one as two batched upserts, so a busy conversation costs one row write per member per flush instead of one
+ * per message. Deltas not yet flushed are lost if the process dies, the counts can always be recomputed from the
+ * read cursors in conversation_members, which is what UnreadCounterRebuildJob does.
+ */
+@Service
+@Slf4j
+public class UnreadCounterService implements UnreadCountUseCase {
+
+    private static final String ADD_SQL = "INSERT INTO unread_counters (user_id, conversation_id, unread, updated_at) VALUES (?, ?, ?, now()) " +
+            "ON CONFLICT (user_id, conversation_id) DO UPDATE SET unread = unread_counters.unread + EXCLUDED.unread, updated_at = now()";
+
+    private static final String SET_SQL = "INSERT INTO unread_counters (user_id, conversation_id, unread, updated_at) VALUES (?, ?, ?, now()) " +
+            "ON CONFLICT (user_id, conversation_id) DO UPDATE SET unread = EXCLUDED.unread, updated_at = now()";
+
+    // Messages past each member's read cursor, for the given (user, conversation) pairs. Large groups are counted on read.
+    private static final String COUNT_AFTER_CURSOR_SQL = "SELECT m.user_id, m.conversation_id, " +
+            "(SELECT COUNT(*) FROM messages msg WHERE msg.conversation_id = m.conversation_id " +
+            "AND msg.id > COALESCE(m.last_read_message_id, 0) AND msg.sender_id <> m.user_id) " +
+            "FROM conversation_members m JOIN unnest(?::uuid[], ?::uuid[]) AS k(u, c) ON m.user_id = k.u AND m.conversation_id = k.c " +
+            "WHERE NOT EXISTS (SELECT 1 FROM conversation_heads h WHERE h.conversation_id = m.conversation_id)";
+
+    private final ConversationMemberRepository memberRepo;
+    private final ChangeLog changeLog;
+    private final FanoutPolicy fanoutPolicy;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+
+    @Value("${chat.unread.stripes}")
+    private int stripes;
+
+    private UnreadCounterTable table;
+
+    // The batch currently being written, so reads don't miss it between draining and committing.
+    private volatile Map<CounterKey, Pending> flushing = Map.of();
+
+    UnreadCounterService(ConversationMemberRepository memberRepo, ChangeLog changeLog, FanoutPolicy fanoutPolicy,
+                         JdbcTemplate jdbc, PlatformTransactionManager txManager) {
+        this.memberRepo = memberRepo;
+        this.changeLog = changeLog;
+        this.fanoutPolicy = fanoutPolicy;
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    @PostConstruct
+    private void initializeTable() {
+        table = new UnreadCounterTable(stripes);
+    }
+
+    @Override
+    public void messageDelivered(UUID conversationId, UUID senderId, Collection<UUID> recipientIds) {
+
+        for (UUID recipientId : recipientIds) {
+            if (!recipientId.equals(senderId)) {
+                table.increment(new CounterKey(recipientId, conversationId), 1);
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public void markRead(UUID userId, UUID conversationId, long lastReadMessageId) {
+
+        if (memberRepo.advanceReadCursor(conversationId, userId, lastReadMessageId) > 0) {
+
+            // Lets the user's other devices clear the conversation too.
+            changeLog.append(List.of(new ChangeLog.Change(userId, ChangeType.READ_CURSOR_MOVED, conversationId, lastReadMessageId)));
+
+        } else if (!memberRepo.existsByConversationIdAndUserId(conversationId, userId)) {
+
+            throw new ConversationNotFoundException("Conversation not found: " + conversationId);
+        }
+
+        // Reading up to an older message leaves everything after it unread.
+        recountAfterCursors(List.of(new CounterKey(userId, conversationId)));
+    }
+
+    /**
+     * Resets the count in memory only, for callers that move the read cursor themselves and
+     * call recountAfterCursors once the cursor is written.
+     */
+    void resetUnread(UUID userId, UUID conversationId) {
+        table.reset(new CounterKey(userId, conversationId), 0);
+    }
+
+    /**
+     * Replaces the counts of the given users and conversations with the messages past their stored read cursors,
+     * in one query. A message delivered while this runs can be off by one until the user next reads the conversation.
+     */
+    void recountAfterCursors(List<CounterKey> keys) {
+
+        if (keys.isEmpty()) return;
+
+        Object[] userIds = keys.stream().map(CounterKey::userId).toArray();
+        Object[] conversationIds = keys.stream().map(CounterKey::conversationId).toArray();
+
+        jdbc.execute((ConnectionCallback<Void>) con -> {
+
+            try (PreparedStatement ps = con.prepareStatement(COUNT_AFTER_CURSOR_SQL)) {
+
+                ps.setArray(1, con.createArrayOf("uuid", userIds));
+                ps.setArray(2, con.createArrayOf("uuid", conversationIds));
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        table.reset(new CounterKey(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)), rs.getLong(3));
+                    }
+                }
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public List<UnreadCountDTO> getUnreadCounts(UUID userId) {
+
+        // Large groups have no counter rows, their count comes from the read cursor.
+        return jdbc.query("SELECT cm.conversation_id, COALESCE(u.unread, 0), h.conversation_id IS NOT NULL, " +
+                        "CASE WHEN h.conversation_id IS NOT NULL THEN " + FanoutPolicy.PULLED_UNREAD_SQL + " END " +
+                        "FROM conversation_members cm " +
+                        "LEFT JOIN unread_counters u ON u.user_id = cm.user_id AND u.conversation_id = cm.conversation_id " +
+                        "LEFT JOIN conversation_heads h ON h.conversation_id = cm.conversation_id " +
+                        "WHERE cm.user_id = ?",
+                (rs, i) -> {
+                    UUID conversationId = rs.getObject(1, UUID.class);
+                    long unread = rs.getBoolean(3) ? rs.getLong(4) : currentUnread(userId, conversationId, rs.getLong(2));
+                    return new UnreadCountDTO(conversationId, unread);
+                },
+                fanoutPolicy.unreadCountCap(), userId);
+    }
+
+    /**
+     * @param stored Count read from unread_counters, 0 if there is no row.
+     * @return The stored count with every delta that isn't written yet applied.
+     */
+    long currentUnread(UUID userId, UUID conversationId, long stored) {
+
+        var key = new CounterKey(userId, conversationId);
+        long unread = stored;
+
+        var writing = flushing.get(key);
+        if (writing != null) unread = writing.applyTo(unread);
+
+        var pending = table.pending(key);
+        if (pending != null) unread = pending.applyTo(unread);
+
+        return unread;
+    }
+
+    @Scheduled(fixedDelayString = "${chat.unread.flush_interval_ms}")
+    void flush() {
+
+        Map<CounterKey, Pending> drained = table.drain();
+
+        if (drained.isEmpty()) return;
+
+        List<Object[]> adds = new ArrayList<>();
+        List<Object[]> sets = new ArrayList<>();
+
+        for (var entry : drained.entrySet()) {
+
+            var key = entry.getKey();
+            var pending = entry.getValue();
+
+            (pending.reset() ? sets : adds).add(new Object[]{key.userId(), key.conversationId(), pending.amount()});
+        }
+
+        flushing = drained;
+
+        try {
+
+            tx.executeWithoutResult(status -> {
+                if (!sets.isEmpty()) jdbc.batchUpdate(SET_SQL, sets);
+                if (!adds.isEmpty()) jdbc.batchUpdate(ADD_SQL, adds);
+            });
+
+        } catch (RuntimeException e) {
+
+            log.warn("Flushing {} unread counters failed, keeping them for the next flush: {}", drained.size(), e.getMessage());
+            drained.forEach(table::restore);
+
+        } finally {
+            flushing = Map.of();
+        }
+    }
+
+    @PreDestroy
+    private void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,156 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Unread count deltas that haven't been written to the database yet, split over independently locked stripes.
+ * <p>
+ * An increment only locks the stripe its key hashes to, so senders in different conversations rarely meet.
+ * Draining swaps each stripe's map for an empty one, nothing is copied while a stripe is locked.
+ * A reset replaces whatever delta was pending with a new count, so increments before a read are thrown away and
+ * increments after it are kept, in the order the flushes apply them.
+ */
+class UnreadCounterTable {
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    UnreadCounterTable(int stripeCount) {
+
+        if (Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Unread counter stripe count must be a power of two.");
+        }
+
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+
+        this.stripeMask = stripeCount - 1;
+    }
+
+    void increment(CounterKey key, long amount) {
+
+        Stripe stripe = stripeOf(key);
+
+        synchronized (stripe) {
+
+            Delta delta = stripe.deltas.get(key);
+
+            if (delta == null) {
+                stripe.deltas.put(key, new Delta(amount, false));
+            } else {
+                delta.amount += amount;
+            }
+        }
+    }
+
+    void reset(CounterKey key, long unread) {
+
+        Stripe stripe = stripeOf(key);
+
+        synchronized (stripe) {
+            stripe.deltas.put(key, new Delta(unread, true));
+        }
+    }
+
+    /**
+     * @return Null if nothing is pending for the key.
+     */
+    Pending pending(CounterKey key) {
+
+        Stripe stripe = stripeOf(key);
+
+        synchronized (stripe) {
+
+            Delta delta = stripe.deltas.get(key);
+
+            return delta != null ? new Pending(delta.amount, delta.reset) : null;
+        }
+    }
+
+    /**
+     * Takes every pending delta out of the table.
+     */
+    Map<CounterKey, Pending> drain() {
+
+        Map<CounterKey, Pending> drained = new HashMap<>();
+
+        for (Stripe stripe : stripes) {
+
+            Map<CounterKey, Delta> taken;
+
+            synchronized (stripe) {
+
+                if (stripe.deltas.isEmpty()) continue;
+
+                taken = stripe.deltas;
+                stripe.deltas = new HashMap<>();
+            }
+
+            taken.forEach((key, delta) -> drained.put(key, new Pending(delta.amount, delta.reset)));
+        }
+
+        return drained;
+    }
+
+    /**
+     * Puts a drained delta back in front of anything that was added since, used when a flush fails.
+     */
+    void restore(CounterKey key, Pending pending) {
+
+        Stripe stripe = stripeOf(key);
+
+        synchronized (stripe) {
+
+            Delta later = stripe.deltas.get(key);
+
+            if (later == null) {
+                stripe.deltas.put(key, new Delta(pending.amount(), pending.reset()));
+            } else if (!later.reset) {
+                stripe.deltas.put(key, new Delta(pending.amount() + later.amount, pending.reset()));
+            }
+            // A later reset already replaces whatever the failed flush had.
+        }
+    }
+
+    private Stripe stripeOf(CounterKey key) {
+
+        int hash = key.hashCode();
+
+        return stripes[(hash ^ (hash >>> 16)) & stripeMask];
+    }
+
+    record CounterKey(UUID userId, UUID conversationId) {
+    }
+
+    /**
+     * @param reset True if the stored count has to be replaced by amount instead of increased by it.
+     */
+    record Pending(long amount, boolean reset) {
+
+        /**
+         * Applies this on top of a count that was taken before it.
+         */
+        long applyTo(long count) {
+            return reset ? amount : count + amount;
+        }
+    }
+
+    private static final class Stripe {
+        private Map<CounterKey, Delta> deltas = new HashMap<>();
+    }
+
+    private static final class Delta {
+
+        private long amount;
+        private final boolean reset;
+
+        private Delta(long amount, boolean reset) {
+            this.amount = amount;
+            this.reset = reset;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Entry of a user's change log, what a reconnecting client replays instead of fetching whole histories.
+ * Only written and read through ChangeLog with JDBC, the entity is here for the schema.
+ */
+@Entity
+@Table(name = "user_changes", indexes = {
+        @Index(name = "idx_user_changes_user_tx", columnList = "user_id, tx_id, id"),
+        @Index(name = "idx_user_changes_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_changes_seq")
+    @SequenceGenerator(name = "user_changes_seq", sequenceName = "user_changes_id_seq", allocationSize = 50)
+    private Long id;
+
+    // Transaction that wrote the entry, sync order is (txId, id) so entries that commit late are never skipped.
+    @Column(columnDefinition = "xid8 NOT NULL DEFAULT pg_current_xact_id()", insertable = false, updatable = false)
+    private String txId;
+
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    private ChangeType type;
+
+    private UUID conversationId;
+
+    private Long refId;
+
+    private Date createdAt;
+}
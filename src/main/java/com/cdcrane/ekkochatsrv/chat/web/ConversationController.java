@@ -0,0 +1,97 @@
+package com.cdcrane.ekkochatsrv.chat.web;
+
+import com.cdcrane.ekkochatsrv.chat.api.ChatMessageUseCase;
+import com.cdcrane.ekkochatsrv.chat.api.ConversationActivityUseCase;
+import com.cdcrane.ekkochatsrv.chat.api.InboxUseCase;
+import com.cdcrane.ekkochatsrv.chat.api.UnreadCountUseCase;
+import com.cdcrane.ekkochatsrv.chat.dto.InboxPageDTO;
+import com.cdcrane.ekkochatsrv.chat.dto.MarkReadRequest;
+import com.cdcrane.ekkochatsrv.chat.dto.MessageDTO;
+import com.cdcrane.ekkochatsrv.chat.dto.MessagePageDTO;
+import com.cdcrane.ekkochatsrv.chat.dto.SendMessageRequest;
+import com.cdcrane.ekkochatsrv.chat.dto.UnreadCountDTO;
+import com.cdcrane.ekkochatsrv.users.principal.EkkoUserPrincipal;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/v1/conversations")
+@RequiredArgsConstructor
+public class ConversationController {
+
+    private final ChatMessageUseCase chatMessageUseCase;
+    private final UnreadCountUseCase unreadCountUseCase;
+    private final InboxUseCase inboxUseCase;
+    private final ConversationActivityUseCase activityUseCase;
+
+    @GetMapping
+    public ResponseEntity<InboxPageDTO> getInbox(@AuthenticationPrincipal EkkoUserPrincipal principal,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "20") int limit) {
+
+        return ResponseEntity.ok(inboxUseCase.getInbox(principal.getUserId(), cursor, limit));
+    }
+
+    // Returned as a future so the request thread is released while the message waits for its batch to commit.
+    @PostMapping("/{conversationId}/messages")
+    public CompletableFuture<ResponseEntity<MessageDTO>> sendMessage(@AuthenticationPrincipal EkkoUserPrincipal principal,
+                                                                     @PathVariable UUID conversationId,
+                                                                     @RequestBody @Valid SendMessageRequest req) {
+
+        return chatMessageUseCase.sendMessage(principal.getUserId(), conversationId, req)
+                .thenApply(message -> ResponseEntity.status(HttpStatus.CREATED).body(message));
+    }
+
+    @GetMapping("/{conversationId}/messages")
+    public ResponseEntity<MessagePageDTO> getMessagesAfter(@AuthenticationPrincipal EkkoUserPrincipal principal,
+                                                           @PathVariable UUID conversationId,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "50") int limit) {
+
+        return ResponseEntity.ok(chatMessageUseCase.getMessagesAfter(principal.getUserId(), conversationId, cursor, limit));
+    }
+
+    @GetMapping("/unread")
+    public ResponseEntity<List<UnreadCountDTO>> getUnreadCounts(@AuthenticationPrincipal EkkoUserPrincipal principal) {
+
+        return ResponseEntity.ok(unreadCountUseCase.getUnreadCounts(principal.getUserId()));
+    }
+
+    @PostMapping("/{conversationId}/read")
+    public ResponseEntity<Void> markRead(@AuthenticationPrincipal EkkoUserPrincipal principal,
+                                         @PathVariable UUID conversationId,
+                                         @RequestBody @Valid MarkReadRequest req) {
+
+        unreadCountUseCase.markRead(principal.getUserId(), conversationId, req.lastReadMessageId());
+
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+
+    @PostMapping("/{conversationId}/typing")
+    public ResponseEntity<Void> typing(@AuthenticationPrincipal EkkoUserPrincipal principal,
+                                       @PathVariable UUID conversationId) {
+
+        activityUseCase.typing(principal.getUserId(), conversationId);
+
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+
+    // Cheap to call for every message shown, unlike /read the cursor is written in the background.
+    @PostMapping("/{conversationId}/seen")
+    public ResponseEntity<Void> markSeen(@AuthenticationPrincipal EkkoUserPrincipal principal,
+                                         @PathVariable UUID conversationId,
+                                         @RequestBody @Valid MarkReadRequest req) {
+
+        activityUseCase.markSeen(principal.getUserId(), conversationId, req.lastReadMessageId());
+
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+}
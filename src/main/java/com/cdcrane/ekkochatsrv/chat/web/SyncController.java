@@ -0,0 +1,31 @@
+package com.cdcrane.ekkochatsrv.chat.web;
+
+import com.cdcrane.ekkochatsrv.chat.api.SyncUseCase;
+import com.cdcrane.ekkochatsrv.chat.dto.SyncPageDTO;
+import com.cdcrane.ekkochatsrv.users.principal.EkkoUserPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/sync")
+@RequiredArgsConstructor
+public class SyncController {
+
+    private final SyncUseCase syncUseCase;
+
+    // Compressed by the server.compression settings, pages are sized so they are worth compressing.
+    @GetMapping
+    public ResponseEntity<SyncPageDTO> sync(@AuthenticationPrincipal EkkoUserPrincipal principal,
+                                            @RequestParam(required = false) String cursor) {
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(syncUseCase.sync(principal.getUserId(), cursor));
+    }
+}
@@ -8,7 +8,10 @@ import org.springframework.modulith.ApplicationModule;
 @ApplicationModule(
         allowedDependencies = {
             "auth::exceptions",
-            "users::exceptions"
+            "users::exceptions",
+            "keys::exceptions",
+            "chat::exceptions",
+            "attachments::exceptions"
         }
 )
 public class ConfigModule {
@@ -0,0 +1,80 @@
+package com.cdcrane.ekkochatsrv.config.internal;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The one DataSource everything uses, routing between the primary and the read replicas.
+ * <p>
+ * The physical connection is only fetched when the first statement runs, by then a {@code readOnly} transaction has
+ * marked it read only and it is taken from a replica within the lag limit. Everything else, and read only work on a
+ * thread that already used the primary, goes to the primary. Without replicas configured that is everything.
+ */
+@Configuration
+class DataSourceConfig {
+
+    @Bean
+    DataSource dataSource(DataSourcePools pools) {
+
+        var proxy = new LazyConnectionDataSourceProxy(new PrimaryDataSource(pools.primary()));
+        proxy.setReadOnlyDataSource(new ReplicaDataSource(pools));
+
+        return proxy;
+    }
+
+    private static final class PrimaryDataSource extends DelegatingDataSource {
+
+        private PrimaryDataSource(DataSource primary) {
+            super(primary);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+
+            ReadYourWrites.markWritten();
+            return super.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+
+            ReadYourWrites.markWritten();
+            return super.getConnection(username, password);
+        }
+    }
+
+    private static final class ReplicaDataSource extends AbstractDataSource {
+
+        private final DataSourcePools pools;
+
+        private ReplicaDataSource(DataSourcePools pools) {
+            this.pools = pools;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return target().getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return target().getConnection(username, password);
+        }
+
+        private DataSource target() {
+
+            if (ReadYourWrites.hasWritten()) return pools.primary();
+
+            DataSource replica = pools.replica();
+
+            return replica != null ? replica : pools.primary();
+        }
+    }
+}
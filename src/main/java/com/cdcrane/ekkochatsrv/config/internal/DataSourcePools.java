@@ -0,0 +1,186 @@
+package com.cdcrane.ekkochatsrv.config.internal;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Owns the Hikari pool of the primary and one per read replica, each sized on its own.
+ * <p>
+ * Replication lag of every replica is polled on a schedule, a replica that is too far behind, isn't streaming from
+ * the primary or can't be reached isn't handed out until a later check finds it caught up again.
+ */
+@Component
+@Slf4j
+class DataSourcePools {
+
+    // An idle primary sends nothing to replay, so the replay timestamp only means lag while received WAL is still waiting.
+    // Received and replayed WAL are also equal when the replica lost its primary and nothing arrives anymore, so without
+    // a streaming WAL receiver the lag is unknown, null.
+    private static final String LAG_SQL = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+            END
+            """;
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final long maxLagMs;
+
+    DataSourcePools(MeterRegistry meterRegistry,
+                    @Value("${spring.datasource.url}") String url,
+                    @Value("${spring.datasource.username}") String username,
+                    @Value("${spring.datasource.password}") String password,
+                    @Value("${database.primary_pool_size}") int primaryPoolSize,
+                    @Value("${database.replicas.urls}") String replicaUrls,
+                    @Value("${database.replicas.pool_size}") int replicaPoolSize,
+                    @Value("${database.replicas.max_lag_ms}") long maxLagMs) {
+
+        this.maxLagMs = maxLagMs;
+
+        var metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        this.primary = pool("primary", url, username, password, primaryPoolSize, false, metrics);
+
+        var urls = Arrays.stream(replicaUrls.split(",")).map(String::strip).filter(u -> !u.isEmpty()).toList();
+
+        for (int i = 0; i < urls.size(); i++) {
+
+            var replica = new Replica("replica-" + (i + 1),
+                    pool("replica-" + (i + 1), urls.get(i), username, password, replicaPoolSize, true, metrics));
+
+            Gauge.builder("ekko.datasource.replica.lag", replica, r -> r.lagMs)
+                    .description("Replication lag seen at the last check, in milliseconds, -1 if unknown")
+                    .tag("pool", replica.name)
+                    .register(meterRegistry);
+
+            Gauge.builder("ekko.datasource.replica.usable", replica, r -> r.usable ? 1 : 0)
+                    .description("1 while the replica is within the lag limit and receives reads")
+                    .tag("pool", replica.name)
+                    .register(meterRegistry);
+
+            replicas.add(replica);
+        }
+
+        if (!replicas.isEmpty()) {
+            log.info("Routing read only transactions to {} replica(s) lagging at most {}ms", replicas.size(), maxLagMs);
+        }
+    }
+
+    DataSource primary() {
+        return primary;
+    }
+
+    /**
+     * @return Round robin over the replicas within the lag limit, null if there are none.
+     */
+    DataSource replica() {
+
+        int size = replicas.size();
+
+        for (int i = 0; i < size; i++) {
+
+            var replica = replicas.get(Math.floorMod(next.getAndIncrement(), size));
+
+            if (replica.usable) return replica.pool;
+        }
+
+        return null;
+    }
+
+    @Scheduled(fixedDelayString = "${database.replicas.lag_check_interval_ms}")
+    void checkLag() {
+
+        for (var replica : replicas) {
+
+            try (Connection con = replica.pool.getConnection();
+                 Statement st = con.createStatement();
+                 ResultSet rs = st.executeQuery(LAG_SQL)) {
+
+                rs.next();
+                double lagMs = rs.getDouble(1);
+                boolean streaming = !rs.wasNull();
+
+                replica.lagMs = streaming ? lagMs : -1;
+
+                boolean usable = streaming && lagMs <= maxLagMs;
+
+                if (usable != replica.usable) {
+                    if (streaming) {
+                        log.warn("Replica {} is {} ({}ms behind)", replica.name, usable ? "back in rotation" : "out of rotation", (long) lagMs);
+                    } else {
+                        log.warn("Replica {} is out of rotation, it isn't streaming from the primary", replica.name);
+                    }
+                }
+
+                replica.usable = usable;
+
+            } catch (Exception e) {
+
+                if (replica.usable) log.warn("Replica {} is out of rotation, lag check failed", replica.name, e);
+
+                replica.usable = false;
+            }
+        }
+    }
+
+    @PreDestroy
+    void close() {
+
+        replicas.forEach(r -> r.pool.close());
+        primary.close();
+    }
+
+    private static HikariDataSource pool(String name, String url, String username, String password, int size,
+                                         boolean readOnly, MicrometerMetricsTrackerFactory metrics) {
+
+        var config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(size);
+        config.setReadOnly(readOnly);
+        config.setMetricsTrackerFactory(metrics);
+
+        // A replica that is down at startup just stays out of rotation, the primary still has to be there.
+        if (readOnly) config.setInitializationFailTimeout(-1);
+
+        return new HikariDataSource(config);
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final HikariDataSource pool;
+
+        // Out of rotation until the first check has seen it.
+        private volatile boolean usable = false;
+        private volatile double lagMs = -1;
+
+        private Replica(String name, HikariDataSource pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+    }
+}
@@ -1,15 +1,26 @@
 package com.cdcrane.ekkochatsrv.config.internal;
 
+import com.cdcrane.ekkochatsrv.attachments.exceptions.AttachmentNotFoundException;
+import com.cdcrane.ekkochatsrv.attachments.exceptions.AttachmentQuotaExceededException;
+import com.cdcrane.ekkochatsrv.attachments.exceptions.InvalidAttachmentException;
 import com.cdcrane.ekkochatsrv.auth.exceptions.BadAuthenticationException;
 import com.cdcrane.ekkochatsrv.auth.exceptions.BadJwtException;
 import com.cdcrane.ekkochatsrv.auth.exceptions.TokenNotFoundException;
+import com.cdcrane.ekkochatsrv.chat.exceptions.ConversationNotFoundException;
+import com.cdcrane.ekkochatsrv.chat.exceptions.InvalidCursorException;
+import com.cdcrane.ekkochatsrv.chat.exceptions.MessageIngestionOverloadedException;
+import com.cdcrane.ekkochatsrv.chat.exceptions.RateLimitExceededException;
 import com.cdcrane.ekkochatsrv.config.dto.ExceptionErrorResponse;
 import com.cdcrane.ekkochatsrv.config.dto.ValidationErrorResponse;
+import com.cdcrane.ekkochatsrv.keys.exceptions.InvalidKeyRequestException;
+import com.cdcrane.ekkochatsrv.keys.exceptions.KeyBundleNotFoundException;
 import com.cdcrane.ekkochatsrv.users.exceptions.IdentityTakenException;
+import com.cdcrane.ekkochatsrv.users.exceptions.InvalidProfileRequestException;
 import com.cdcrane.ekkochatsrv.users.exceptions.InvalidVerificationException;
 import com.cdcrane.ekkochatsrv.users.exceptions.UserAlreadyVerifiedException;
 import com.cdcrane.ekkochatsrv.users.exceptions.UserNotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -187,4 +198,147 @@ public class GlobalExceptionHandler {
 
     }
 
+    // ---------------------------------------------------
+    // ---------------- KEY EXCEPTIONS -------------------
+    // ---------------------------------------------------
+
+    @ExceptionHandler(KeyBundleNotFoundException.class)
+    public ResponseEntity<ExceptionErrorResponse> handleKeyBundleNotFound(KeyBundleNotFoundException ex) {
+
+        ExceptionErrorResponse res = ExceptionErrorResponse.builder()
+                .message(ex.getMessage())
+                .errorCode(HttpStatus.NOT_FOUND.value())
+                .timestamp(System.currentTimeMillis())
+                .build();
+
+        return new ResponseEntity<>(res, HttpStatus.NOT_FOUND);
+
+    }
+
+    @ExceptionHandler(InvalidProfileRequestException.class)
+    public ResponseEntity<ExceptionErrorResponse> handleInvalidProfileRequest(InvalidProfileRequestException ex) {
+
+        ExceptionErrorResponse res = ExceptionErrorResponse.builder()
+                .message(ex.getMessage())
+                .errorCode(HttpStatus.BAD_REQUEST.value())
+                .timestamp(System.currentTimeMillis())
+                .build();
+
+        return new ResponseEntity<>(res, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidKeyRequestException.class)
+    public ResponseEntity<ExceptionErrorResponse> handleInvalidKeyRequest(InvalidKeyRequestException ex) {
+
+        ExceptionErrorResponse res = ExceptionErrorResponse.builder()
+                .message(ex.getMessage())
+                .errorCode(HttpStatus.BAD_REQUEST.value())
+                .timestamp(System.currentTimeMillis())
+                .build();
+
+        return new ResponseEntity<>(res, HttpStatus.BAD_REQUEST);
+
+    }
+
+    // ---------------------------------------------------
+    // --------------- CHAT EXCEPTIONS -------------------
+    // ---------------------------------------------------
+
+    @ExceptionHandler(ConversationNotFoundException.class)
+    public ResponseEntity<ExceptionErrorResponse> handleConversationNotFound(ConversationNotFoundException ex) {
+
+        ExceptionErrorResponse res = ExceptionErrorResponse.builder()
+                .message(ex.getMessage())
+                .errorCode(HttpStatus.NOT_FOUND.value())
+                .timestamp(System.currentTimeMillis())
+                .build();
+
+        return new ResponseEntity<>(res, HttpStatus.NOT_FOUND);
+
+    }
+
+    @ExceptionHandler(MessageIngestionOverloadedException.class)
+    public ResponseEntity<ExceptionErrorResponse> handleIngestionOverloaded(MessageIngestionOverloadedException ex) {
+
+        ExceptionErrorResponse res = ExceptionErrorResponse.builder()
+                .message(ex.getMessage())
+                .errorCode(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .timestamp(System.currentTimeMillis())
+                .build();
+
+        return new ResponseEntity<>(res, HttpStatus.SERVICE_UNAVAILABLE);
+
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ExceptionErrorResponse> handleRateLimitExceeded(RateLimitExceededException ex) {
+
+        ExceptionErrorResponse res = ExceptionErrorResponse.builder()
+                .message(ex.getMessage())
+                .errorCode(HttpStatus.TOO_MANY_REQUESTS.value())
+                .timestamp(System.currentTimeMillis())
+                .build();
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(res);
+
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ExceptionErrorResponse> handleInvalidCursor(InvalidCursorException ex) {
+
+        ExceptionErrorResponse res = ExceptionErrorResponse.builder()
+                .message(ex.getMessage())
+                .errorCode(HttpStatus.BAD_REQUEST.value())
+                .timestamp(System.currentTimeMillis())
+                .build();
+
+        return new ResponseEntity<>(res, HttpStatus.BAD_REQUEST);
+
+    }
+
+    // ---------------------------------------------------
+    // ------------ ATTACHMENT EXCEPTIONS ----------------
+    // ---------------------------------------------------
+
+    @ExceptionHandler(AttachmentNotFoundException.class)
+    public ResponseEntity<ExceptionErrorResponse> handleAttachmentNotFound(AttachmentNotFoundException ex) {
+
+        ExceptionErrorResponse res = ExceptionErrorResponse.builder()
+                .message(ex.getMessage())
+                .errorCode(HttpStatus.NOT_FOUND.value())
+                .timestamp(System.currentTimeMillis())
+                .build();
+
+        return new ResponseEntity<>(res, HttpStatus.NOT_FOUND);
+
+    }
+
+    @ExceptionHandler(AttachmentQuotaExceededException.class)
+    public ResponseEntity<ExceptionErrorResponse> handleAttachmentQuotaExceeded(AttachmentQuotaExceededException ex) {
+
+        ExceptionErrorResponse res = ExceptionErrorResponse.builder()
+                .message(ex.getMessage())
+                .errorCode(HttpStatus.PAYLOAD_TOO_LARGE.value())
+                .timestamp(System.currentTimeMillis())
+                .build();
+
+        return new ResponseEntity<>(res, HttpStatus.PAYLOAD_TOO_LARGE);
+
+    }
+
+    @ExceptionHandler(InvalidAttachmentException.class)
+    public ResponseEntity<ExceptionErrorResponse> handleInvalidAttachment(InvalidAttachmentException ex) {
+
+        ExceptionErrorResponse res = ExceptionErrorResponse.builder()
+                .message(ex.getMessage())
+                .errorCode(HttpStatus.BAD_REQUEST.value())
+                .timestamp(System.currentTimeMillis())
+                .build();
+
+        return new ResponseEntity<>(res, HttpStatus.BAD_REQUEST);
+
+    }
+
 }
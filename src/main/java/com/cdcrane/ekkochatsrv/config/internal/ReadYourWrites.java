@@ -0,0 +1,27 @@
+package com.cdcrane.ekkochatsrv.config.internal;
+
+/**
+ * Remembers whether the current thread took a connection from the primary, after that its reads stay on the primary
+ * too so a request never reads a replica that hasn't caught up with its own write yet.
+ * <p>
+ * Cleared around every request by {@link ReadYourWritesFilter}, threads outside requests stay pinned once they wrote.
+ */
+final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> WROTE = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    static void markWritten() {
+        WROTE.set(Boolean.TRUE);
+    }
+
+    static boolean hasWritten() {
+        return WROTE.get() != null;
+    }
+
+    static void clear() {
+        WROTE.remove();
+    }
+}
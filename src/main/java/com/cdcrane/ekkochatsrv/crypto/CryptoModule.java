@@ -0,0 +1,11 @@
+package com.cdcrane.ekkochatsrv.crypto;
+
+import org.springframework.modulith.ApplicationModule;
+
+/**
+ * Server side at-rest encryption for the standard chat mode.
+ * Other modules should only depend on the 'api' and 'exceptions' submodules.
+ */
+@ApplicationModule
+public class CryptoModule {
+}
@@ -0,0 +1,15 @@
+package com.cdcrane.ekkochatsrv.crypto.api;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+public interface MessageDictionaryUseCase {
+
+    /**
+     * Trains a compression dictionary on the sample messages and saves it under the given version in the dictionary
+     * directory, it's only used for new messages once encryption.compression.dictionary_version points at it.
+     * @return The written dictionary file.
+     */
+    Path trainDictionary(List<String> samples, int version) throws IOException;
+}
@@ -0,0 +1,32 @@
+package com.cdcrane.ekkochatsrv.crypto.api;
+
+import java.util.List;
+
+public interface MessageEncryptionUseCase {
+
+    byte[] encrypt(String plaintext);
+
+    String decrypt(byte[] ciphertext);
+
+    /**
+     * Encrypts every payload with a single borrowed cipher, the result keeps the order of the input.
+     */
+    List<byte[]> encryptAll(List<String> plaintexts);
+
+    /**
+     * Decrypts every payload with a single borrowed cipher, meant for loading whole history pages at once.
+     */
+    List<String> decryptAll(List<byte[]> ciphertexts);
+
+    /**
+     * Decrypts with whichever key version the payload was written with and encrypts it again with the active key.
+     */
+    byte[] reEncrypt(byte[] ciphertext);
+
+    /**
+     * Reads the key version from the header of a stored ciphertext without decrypting it.
+     */
+    int keyVersionOf(byte[] ciphertext);
+
+    int activeKeyVersion();
+}
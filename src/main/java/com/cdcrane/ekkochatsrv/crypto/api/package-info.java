@@ -0,0 +1,4 @@
+@NamedInterface("api")
+package com.cdcrane.ekkochatsrv.crypto.api;
+
+import org.springframework.modulith.NamedInterface;
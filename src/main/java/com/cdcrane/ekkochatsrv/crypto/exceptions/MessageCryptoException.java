@@ -0,0 +1,11 @@
+package com.cdcrane.ekkochatsrv.crypto.exceptions;
+
+public class MessageCryptoException extends RuntimeException {
+    public MessageCryptoException(String message) {
+        super(message);
+    }
+
+    public MessageCryptoException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,307 @@
+package com.cdcrane.ekkochatsrv.crypto.internal;
+
+import com.cdcrane.ekkochatsrv.crypto.exceptions.MessageCryptoException;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * AES-GCM cipher for stored messages, keeps a pool of Cipher instances so the provider lookup only happens once per slot.
+ * <p>
+ * Stored layout v1: [format (1)] [key version (2)] [nonce (12)] [ciphertext + tag].
+ * Stored layout v2: [format (1)] [key version (2)] [codec (1)] [dictionary version (2)] [nonce (12)] [ciphertext + tag],
+ * written when compression is enabled, the ciphertext then holds the compressed body if the codec says so.
+ * The header is authenticated as AAD, so it can't be swapped onto another ciphertext.
+ */
+class AesGcmMessageCipher {
+
+    static final byte FORMAT_V1 = 1;
+    static final byte FORMAT_V2 = 2;
+    static final int HEADER_LENGTH = 3;
+    static final int V2_HEADER_LENGTH = 6;
+    static final int NONCE_LENGTH = 12;
+    static final int TAG_BITS = 128;
+    static final int PREFIX_LENGTH = HEADER_LENGTH + NONCE_LENGTH;
+    static final int V2_PREFIX_LENGTH = V2_HEADER_LENGTH + NONCE_LENGTH;
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private final Map<Integer, SecretKey> keys;
+    private final int activeVersion;
+    private final SecretKey activeKey;
+    private final MessageCompressor compressor;
+    private final SecureRandom random = new SecureRandom();
+    private final ConcurrentLinkedQueue<CipherSlot> pool = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param keys Every key that can still be used for decryption, by version.
+     * @param activeVersion The version used for all new encryptions, must be present in keys.
+     */
+    AesGcmMessageCipher(Map<Integer, SecretKey> keys, int activeVersion) {
+        this(keys, activeVersion, null);
+    }
+
+    /**
+     * @param compressor Null to only ever read and write uncompressed v1 messages.
+     */
+    AesGcmMessageCipher(Map<Integer, SecretKey> keys, int activeVersion, MessageCompressor compressor) {
+
+        if (!keys.containsKey(activeVersion)) {
+            throw new IllegalArgumentException("Active message key version " + activeVersion + " has no key.");
+        }
+
+        if (activeVersion < 1 || activeVersion > 0xFFFF) {
+            throw new IllegalArgumentException("Message key versions must be between 1 and 65535.");
+        }
+
+        this.keys = Map.copyOf(keys);
+        this.activeVersion = activeVersion;
+        this.activeKey = keys.get(activeVersion);
+        this.compressor = compressor;
+    }
+
+    int activeVersion() {
+        return activeVersion;
+    }
+
+    byte[] encrypt(String plaintext) {
+
+        CipherSlot slot = borrow();
+
+        try {
+            return slot.encrypt(plaintext.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            pool.offer(slot);
+        }
+    }
+
+    byte[] encryptBytes(byte[] plaintext) {
+
+        CipherSlot slot = borrow();
+
+        try {
+            return slot.encrypt(plaintext);
+        } finally {
+            pool.offer(slot);
+        }
+    }
+
+    String decrypt(byte[] stored) {
+
+        CipherSlot slot = borrow();
+
+        try {
+            return new String(slot.decrypt(stored), StandardCharsets.UTF_8);
+        } finally {
+            pool.offer(slot);
+        }
+    }
+
+    byte[] decryptBytes(byte[] stored) {
+
+        CipherSlot slot = borrow();
+
+        try {
+            return slot.decrypt(stored);
+        } finally {
+            pool.offer(slot);
+        }
+    }
+
+    byte[] reEncrypt(byte[] stored) {
+
+        CipherSlot slot = borrow();
+
+        try {
+            return slot.encrypt(slot.decrypt(stored));
+        } finally {
+            pool.offer(slot);
+        }
+    }
+
+    List<byte[]> encryptAll(List<String> plaintexts) {
+
+        List<byte[]> result = new ArrayList<>(plaintexts.size());
+        CipherSlot slot = borrow();
+
+        try {
+            for (String plaintext : plaintexts) {
+                result.add(slot.encrypt(plaintext.getBytes(StandardCharsets.UTF_8)));
+            }
+        } finally {
+            pool.offer(slot);
+        }
+
+        return result;
+    }
+
+    List<String> decryptAll(List<byte[]> stored) {
+
+        List<String> result = new ArrayList<>(stored.size());
+        CipherSlot slot = borrow();
+
+        try {
+            for (byte[] ciphertext : stored) {
+                result.add(new String(slot.decrypt(ciphertext), StandardCharsets.UTF_8));
+            }
+        } finally {
+            pool.offer(slot);
+        }
+
+        return result;
+    }
+
+    static int keyVersionOf(byte[] stored) {
+
+        if (stored == null || stored.length < PREFIX_LENGTH) {
+            throw new MessageCryptoException("Stored message is too short to contain an encryption header.");
+        }
+
+        if (stored[0] == FORMAT_V2 && stored.length < V2_PREFIX_LENGTH) {
+            throw new MessageCryptoException("Stored message is too short to contain an encryption header.");
+        }
+
+        if (stored[0] != FORMAT_V1 && stored[0] != FORMAT_V2) {
+            throw new MessageCryptoException("Unknown message encryption format: " + stored[0]);
+        }
+
+        return ((stored[1] & 0xFF) << 8) | (stored[2] & 0xFF);
+    }
+
+    private CipherSlot borrow() {
+
+        CipherSlot slot = pool.poll();
+
+        return slot != null ? slot : new CipherSlot();
+    }
+
+    /**
+     * One pooled cipher, only ever used by one thread at a time.
+     * Nonces are a random 8 byte prefix plus a 4 byte counter, the prefix is re-rolled before the counter wraps,
+     * so a slot never repeats a nonce and two slots colliding needs a 64-bit prefix collision.
+     */
+    private final class CipherSlot {
+
+        private final Cipher cipher;
+        private final byte[] noncePrefix = new byte[8];
+        private int counter;
+        private Deflater deflater;
+        private Inflater inflater;
+
+        private CipherSlot() {
+
+            try {
+                this.cipher = Cipher.getInstance(TRANSFORMATION);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("AES/GCM is not available in this JVM!", e);
+            }
+
+            random.nextBytes(noncePrefix);
+        }
+
+        private byte[] encrypt(byte[] plaintext) {
+
+            if (counter == -1) { // Wrapped all 2^32 values, start a new prefix.
+                random.nextBytes(noncePrefix);
+            }
+
+            boolean v2 = compressor != null && compressor.enabled();
+            byte[] body = plaintext;
+            byte codec = MessageCompressor.CODEC_NONE;
+            int dictionaryVersion = 0;
+
+            if (v2) {
+
+                if (deflater == null) deflater = compressor.newDeflater();
+
+                byte[] compressed = compressor.compress(plaintext, deflater);
+
+                if (compressed != null) {
+                    body = compressed;
+                    codec = MessageCompressor.CODEC_DEFLATE;
+                    dictionaryVersion = compressor.activeDictionaryVersion();
+                }
+            }
+
+            int headerLength = v2 ? V2_HEADER_LENGTH : HEADER_LENGTH;
+            int prefixLength = headerLength + NONCE_LENGTH;
+            byte[] out = new byte[prefixLength + body.length + TAG_BITS / 8];
+
+            out[0] = v2 ? FORMAT_V2 : FORMAT_V1;
+            out[1] = (byte) (activeVersion >>> 8);
+            out[2] = (byte) activeVersion;
+
+            if (v2) {
+                out[3] = codec;
+                out[4] = (byte) (dictionaryVersion >>> 8);
+                out[5] = (byte) dictionaryVersion;
+            }
+
+            System.arraycopy(noncePrefix, 0, out, headerLength, noncePrefix.length);
+            int c = counter++;
+            out[headerLength + 8] = (byte) (c >>> 24);
+            out[headerLength + 9] = (byte) (c >>> 16);
+            out[headerLength + 10] = (byte) (c >>> 8);
+            out[headerLength + 11] = (byte) c;
+
+            try {
+
+                cipher.init(Cipher.ENCRYPT_MODE, activeKey, new GCMParameterSpec(TAG_BITS, out, headerLength, NONCE_LENGTH));
+                cipher.updateAAD(out, 0, headerLength);
+                cipher.doFinal(body, 0, body.length, out, prefixLength);
+
+                return out;
+
+            } catch (GeneralSecurityException e) {
+                throw new MessageCryptoException("Failed to encrypt message.", e);
+            }
+        }
+
+        private byte[] decrypt(byte[] stored) {
+
+            int version = keyVersionOf(stored);
+            SecretKey key = keys.get(version);
+
+            if (key == null) {
+                throw new MessageCryptoException("No message key configured for key version " + version);
+            }
+
+            int headerLength = stored[0] == FORMAT_V2 ? V2_HEADER_LENGTH : HEADER_LENGTH;
+            int prefixLength = headerLength + NONCE_LENGTH;
+            byte[] body;
+
+            try {
+
+                cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, stored, headerLength, NONCE_LENGTH));
+                cipher.updateAAD(stored, 0, headerLength);
+
+                body = cipher.doFinal(stored, prefixLength, stored.length - prefixLength);
+
+            } catch (GeneralSecurityException e) {
+                throw new MessageCryptoException("Failed to decrypt message, it was tampered with or the key is wrong.", e);
+            }
+
+            if (headerLength == HEADER_LENGTH || stored[3] == MessageCompressor.CODEC_NONE) return body;
+
+            if (stored[3] != MessageCompressor.CODEC_DEFLATE || compressor == null) {
+                throw new MessageCryptoException("Unsupported message compression codec: " + stored[3]);
+            }
+
+            if (inflater == null) inflater = compressor.newInflater();
+
+            int dictionaryVersion = ((stored[4] & 0xFF) << 8) | (stored[5] & 0xFF);
+
+            return compressor.decompress(body, 0, body.length, dictionaryVersion, inflater);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.cdcrane.ekkochatsrv.crypto.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+/**
+ * Builds a deflate preset dictionary from sample messages.
+ * <p>
+ * Counts in how many samples every 8 byte sequence shows up, then repeatedly takes the sample window covering the most
+ * frequent sequences that aren't in the dictionary yet. Deflate reaches the end of a dictionary with the shortest
+ * distances, so the best segments are placed last.
+ */
+class DictionaryTrainer {
+
+    private static final int K = 8;
+    private static final int SEGMENT_LENGTH = 48;
+
+    // A sequence only seen in one sample is no use to any other message.
+    private static final int MIN_FREQUENCY = 2;
+
+    private DictionaryTrainer() {
+    }
+
+    static byte[] train(List<byte[]> samples, int maxBytes) {
+
+        Map<Long, Integer> frequency = new HashMap<>();
+
+        for (byte[] sample : samples) {
+
+            Set<Long> seen = new HashSet<>();
+
+            for (int i = 0; i + K <= sample.length; i++) {
+                long kmer = kmerAt(sample, i);
+                if (seen.add(kmer)) frequency.merge(kmer, 1, Integer::sum);
+            }
+        }
+
+        PriorityQueue<Segment> candidates = new PriorityQueue<>(Comparator.comparingLong(Segment::score).reversed());
+
+        for (int i = 0; i < samples.size(); i++) {
+            var best = bestSegment(samples.get(i), i, frequency);
+            if (best != null) candidates.add(best);
+        }
+
+        List<byte[]> chosen = new ArrayList<>();
+        int total = 0;
+
+        while (!candidates.isEmpty() && total < maxBytes) {
+
+            // Scores go stale as sequences get taken, re-score lazily and only accept if still the best.
+            Segment candidate = candidates.poll();
+            Segment current = bestSegment(samples.get(candidate.sample()), candidate.sample(), frequency);
+
+            if (current == null) continue;
+
+            if (!candidates.isEmpty() && current.score() < candidates.peek().score()) {
+                candidates.add(current);
+                continue;
+            }
+
+            byte[] sample = samples.get(current.sample());
+            int length = Math.min(current.end() - current.start(), maxBytes - total);
+
+            chosen.add(Arrays.copyOfRange(sample, current.start(), current.start() + length));
+            total += length;
+
+            for (int i = current.start(); i + K <= current.end(); i++) {
+                frequency.remove(kmerAt(sample, i));
+            }
+
+            // The same sample may still have another useful window.
+            var next = bestSegment(sample, current.sample(), frequency);
+            if (next != null) candidates.add(next);
+        }
+
+        var dictionary = new ByteArrayOutputStream(total);
+
+        for (int i = chosen.size() - 1; i >= 0; i--) {
+            dictionary.writeBytes(chosen.get(i));
+        }
+
+        return dictionary.toByteArray();
+    }
+
+    /**
+     * @return The window of the sample with the highest summed frequency, null if nothing in it is worth keeping.
+     */
+    private static Segment bestSegment(byte[] sample, int index, Map<Long, Integer> frequency) {
+
+        if (sample.length < K) return null;
+
+        int window = Math.min(SEGMENT_LENGTH, sample.length);
+        int kmersPerWindow = window - K + 1;
+        int kmerCount = sample.length - K + 1;
+
+        long[] scores = new long[kmerCount];
+        for (int i = 0; i < kmerCount; i++) {
+            int f = frequency.getOrDefault(kmerAt(sample, i), 0);
+            scores[i] = f >= MIN_FREQUENCY ? f : 0;
+        }
+
+        long sum = 0;
+        for (int i = 0; i < kmersPerWindow; i++) {
+            sum += scores[i];
+        }
+
+        long bestScore = sum;
+        int bestStart = 0;
+
+        for (int start = 1; start + kmersPerWindow <= kmerCount; start++) {
+
+            sum += scores[start + kmersPerWindow - 1] - scores[start - 1];
+
+            if (sum > bestScore) {
+                bestScore = sum;
+                bestStart = start;
+            }
+        }
+
+        return bestScore > 0 ? new Segment(index, bestStart, bestStart + window, bestScore) : null;
+    }
+
+    private static long kmerAt(byte[] data, int offset) {
+
+        long kmer = 0;
+        for (int i = 0; i < K; i++) {
+            kmer = (kmer << 8) | (data[offset + i] & 0xFF);
+        }
+
+        return kmer;
+    }
+
+    private record Segment(int sample, int start, int end, long score) {
+    }
+}
@@ -0,0 +1,173 @@
+package com.cdcrane.ekkochatsrv.crypto.internal;
+
+import com.cdcrane.ekkochatsrv.crypto.exceptions.MessageCryptoException;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Raw deflate with a preset dictionary, applied to message bodies before they are encrypted.
+ * <p>
+ * Chat messages are too short for deflate to find much to reference inside themselves, a dictionary trained on real
+ * messages gives it the common words and phrases up front. Compressed layout: [original length (varint)] [deflate].
+ * Dictionary version 0 means plain deflate without a dictionary.
+ */
+class MessageCompressor {
+
+    static final byte CODEC_NONE = 0;
+    static final byte CODEC_DEFLATE = 1;
+
+    // Authenticated by GCM before we get here, this only guards against allocating for a corrupt length.
+    private static final int MAX_ORIGINAL_LENGTH = 1 << 24;
+
+    private final Map<Integer, byte[]> dictionaries;
+    private final boolean enabled;
+    private final int activeDictionaryVersion;
+    private final int minLength;
+
+    /**
+     * @param dictionaries Every dictionary stored messages may refer to, by version.
+     * @param enabled False to only decompress, new messages are stored uncompressed.
+     * @param minLength Shorter messages aren't worth the deflate call.
+     */
+    MessageCompressor(Map<Integer, byte[]> dictionaries, boolean enabled, int activeDictionaryVersion, int minLength) {
+
+        if (activeDictionaryVersion < 0 || activeDictionaryVersion > 0xFFFF) {
+            throw new IllegalArgumentException("Dictionary versions must be between 0 and 65535.");
+        }
+
+        if (activeDictionaryVersion != 0 && !dictionaries.containsKey(activeDictionaryVersion)) {
+            throw new IllegalArgumentException("Active compression dictionary version " + activeDictionaryVersion + " isn't loaded.");
+        }
+
+        this.dictionaries = Map.copyOf(dictionaries);
+        this.enabled = enabled;
+        this.activeDictionaryVersion = activeDictionaryVersion;
+        this.minLength = Math.max(minLength, 8); // Below that the length prefix might not fit in the output buffer.
+    }
+
+    boolean enabled() {
+        return enabled;
+    }
+
+    int activeDictionaryVersion() {
+        return activeDictionaryVersion;
+    }
+
+    Deflater newDeflater() {
+        return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    }
+
+    Inflater newInflater() {
+        return new Inflater(true);
+    }
+
+    /**
+     * @return Null if the message is too short or didn't get smaller, store it uncompressed then.
+     */
+    byte[] compress(byte[] plaintext, Deflater deflater) {
+
+        if (plaintext.length < minLength) return null;
+
+        // Anything that needs the full buffer didn't save a byte.
+        byte[] out = new byte[plaintext.length];
+        int pos = writeVarint(out, plaintext.length);
+
+        deflater.reset();
+        if (activeDictionaryVersion != 0) {
+            deflater.setDictionary(dictionaries.get(activeDictionaryVersion));
+        }
+        deflater.setInput(plaintext);
+        deflater.finish();
+
+        while (!deflater.finished()) {
+
+            if (pos == out.length) return null;
+
+            pos += deflater.deflate(out, pos, out.length - pos);
+        }
+
+        return Arrays.copyOf(out, pos);
+    }
+
+    byte[] decompress(byte[] data, int offset, int length, int dictionaryVersion, Inflater inflater) {
+
+        int end = offset + length;
+        int originalLength = 0;
+        int shift = 0;
+        int pos = offset;
+
+        while (true) {
+
+            if (pos == end || shift > 28) throw new MessageCryptoException("Compressed message has a broken length prefix.");
+
+            byte b = data[pos++];
+            originalLength |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) break;
+
+            shift += 7;
+        }
+
+        if (originalLength > MAX_ORIGINAL_LENGTH) {
+            throw new MessageCryptoException("Compressed message claims an impossible length.");
+        }
+
+        byte[] out = new byte[originalLength];
+
+        inflater.reset();
+        inflater.setInput(data, pos, end - pos);
+
+        if (dictionaryVersion != 0) {
+
+            byte[] dictionary = dictionaries.get(dictionaryVersion);
+
+            if (dictionary == null) {
+                throw new MessageCryptoException("No compression dictionary loaded for version " + dictionaryVersion);
+            }
+
+            inflater.setDictionary(dictionary);
+        }
+
+        try {
+
+            int written = 0;
+
+            while (!inflater.finished()) {
+
+                int n = inflater.inflate(out, written, out.length - written);
+                written += n;
+
+                if (n == 0 && (inflater.needsInput() || written == out.length) && !inflater.finished()) {
+                    throw new MessageCryptoException("Compressed message is truncated or longer than its length prefix.");
+                }
+            }
+
+            if (written != originalLength) {
+                throw new MessageCryptoException("Compressed message doesn't match its length prefix.");
+            }
+
+            return out;
+
+        } catch (DataFormatException e) {
+            throw new MessageCryptoException("Compressed message is corrupt.", e);
+        }
+    }
+
+    private static int writeVarint(byte[] out, int value) {
+
+        int pos = 0;
+
+        while ((value & ~0x7F) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out[pos++] = (byte) value;
+
+        return pos;
+    }
+}
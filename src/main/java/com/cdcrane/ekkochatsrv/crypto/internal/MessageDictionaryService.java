@@ -0,0 +1,53 @@
+package com.cdcrane.ekkochatsrv.crypto.internal;
+
+import com.cdcrane.ekkochatsrv.crypto.api.MessageDictionaryUseCase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@Slf4j
+public class MessageDictionaryService implements MessageDictionaryUseCase {
+
+    @Value("${encryption.compression.dictionary_dir}")
+    private String dictionaryDir;
+
+    @Value("${encryption.compression.training.max_bytes}")
+    private int maxBytes;
+
+    @Override
+    public Path trainDictionary(List<String> samples, int version) throws IOException {
+
+        if (version < 1 || version > 0xFFFF) {
+            throw new IllegalArgumentException("Dictionary versions must be between 1 and 65535.");
+        }
+
+        Path target = Path.of(dictionaryDir).resolve("v" + version + ".dict");
+
+        // Stored messages refer to dictionaries by version, replacing one would make them unreadable.
+        if (Files.exists(target)) {
+            throw new IllegalStateException("Dictionary version " + version + " already exists, pick a new version.");
+        }
+
+        List<byte[]> encoded = new ArrayList<>(samples.size());
+        for (String sample : samples) {
+            encoded.add(sample.getBytes(StandardCharsets.UTF_8));
+        }
+
+        byte[] dictionary = DictionaryTrainer.train(encoded, maxBytes);
+
+        Files.createDirectories(target.getParent());
+        Files.write(target, dictionary);
+
+        log.info("Trained dictionary version {} from {} samples, {} bytes written to {}", version, samples.size(), dictionary.length, target);
+
+        return target;
+    }
+}
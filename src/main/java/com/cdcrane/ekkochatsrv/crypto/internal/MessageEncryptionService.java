@@ -0,0 +1,149 @@
+package com.cdcrane.ekkochatsrv.crypto.internal;
+
+import com.cdcrane.ekkochatsrv.crypto.api.MessageEncryptionUseCase;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@Slf4j
+public class MessageEncryptionService implements MessageEncryptionUseCase {
+
+    @Value("${encryption.message_key}")
+    private String messageKey;
+
+    @Value("${encryption.message_key_version}")
+    private int messageKeyVersion;
+
+    // Comma separated "version:base64Key" entries, only used to decrypt messages stored before a key rotation.
+    @Value("${encryption.previous_message_keys:}")
+    private String[] previousMessageKeys;
+
+    @Value("${encryption.compression.enabled}")
+    private boolean compressionEnabled;
+
+    @Value("${encryption.compression.dictionary_dir}")
+    private String dictionaryDir;
+
+    @Value("${encryption.compression.dictionary_version}")
+    private int dictionaryVersion;
+
+    @Value("${encryption.compression.min_length}")
+    private int compressionMinLength;
+
+    private AesGcmMessageCipher cipher;
+
+    @PostConstruct
+    private void initializeKeys() throws IOException {
+
+        if (messageKey == null || messageKey.isBlank()) {
+            throw new IllegalStateException("Message encryption key must be set!");
+        }
+
+        Map<Integer, SecretKey> keys = new HashMap<>();
+
+        for (String entry : previousMessageKeys) {
+
+            if (entry.isBlank()) continue;
+
+            int separator = entry.indexOf(':');
+
+            if (separator < 1) {
+                throw new IllegalStateException("Previous message keys must follow the 'version:base64Key' format.");
+            }
+
+            keys.put(Integer.parseInt(entry.substring(0, separator).trim()), toAesKey(entry.substring(separator + 1).trim()));
+        }
+
+        keys.put(messageKeyVersion, toAesKey(messageKey));
+
+        var dictionaries = loadDictionaries();
+        var compressor = new MessageCompressor(dictionaries, compressionEnabled, dictionaryVersion, compressionMinLength);
+
+        cipher = new AesGcmMessageCipher(keys, messageKeyVersion, compressor);
+
+        log.info("Message encryption ready with key version {} ({} key versions accepted for decryption)", messageKeyVersion, keys.size());
+
+        if (compressionEnabled) {
+            log.info("Message compression enabled with dictionary version {} ({} dictionaries loaded)", dictionaryVersion, dictionaries.size());
+        }
+
+    }
+
+    @Override
+    public byte[] encrypt(String plaintext) {
+        return cipher.encrypt(plaintext);
+    }
+
+    @Override
+    public String decrypt(byte[] ciphertext) {
+        return cipher.decrypt(ciphertext);
+    }
+
+    @Override
+    public List<byte[]> encryptAll(List<String> plaintexts) {
+        return cipher.encryptAll(plaintexts);
+    }
+
+    @Override
+    public List<String> decryptAll(List<byte[]> ciphertexts) {
+        return cipher.decryptAll(ciphertexts);
+    }
+
+    @Override
+    public byte[] reEncrypt(byte[] ciphertext) {
+        return cipher.reEncrypt(ciphertext);
+    }
+
+    @Override
+    public int keyVersionOf(byte[] ciphertext) {
+        return AesGcmMessageCipher.keyVersionOf(ciphertext);
+    }
+
+    @Override
+    public int activeKeyVersion() {
+        return cipher.activeVersion();
+    }
+
+    /**
+     * Every v{version}.dict file in the dictionary directory, all of them stay loaded so older messages remain readable.
+     */
+    private Map<Integer, byte[]> loadDictionaries() throws IOException {
+
+        Map<Integer, byte[]> dictionaries = new HashMap<>();
+        Path dir = Path.of(dictionaryDir);
+
+        if (!Files.isDirectory(dir)) return dictionaries;
+
+        try (var files = Files.newDirectoryStream(dir, "v*.dict")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                dictionaries.put(Integer.parseInt(name.substring(1, name.length() - ".dict".length())), Files.readAllBytes(file));
+            }
+        }
+
+        return dictionaries;
+    }
+
+    static SecretKey toAesKey(String base64Key) {
+
+        byte[] raw = Base64.getDecoder().decode(base64Key);
+
+        if (raw.length != 16 && raw.length != 24 && raw.length != 32) {
+            throw new IllegalStateException("Message encryption keys must be 128, 192 or 256 bit AES keys encoded in base64.");
+        }
+
+        return new SecretKeySpec(raw, "AES");
+    }
+}
@@ -0,0 +1,20 @@
+package com.cdcrane.ekkochatsrv.delivery.internal;
+
+import com.cdcrane.ekkochatsrv.executors.ModuleExecutors;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+
+/**
+ * SMTP can be slow or hang, it only ever holds up emails.
+ */
+@Configuration
+class DeliveryExecutorConfig {
+
+    static final String EXECUTOR = "deliveryExecutor";
+
+    @Bean(EXECUTOR)
+    TaskExecutor deliveryExecutor(ModuleExecutors moduleExecutors) {
+        return moduleExecutors.create("delivery");
+    }
+}
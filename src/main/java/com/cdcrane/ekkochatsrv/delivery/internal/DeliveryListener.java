@@ -5,18 +5,18 @@ import com.cdcrane.ekkochatsrv.users.events.EmailVerificationFailEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.modulith.events.ApplicationModuleListener;
-import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 @Component
 @Slf4j
-@EnableAsync
 @RequiredArgsConstructor
 public class DeliveryListener {
 
     private final EmailUseCase emailUseCase;
 
     @ApplicationModuleListener
+    @Async(DeliveryExecutorConfig.EXECUTOR)
     public void sendVerificationEmailOnSignup(AccountRegisteredEvent e) {
 
         emailUseCase.sendVerificationEmail(e.email(), e.username(), e.generatedVerificationCode());
@@ -24,6 +24,7 @@ public class DeliveryListener {
     }
 
     @ApplicationModuleListener
+    @Async(DeliveryExecutorConfig.EXECUTOR)
     public void sendEmailAgainOnVerificationFail(EmailVerificationFailEvent e) {
 
         emailUseCase.sendVerificationEmail(e.email(), e.username(), e.newVerificationCode());
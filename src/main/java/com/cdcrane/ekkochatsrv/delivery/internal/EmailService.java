@@ -3,6 +3,8 @@ package com.cdcrane.ekkochatsrv.delivery.internal;
 import jakarta.mail.*;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -13,6 +15,8 @@ import java.util.Properties;
 @Slf4j
 public class EmailService implements EmailUseCase {
 
+    private final MeterRegistry meterRegistry;
+
     @Value("${spring.mail.username}")
     private String senderEmail;
 
@@ -28,6 +32,10 @@ public class EmailService implements EmailUseCase {
     @Value("${app.frontend-base-url}")
     private String baseUrl;
 
+    EmailService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     public Properties prepareProperties() {
 
         Properties props = new Properties();
@@ -120,12 +128,23 @@ public class EmailService implements EmailUseCase {
 
             message.setContent(html, "text/html; charset=utf-8");
 
-            Transport.send(message);
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "failed";
+
+            try {
+                Transport.send(message);
+                outcome = "sent";
+            } finally {
+                sample.stop(meterRegistry.timer("ekko.delivery.email.send", "type", "verification", "outcome", outcome));
+            }
 
             log.info("Verification email sent to {}", email);
 
         } catch (MessagingException e) {
 
+            // The exception type tells SMTP auth, rejected address and connection problems apart without unbounded tags.
+            meterRegistry.counter("ekko.delivery.email.failures", "type", "verification", "cause", e.getClass().getSimpleName()).increment();
+
             log.error("Failed to send email to {}. Error: {}", email, e.getMessage());
 
         }
@@ -0,0 +1,11 @@
+package com.cdcrane.ekkochatsrv.executors;
+
+import org.springframework.modulith.ApplicationModule;
+
+/**
+ * Isolated executors for the async module listeners, so one slow dependency can't take the threads of every other module.
+ * Other modules should only use ModuleExecutors.
+ */
+@ApplicationModule
+public class ExecutorsModule {
+}
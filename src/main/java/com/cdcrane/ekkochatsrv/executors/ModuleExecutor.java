@@ -0,0 +1,132 @@
+package com.cdcrane.ekkochatsrv.executors;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Either a fixed pool with a bounded queue, or a virtual thread per task with a cap on how many run at once.
+ * Every task is timed for its wait and its run, the tasks that didn't fit are counted and dropped.
+ */
+@Slf4j
+class ModuleExecutor implements TaskExecutor, AutoCloseable {
+
+    private static final long SHUTDOWN_GRACE_SECONDS = 10;
+
+    private final String module;
+    private final ExecutorService executor;
+
+    // Only for virtual threads, a pool limits itself through its queue.
+    private final Semaphore permits;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final Timer queueWait;
+    private final Timer execution;
+    private final Counter rejected;
+
+    private ModuleExecutor(String module, ExecutorService executor, Semaphore permits, MeterRegistry meterRegistry) {
+
+        this.module = module;
+        this.executor = executor;
+        this.permits = permits;
+
+        queueWait = Timer.builder("ekko.executor.queue_wait").tag("module", module)
+                .description("Time tasks waited for a thread").register(meterRegistry);
+        execution = Timer.builder("ekko.executor.execution").tag("module", module)
+                .description("Time tasks ran for").register(meterRegistry);
+        rejected = Counter.builder("ekko.executor.rejected").tag("module", module)
+                .description("Tasks dropped because the executor was full, retried from the publication registry")
+                .register(meterRegistry);
+
+        Gauge.builder("ekko.executor.active", active, AtomicInteger::get).tag("module", module)
+                .description("Tasks running right now").register(meterRegistry);
+
+        if (executor instanceof ThreadPoolExecutor pool) {
+            Gauge.builder("ekko.executor.queued", pool, p -> p.getQueue().size()).tag("module", module)
+                    .description("Tasks waiting for a thread").register(meterRegistry);
+        }
+    }
+
+    static ModuleExecutor pool(String module, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+
+        var counter = new AtomicInteger();
+
+        var pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread t = new Thread(r, module + "-exec-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        pool.allowCoreThreadTimeOut(true);
+
+        return new ModuleExecutor(module, pool, null, meterRegistry);
+    }
+
+    static ModuleExecutor virtual(String module, int maxConcurrency, MeterRegistry meterRegistry) {
+
+        var executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(module + "-vexec-", 0).factory());
+
+        return new ModuleExecutor(module, executor, new Semaphore(maxConcurrency), meterRegistry);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+
+        if (permits != null && !permits.tryAcquire()) {
+            reject();
+            return;
+        }
+
+        long submitted = System.nanoTime();
+
+        try {
+
+            executor.execute(() -> {
+
+                long started = System.nanoTime();
+                queueWait.record(started - submitted, TimeUnit.NANOSECONDS);
+                active.incrementAndGet();
+
+                try {
+                    task.run();
+                } finally {
+                    active.decrementAndGet();
+                    execution.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    if (permits != null) permits.release();
+                }
+            });
+
+        } catch (RejectedExecutionException e) {
+
+            if (permits != null) permits.release();
+            reject();
+        }
+    }
+
+    /**
+     * Not thrown to the publisher, it runs after its transaction committed and can't do anything about it. The listener
+     * never ran so the publication isn't marked completed, that is where the task is picked up again.
+     */
+    private void reject() {
+
+        rejected.increment();
+        log.warn("Executor of module {} is full, task dropped and left to the publication registry", module);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+
+        executor.shutdown();
+
+        if (!executor.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Executor of module {} didn't finish within {}s, remaining tasks stay incomplete publications", module, SHUTDOWN_GRACE_SECONDS);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.cdcrane.ekkochatsrv.executors;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the executor of a module from {@code executors.<module>.*}, register it as a bean and point the module's
+ * listeners at it with {@code @Async("<bean name>")} next to {@code @ApplicationModuleListener}.
+ * <p>
+ * A task the executor has no room for is dropped instead of blocking or running on the publishing thread. Its event
+ * publication then stays incomplete and is retried from the publication registry, see {@link PublicationResubmitter}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ModuleExecutors {
+
+    private final Environment env;
+    private final MeterRegistry meterRegistry;
+
+    public TaskExecutor create(String module) {
+
+        String prefix = "executors." + module + ".";
+        String type = env.getProperty(prefix + "type", "pool");
+
+        return switch (type) {
+            case "pool" -> ModuleExecutor.pool(module,
+                    env.getRequiredProperty(prefix + "threads", Integer.class),
+                    env.getRequiredProperty(prefix + "queue_capacity", Integer.class),
+                    meterRegistry);
+            case "virtual" -> ModuleExecutor.virtual(module,
+                    env.getRequiredProperty(prefix + "max_concurrency", Integer.class),
+                    meterRegistry);
+            default -> throw new IllegalStateException("Unknown executor type '" + type + "' for module " + module + ", use pool or virtual.");
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package com.cdcrane.ekkochatsrv.executors;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.modulith.events.IncompleteEventPublications;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Redelivers event publications whose listener never completed, tasks a full executor dropped and listeners that failed.
+ * Only old enough ones, so work still sitting in a queue isn't delivered twice.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class PublicationResubmitter {
+
+    private final IncompleteEventPublications incompletePublications;
+
+    @Value("${executors.resubmit_after_ms}")
+    private long resubmitAfterMs;
+
+    @Scheduled(fixedDelayString = "${executors.resubmit_interval_ms}", initialDelayString = "${executors.resubmit_interval_ms}")
+    void resubmit() {
+
+        try {
+            incompletePublications.resubmitIncompletePublicationsOlderThan(Duration.ofMillis(resubmitAfterMs));
+        } catch (Exception e) {
+            log.warn("Resubmitting incomplete event publications failed, trying again next round", e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.cdcrane.ekkochatsrv.keys;
+
+import org.springframework.modulith.ApplicationModule;
+
+/**
+ * Key directory for the E2EE chat mode. The server only stores what the client uploads, it can't read any private key.
+ * Other modules should not depend on the 'internal' or 'web' submodules.
+ */
+@ApplicationModule
+public class KeysModule {
+}
@@ -0,0 +1,22 @@
+package com.cdcrane.ekkochatsrv.keys.api;
+
+import com.cdcrane.ekkochatsrv.keys.dto.KeyBundleDTO;
+import com.cdcrane.ekkochatsrv.keys.dto.PublicKeysResponse;
+import com.cdcrane.ekkochatsrv.keys.dto.UploadKeyBundleRequest;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface KeyDirectoryUseCase {
+
+    KeyBundleDTO uploadKeyBundle(UUID userId, UploadKeyBundleRequest request);
+
+    KeyBundleDTO getOwnKeyBundle(UUID userId);
+
+    PublicKeysResponse getPublicKeys(List<UUID> userIds);
+
+    /**
+     * Strong validator for a getPublicKeys response, changes whenever any of the requested users uploads a new bundle.
+     */
+    String publicKeysETag(PublicKeysResponse response);
+}
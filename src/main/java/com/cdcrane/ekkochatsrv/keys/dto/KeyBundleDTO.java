@@ -0,0 +1,10 @@
+package com.cdcrane.ekkochatsrv.keys.dto;
+
+import java.util.Date;
+import java.util.UUID;
+
+public record KeyBundleDTO(UUID userId, String publicKey,
+                           String encryptedPrivateKey, String encryptedKek,
+                           String kdfSalt, String kdfParams,
+                           Integer keyVersion, Date updatedAt) {
+}
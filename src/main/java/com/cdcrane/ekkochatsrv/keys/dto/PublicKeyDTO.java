@@ -0,0 +1,6 @@
+package com.cdcrane.ekkochatsrv.keys.dto;
+
+import java.util.UUID;
+
+public record PublicKeyDTO(UUID userId, String publicKey, Integer keyVersion) {
+}
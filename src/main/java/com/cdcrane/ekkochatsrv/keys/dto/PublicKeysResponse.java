@@ -0,0 +1,11 @@
+package com.cdcrane.ekkochatsrv.keys.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * @param keys Public keys in the order the ids were requested.
+ * @param missing Requested users that haven't uploaded a key bundle yet.
+ */
+public record PublicKeysResponse(List<PublicKeyDTO> keys, List<UUID> missing) {
+}
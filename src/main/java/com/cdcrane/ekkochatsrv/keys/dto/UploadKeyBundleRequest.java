@@ -0,0 +1,14 @@
+package com.cdcrane.ekkochatsrv.keys.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Everything is encoded by the client, the private key and KEK are already encrypted before they get here.
+ */
+public record UploadKeyBundleRequest(@NotBlank @Size(max = 8192) String publicKey,
+                                     @NotBlank @Size(max = 16384) String encryptedPrivateKey,
+                                     @NotBlank @Size(max = 4096) String encryptedKek,
+                                     @NotBlank @Size(max = 255) String kdfSalt,
+                                     @NotBlank @Size(max = 2048) String kdfParams) {
+}
@@ -0,0 +1,4 @@
+@NamedInterface("dto")
+package com.cdcrane.ekkochatsrv.keys.dto;
+
+import org.springframework.modulith.NamedInterface;
@@ -0,0 +1,7 @@
+package com.cdcrane.ekkochatsrv.keys.exceptions;
+
+public class InvalidKeyRequestException extends RuntimeException {
+    public InvalidKeyRequestException(String message) {
+        super(message);
+    }
+}
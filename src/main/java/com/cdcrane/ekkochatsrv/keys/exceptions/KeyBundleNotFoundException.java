@@ -0,0 +1,7 @@
+package com.cdcrane.ekkochatsrv.keys.exceptions;
+
+public class KeyBundleNotFoundException extends RuntimeException {
+    public KeyBundleNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,139 @@
+package com.cdcrane.ekkochatsrv.keys.internal;
+
+import com.cdcrane.ekkochatsrv.keys.api.KeyDirectoryUseCase;
+import com.cdcrane.ekkochatsrv.keys.dto.KeyBundleDTO;
+import com.cdcrane.ekkochatsrv.keys.dto.PublicKeyDTO;
+import com.cdcrane.ekkochatsrv.keys.dto.PublicKeysResponse;
+import com.cdcrane.ekkochatsrv.keys.dto.UploadKeyBundleRequest;
+import com.cdcrane.ekkochatsrv.keys.exceptions.InvalidKeyRequestException;
+import com.cdcrane.ekkochatsrv.keys.exceptions.KeyBundleNotFoundException;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+public class KeyDirectoryService implements KeyDirectoryUseCase {
+
+    private final UserKeyBundleRepository keyBundleRepo;
+    private final PublicKeyCache publicKeyCache;
+
+    @Value("${keys.max_batch_size}")
+    private int maxBatchSize;
+
+    @Override
+    @Transactional
+    public KeyBundleDTO uploadKeyBundle(UUID userId, UploadKeyBundleRequest request) {
+
+        // Locked so concurrent uploads take turns, each one gets its own key version and so its own ETag.
+        keyBundleRepo.insertIfAbsent(userId);
+        var bundle = keyBundleRepo.findForUpdate(userId);
+
+        bundle.setPublicKey(request.publicKey());
+        bundle.setEncryptedPrivateKey(request.encryptedPrivateKey());
+        bundle.setEncryptedKek(request.encryptedKek());
+        bundle.setKdfSalt(request.kdfSalt());
+        bundle.setKdfParams(request.kdfParams());
+        bundle.setKeyVersion(bundle.getKeyVersion() + 1);
+        bundle.setUpdatedAt(new Date());
+
+        var saved = keyBundleRepo.save(bundle);
+
+        publicKeyCache.invalidate(userId);
+
+        return toDto(saved);
+    }
+
+    @Override
+    public KeyBundleDTO getOwnKeyBundle(UUID userId) {
+
+        return keyBundleRepo.findById(userId)
+                .map(this::toDto)
+                .orElseThrow(() -> new KeyBundleNotFoundException("No key bundle uploaded for user: " + userId));
+    }
+
+    @Override
+    public PublicKeysResponse getPublicKeys(List<UUID> userIds) {
+
+        if (userIds.isEmpty() || userIds.size() > maxBatchSize) {
+            throw new InvalidKeyRequestException("Between 1 and " + maxBatchSize + " user ids can be requested at once.");
+        }
+
+        Map<UUID, PublicKeyDTO> found = new HashMap<>();
+        Set<UUID> misses = new HashSet<>();
+
+        for (UUID userId : userIds) {
+
+            var cached = publicKeyCache.get(userId);
+
+            if (cached != null) {
+                found.put(userId, cached);
+            } else {
+                misses.add(userId);
+            }
+        }
+
+        // One query for everything the cache didn't have.
+        if (!misses.isEmpty()) {
+            for (var key : keyBundleRepo.findPublicKeys(misses)) {
+                publicKeyCache.put(key);
+                found.put(key.userId(), key);
+            }
+        }
+
+        List<PublicKeyDTO> keys = new ArrayList<>(found.size());
+        List<UUID> missing = new ArrayList<>();
+        Set<UUID> seen = new HashSet<>();
+
+        for (UUID userId : userIds) {
+
+            if (!seen.add(userId)) continue;
+
+            var key = found.get(userId);
+
+            if (key != null) {
+                keys.add(key);
+            } else {
+                missing.add(userId);
+            }
+        }
+
+        return new PublicKeysResponse(keys, missing);
+    }
+
+    @Override
+    public String publicKeysETag(PublicKeysResponse response) {
+
+        try {
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+            for (var key : response.keys()) {
+                digest.update((key.userId() + ":" + key.keyVersion() + ";").getBytes(StandardCharsets.UTF_8));
+            }
+
+            for (var userId : response.missing()) {
+                digest.update((userId + ":-;").getBytes(StandardCharsets.UTF_8));
+            }
+
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Hash type for key ETags is wrong!");
+        }
+    }
+
+    private KeyBundleDTO toDto(UserKeyBundle b) {
+
+        return new KeyBundleDTO(b.getUserId(), b.getPublicKey(),
+                b.getEncryptedPrivateKey(), b.getEncryptedKek(),
+                b.getKdfSalt(), b.getKdfParams(),
+                b.getKeyVersion(), b.getUpdatedAt());
+    }
+}
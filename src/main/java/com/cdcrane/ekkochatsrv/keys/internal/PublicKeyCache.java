@@ -0,0 +1,41 @@
+package com.cdcrane.ekkochatsrv.keys.internal;
+
+import com.cdcrane.ekkochatsrv.keys.dto.PublicKeyDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Recently requested public keys, bounded by size. Uploads on this node invalidate straight away,
+ * the TTL bounds how long another node can serve a key that was replaced elsewhere.
+ */
+@Component
+class PublicKeyCache {
+
+    // Read before every encrypted send, Caffeine reads don't take a lock like an access ordered map would.
+    private final Cache<UUID, PublicKeyDTO> entries;
+
+    PublicKeyCache(@Value("${keys.cache.max_entries}") int maxEntries, @Value("${keys.cache.ttl_ms}") long ttlMs) {
+
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+    }
+
+    PublicKeyDTO get(UUID userId) {
+        return entries.getIfPresent(userId);
+    }
+
+    void put(PublicKeyDTO key) {
+        entries.put(key.userId(), key);
+    }
+
+    void invalidate(UUID userId) {
+        entries.invalidate(userId);
+    }
+}
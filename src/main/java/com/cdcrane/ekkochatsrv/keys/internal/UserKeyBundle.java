@@ -0,0 +1,42 @@
+package com.cdcrane.ekkochatsrv.keys.internal;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.UUID;
+
+@Entity
+@Table(name = "user_key_bundles")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserKeyBundle {
+
+    // Same id as the ApplicationUser the bundle belongs to.
+    @Id
+    private UUID userId;
+
+    @Column(columnDefinition = "text")
+    private String publicKey;
+
+    @Column(columnDefinition = "text")
+    private String encryptedPrivateKey;
+
+    @Column(columnDefinition = "text")
+    private String encryptedKek;
+
+    private String kdfSalt;
+
+    @Column(columnDefinition = "text")
+    private String kdfParams;
+
+    // Bumped on every upload, clients and the ETag use it to notice key changes.
+    private Integer keyVersion;
+
+    private Date updatedAt;
+}
@@ -0,0 +1,30 @@
+package com.cdcrane.ekkochatsrv.keys.internal;
+
+import com.cdcrane.ekkochatsrv.keys.dto.PublicKeyDTO;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface UserKeyBundleRepository extends JpaRepository<UserKeyBundle, UUID> {
+
+    // Only the public columns, the encrypted private material is never needed for this.
+    @Query("SELECT new com.cdcrane.ekkochatsrv.keys.dto.PublicKeyDTO(k.userId, k.publicKey, k.keyVersion) FROM UserKeyBundle k WHERE k.userId IN ?1")
+    List<PublicKeyDTO> findPublicKeys(Collection<UUID> userIds);
+
+    // Gives a first upload a row to lock, concurrent first uploads would otherwise both insert.
+    @Modifying
+    @Query(value = "INSERT INTO user_key_bundles (user_id, key_version) VALUES (?1, 0) ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(UUID userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT k FROM UserKeyBundle k WHERE k.userId = ?1")
+    UserKeyBundle findForUpdate(UUID userId);
+}
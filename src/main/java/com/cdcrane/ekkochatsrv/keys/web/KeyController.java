@@ -0,0 +1,63 @@
+package com.cdcrane.ekkochatsrv.keys.web;
+
+import com.cdcrane.ekkochatsrv.keys.api.KeyDirectoryUseCase;
+import com.cdcrane.ekkochatsrv.keys.dto.KeyBundleDTO;
+import com.cdcrane.ekkochatsrv.keys.dto.PublicKeysResponse;
+import com.cdcrane.ekkochatsrv.keys.dto.UploadKeyBundleRequest;
+import com.cdcrane.ekkochatsrv.users.principal.EkkoUserPrincipal;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/keys")
+@RequiredArgsConstructor
+public class KeyController {
+
+    private final KeyDirectoryUseCase keyDirectoryUseCase;
+
+    @PutMapping("/me")
+    public ResponseEntity<KeyBundleDTO> uploadKeyBundle(@AuthenticationPrincipal EkkoUserPrincipal principal,
+                                                        @RequestBody @Valid UploadKeyBundleRequest req) {
+
+        return ResponseEntity.ok(keyDirectoryUseCase.uploadKeyBundle(principal.getUserId(), req));
+    }
+
+    @GetMapping("/me")
+    public ResponseEntity<KeyBundleDTO> getOwnKeyBundle(@AuthenticationPrincipal EkkoUserPrincipal principal) {
+
+        // Holds the encrypted private key, so never let anything between us and the client keep it.
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(keyDirectoryUseCase.getOwnKeyBundle(principal.getUserId()));
+    }
+
+    /**
+     * Clients call this before every encrypted send, so it answers with a strong ETag and
+     * a 304 without a body when none of the requested keys changed since the client last asked.
+     * Kept a GET for that, a POST can't be answered with 304, so the batch size is capped to fit the query string.
+     */
+    @GetMapping("/public")
+    public ResponseEntity<PublicKeysResponse> getPublicKeys(@RequestParam List<UUID> ids, WebRequest request) {
+
+        var keys = keyDirectoryUseCase.getPublicKeys(ids);
+        var etag = keyDirectoryUseCase.publicKeysETag(keys);
+
+        // Private so shared caches skip it, no-cache so the client always revalidates and sees rotated keys.
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(keys);
+    }
+}
@@ -0,0 +1,10 @@
+package com.cdcrane.ekkochatsrv.notifications;
+
+import org.springframework.modulith.ApplicationModule;
+
+/**
+ * Other modules should only depend on the 'api' submodule.
+ */
+@ApplicationModule
+public class NotificationsModule {
+}
@@ -0,0 +1,37 @@
+package com.cdcrane.ekkochatsrv.notifications.api;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived events (typing, seen, new messages) pushed straight to the cluster bus, never through the event publication
+ * registry. Nothing here is persisted, a lost event is simply replaced by the next one, or caught up on by sync.
+ */
+public interface EphemeralEventUseCase {
+
+    /**
+     * Tells the recipients the user is typing. Repeats within half the typing TTL are dropped, the recipients are only
+     * looked up when the event is actually sent.
+     * @return False if the event was coalesced into one sent earlier.
+     */
+    boolean typing(UUID conversationId, UUID userId, Supplier<? extends Collection<UUID>> recipientIds);
+
+    /**
+     * Tells the recipients how far the user has read.
+     */
+    void readReceipt(UUID conversationId, UUID userId, long lastReadMessageId, Collection<UUID> recipientIds);
+
+    /**
+     * Tells the recipients that a conversation has new messages to pull, one push for a whole batch of them.
+     * Used for large groups, where pushing every message to every member would cost more than the messages.
+     */
+    void conversationActivity(UUID conversationId, long lastMessageId, int newMessages, Collection<UUID> recipientIds);
+
+    /**
+     * Pushes a committed message to the members' live connections, the sender's other devices included. Only ids go
+     * out, a client that misses it finds the message through sync.
+     */
+    void messageCreated(UUID conversationId, long messageId, UUID senderId, Date createdAt, Collection<UUID> recipientIds);
+}
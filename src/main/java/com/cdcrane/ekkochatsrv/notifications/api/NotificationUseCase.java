@@ -0,0 +1,19 @@
+package com.cdcrane.ekkochatsrv.notifications.api;
+
+import java.util.Collection;
+import java.util.UUID;
+
+public interface NotificationUseCase {
+
+    /**
+     * Queues the payload on every live connection of the user held by this node, never blocks on the socket.
+     */
+    void sendToUser(UUID userId, String payload);
+
+    /**
+     * Same as sendToUser, but the payload is only encoded once for every recipient.
+     */
+    void sendToUsers(Collection<UUID> userIds, String payload);
+
+    boolean isConnected(UUID userId);
+}
@@ -0,0 +1,10 @@
+package com.cdcrane.ekkochatsrv.notifications.events;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Publish this from any module to push a JSON payload to every live connection of the recipients, on whichever node they are.
+ */
+public record UserNotificationEvent(Collection<UUID> recipientIds, String payload) {
+}
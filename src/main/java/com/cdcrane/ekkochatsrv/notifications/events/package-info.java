@@ -0,0 +1,4 @@
+@NamedInterface("events")
+package com.cdcrane.ekkochatsrv.notifications.events;
+
+import org.springframework.modulith.NamedInterface;
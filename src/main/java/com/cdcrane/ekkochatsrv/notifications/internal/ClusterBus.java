@@ -0,0 +1,12 @@
+package com.cdcrane.ekkochatsrv.notifications.internal;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Gets notifications to the node(s) holding the recipients' connections.
+ */
+interface ClusterBus {
+
+    void publish(Collection<UUID> userIds, String payload);
+}
@@ -0,0 +1,116 @@
+package com.cdcrane.ekkochatsrv.notifications.internal;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live connections on this node by user id. Most users have one device connected,
+ * so the value is a small copy-on-write array instead of a set per user.
+ */
+@Component
+class ConnectionRegistry {
+
+    private static final NotificationConnection[] NONE = new NotificationConnection[0];
+
+    private final ConcurrentHashMap<UUID, NotificationConnection[]> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    // Users whose first connection opened or last connection closed, only collected when a cluster bus needs routes.
+    private final Set<UUID> routeChanges = ConcurrentHashMap.newKeySet();
+    private volatile boolean trackRouteChanges;
+
+    void register(NotificationConnection connection) {
+
+        connections.compute(connection.userId(), (id, existing) -> {
+
+            if (existing == null) {
+                if (trackRouteChanges) routeChanges.add(id);
+                return new NotificationConnection[]{connection};
+            }
+
+            var extended = Arrays.copyOf(existing, existing.length + 1);
+            extended[existing.length] = connection;
+            return extended;
+        });
+
+        connectionCount.incrementAndGet();
+    }
+
+    void unregister(NotificationConnection connection) {
+
+        connections.computeIfPresent(connection.userId(), (id, existing) -> {
+
+            int index = -1;
+            for (int i = 0; i < existing.length; i++) {
+                if (existing[i] == connection) {
+                    index = i;
+                    break;
+                }
+            }
+
+            if (index < 0) return existing;
+
+            connectionCount.decrementAndGet();
+
+            if (existing.length == 1) {
+                if (trackRouteChanges) routeChanges.add(id);
+                return null;
+            }
+
+            var reduced = new NotificationConnection[existing.length - 1];
+            System.arraycopy(existing, 0, reduced, 0, index);
+            System.arraycopy(existing, index + 1, reduced, index, existing.length - index - 1);
+            return reduced;
+        });
+    }
+
+    NotificationConnection[] connectionsOf(UUID userId) {
+
+        var found = connections.get(userId);
+
+        return found != null ? found : NONE;
+    }
+
+    boolean isConnected(UUID userId) {
+        return connections.containsKey(userId);
+    }
+
+    Set<UUID> connectedUsers() {
+        return connections.keySet();
+    }
+
+    void enableRouteTracking() {
+
+        trackRouteChanges = true;
+        routeChanges.addAll(connections.keySet());
+    }
+
+    /**
+     * @return Every user whose connected state changed since the last call, check isConnected for the current state.
+     */
+    Set<UUID> drainRouteChanges() {
+
+        Set<UUID> drained = new HashSet<>();
+
+        for (var it = routeChanges.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+
+        return drained;
+    }
+
+    int connectionCount() {
+        return connectionCount.get();
+    }
+
+    int userCount() {
+        return connections.size();
+    }
+}
@@ -0,0 +1,127 @@
+package com.cdcrane.ekkochatsrv.notifications.internal;
+
+import com.cdcrane.ekkochatsrv.notifications.api.EphemeralEventUseCase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Ephemeral events skip the durable UserNotificationEvent path and go to the cluster bus directly, they would be
+ * worthless by the time a republished event got delivered anyway.
+ * <p>
+ * Typing is coalesced per (conversation, user): clients show the indicator for the TTL sent with it, so re-sending
+ * once half of it has passed keeps it up while the user keeps typing, and everything in between is dropped.
+ */
+@Service
+public class EphemeralEventService implements EphemeralEventUseCase {
+
+    private final ClusterBus clusterBus;
+    private final JsonMapper jsonMapper;
+
+    // When each (conversation, user) pair last had a typing event sent, in System.nanoTime().
+    private final ConcurrentHashMap<TypingKey, Long> lastTypingSent = new ConcurrentHashMap<>();
+
+    @Value("${notifications.ephemeral.typing_ttl_ms}")
+    private long typingTtlMs;
+
+    EphemeralEventService(ClusterBus clusterBus, JsonMapper jsonMapper) {
+        this.clusterBus = clusterBus;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public boolean typing(UUID conversationId, UUID userId, Supplier<? extends Collection<UUID>> recipientIds) {
+
+        long now = System.nanoTime();
+        long resendAfterNanos = typingTtlMs * 500_000;
+        var key = new TypingKey(conversationId, userId);
+
+        // Only the caller that manages to swap in its timestamp sends, concurrent repeats see the fresh one and drop out.
+        boolean[] send = new boolean[1];
+
+        lastTypingSent.compute(key, (k, last) -> {
+            if (last != null && now - last < resendAfterNanos) return last;
+            send[0] = true;
+            return now;
+        });
+
+        if (!send[0]) return false;
+
+        var recipients = withoutUser(recipientIds.get(), userId);
+
+        if (!recipients.isEmpty()) {
+            clusterBus.publish(recipients, jsonMapper.writeValueAsString(
+                    new TypingNotification("conversation.typing", conversationId, userId, typingTtlMs)));
+        }
+
+        return true;
+    }
+
+    @Override
+    public void readReceipt(UUID conversationId, UUID userId, long lastReadMessageId, Collection<UUID> recipientIds) {
+
+        var recipients = withoutUser(recipientIds, userId);
+
+        if (recipients.isEmpty()) return;
+
+        clusterBus.publish(recipients, jsonMapper.writeValueAsString(
+                new ReadReceiptNotification("conversation.read", conversationId, userId, lastReadMessageId)));
+    }
+
+    @Override
+    public void conversationActivity(UUID conversationId, long lastMessageId, int newMessages, Collection<UUID> recipientIds) {
+
+        if (recipientIds.isEmpty()) return;
+
+        // Encoded once, the bus hands every node the same payload and each node queues it on its own connections.
+        clusterBus.publish(recipientIds, jsonMapper.writeValueAsString(
+                new ActivityNotification("conversation.activity", conversationId, lastMessageId, newMessages)));
+    }
+
+    @Override
+    public void messageCreated(UUID conversationId, long messageId, UUID senderId, Date createdAt, Collection<UUID> recipientIds) {
+
+        if (recipientIds.isEmpty()) return;
+
+        clusterBus.publish(recipientIds, jsonMapper.writeValueAsString(
+                new MessageNotification("message.created", messageId, conversationId, senderId, createdAt)));
+    }
+
+    /**
+     * Forgets pairs that stopped typing, so the map only holds users typing right now.
+     */
+    @Scheduled(fixedDelayString = "${notifications.ephemeral.typing_ttl_ms}")
+    void purgeExpiredTyping() {
+
+        long cutoff = System.nanoTime() - typingTtlMs * 1_000_000;
+
+        lastTypingSent.values().removeIf(sentAt -> sentAt - cutoff < 0);
+    }
+
+    private List<UUID> withoutUser(Collection<UUID> userIds, UUID userId) {
+        return userIds.stream().filter(id -> !id.equals(userId)).toList();
+    }
+
+    private record TypingKey(UUID conversationId, UUID userId) {
+    }
+
+    record TypingNotification(String type, UUID conversationId, UUID userId, long ttlMs) {
+    }
+
+    record ActivityNotification(String type, UUID conversationId, long lastMessageId, int newMessages) {
+    }
+
+    record ReadReceiptNotification(String type, UUID conversationId, UUID userId, long lastReadMessageId) {
+    }
+
+    record MessageNotification(String type, long messageId, UUID conversationId, UUID senderId, Date createdAt) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.cdcrane.ekkochatsrv.notifications.internal;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Single node bus, delivers straight to this node's connections. Used for tests and single instance deployments.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.bus.type", havingValue = "in-process", matchIfMissing = true)
+@RequiredArgsConstructor
+class InProcessClusterBus implements ClusterBus {
+
+    private final NotificationService notificationService;
+
+    @Override
+    public void publish(Collection<UUID> userIds, String payload) {
+        notificationService.sendToUsers(userIds, payload);
+    }
+}
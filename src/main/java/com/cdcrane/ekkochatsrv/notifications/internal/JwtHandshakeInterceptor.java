@@ -0,0 +1,87 @@
+package com.cdcrane.ekkochatsrv.notifications.internal;
+
+import com.cdcrane.ekkochatsrv.auth.api.JwtUseCase;
+import com.cdcrane.ekkochatsrv.auth.enums.JwtTypes;
+import com.cdcrane.ekkochatsrv.auth.enums.NamedJwtClaims;
+import com.cdcrane.ekkochatsrv.auth.exceptions.BadJwtException;
+import com.cdcrane.ekkochatsrv.users.principal.EkkoUserPrincipal;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Authenticates the websocket upgrade with the same access JWT as the REST API.
+ * Browsers can't set headers on a websocket, so the token may also be passed as the 'access_token' query parameter.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    static final String PRINCIPAL_ATTRIBUTE = "ekkoPrincipal";
+
+    private static final String BEARER = "Bearer ";
+
+    private final JwtUseCase jwtService;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler, Map<String, Object> attributes) {
+
+        String token = extractToken(request);
+
+        if (token == null) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        try {
+
+            Claims claims = jwtService.verifyAccessJwt(token);
+
+            if (!JwtTypes.ACCESS.name().equals(claims.get(NamedJwtClaims.TYPE.name(), String.class))) {
+                response.setStatusCode(HttpStatus.UNAUTHORIZED);
+                return false;
+            }
+
+            UUID userId = UUID.fromString(claims.get(NamedJwtClaims.USERID.name(), String.class));
+            String username = claims.get(NamedJwtClaims.USERNAME.name(), String.class);
+            var authorities = AuthorityUtils.commaSeparatedStringToAuthorityList(claims.get(NamedJwtClaims.AUTHORITIES.name(), String.class));
+
+            attributes.put(PRINCIPAL_ATTRIBUTE, new EkkoUserPrincipal(userId, username, null, authorities, true));
+
+            return true;
+
+        } catch (BadJwtException | IllegalArgumentException e) {
+
+            log.debug("Rejected websocket handshake: {}", e.getMessage());
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private String extractToken(ServerHttpRequest request) {
+
+        String header = request.getHeaders().getFirst("Authorization");
+
+        if (header != null && header.startsWith(BEARER)) {
+            return header.substring(BEARER.length());
+        }
+
+        return UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("access_token");
+    }
+}
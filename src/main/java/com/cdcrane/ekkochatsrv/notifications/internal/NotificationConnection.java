@@ -0,0 +1,111 @@
+package com.cdcrane.ekkochatsrv.notifications.internal;
+
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.UUID;
+
+/**
+ * One live socket. Kept deliberately small since a node holds a lot of them while they are idle:
+ * the outbound queue only exists while there is something to send, and all state is guarded by this object's monitor.
+ */
+final class NotificationConnection {
+
+    private final WebSocketSession session;
+    private final UUID userId;
+
+    private ArrayDeque<TextMessage> queue;
+    private boolean draining;
+    private boolean closing;
+    private int dropped;
+
+    NotificationConnection(WebSocketSession session, UUID userId) {
+        this.session = session;
+        this.userId = userId;
+    }
+
+    WebSocketSession session() {
+        return session;
+    }
+
+    UUID userId() {
+        return userId;
+    }
+
+    /**
+     * Adds the message to the outbound queue, applying the policy if the queue is full.
+     */
+    synchronized EnqueueResult enqueue(TextMessage message, int capacity, SlowConsumerPolicy policy) {
+
+        if (closing) return EnqueueResult.CLOSED;
+
+        if (queue == null) {
+            queue = new ArrayDeque<>(Math.min(capacity, 8));
+        }
+
+        EnqueueResult result = EnqueueResult.QUEUED;
+
+        if (queue.size() >= capacity) {
+
+            switch (policy) {
+                case DROP_NEWEST -> {
+                    dropped++;
+                    return EnqueueResult.DROPPED;
+                }
+                case DROP_OLDEST -> {
+                    queue.pollFirst();
+                    dropped++;
+                    result = EnqueueResult.DROPPED;
+                }
+                case DISCONNECT -> {
+                    closing = true;
+                    queue = null;
+                    return EnqueueResult.DISCONNECT;
+                }
+            }
+        }
+
+        queue.addLast(message);
+
+        if (!draining) {
+            draining = true;
+            return result == EnqueueResult.QUEUED ? EnqueueResult.SCHEDULE_DRAIN : EnqueueResult.DROPPED_SCHEDULE_DRAIN;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The next message to send, or null after which the connection is no longer draining.
+     */
+    synchronized TextMessage next() {
+
+        TextMessage next = (queue == null || closing) ? null : queue.pollFirst();
+
+        if (next == null) {
+            queue = null; // Let the idle connection drop back to its minimum size.
+            draining = false;
+        }
+
+        return next;
+    }
+
+    synchronized void markClosing() {
+        closing = true;
+        queue = null;
+    }
+
+    synchronized int dropped() {
+        return dropped;
+    }
+
+    enum EnqueueResult {
+        QUEUED,
+        SCHEDULE_DRAIN,
+        DROPPED,
+        DROPPED_SCHEDULE_DRAIN,
+        DISCONNECT,
+        CLOSED
+    }
+}
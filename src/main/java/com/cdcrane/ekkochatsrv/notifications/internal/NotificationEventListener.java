@@ -0,0 +1,22 @@
+package com.cdcrane.ekkochatsrv.notifications.internal;
+
+import com.cdcrane.ekkochatsrv.notifications.events.UserNotificationEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.modulith.events.ApplicationModuleListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+class NotificationEventListener {
+
+    private final ClusterBus clusterBus;
+
+    @ApplicationModuleListener
+    @Async(NotificationsExecutorConfig.EXECUTOR)
+    public void publishToRecipients(UserNotificationEvent e) {
+
+        clusterBus.publish(e.recipientIds(), e.payload());
+
+    }
+}
@@ -0,0 +1,29 @@
+package com.cdcrane.ekkochatsrv.notifications.internal;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * A running node of the postgres cluster bus, routes to nodes that stopped heartbeating are ignored and purged.
+ */
+@Entity
+@Table(name = "notification_nodes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationNode {
+
+    @Id
+    private UUID nodeId;
+
+    private Date heartbeatAt;
+}
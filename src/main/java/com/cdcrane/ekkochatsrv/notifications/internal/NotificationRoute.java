@@ -0,0 +1,43 @@
+package com.cdcrane.ekkochatsrv.notifications.internal;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Which node holds at least one live connection of a user.
+ */
+@Entity
+@Table(name = "notification_routes")
+@IdClass(NotificationRoute.RouteId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationRoute {
+
+    @Id
+    private UUID userId;
+
+    @Id
+    private UUID nodeId;
+
+    private Date updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RouteId implements Serializable {
+        private UUID userId;
+        private UUID nodeId;
+    }
+}
@@ -0,0 +1,180 @@
+package com.cdcrane.ekkochatsrv.notifications.internal;
+
+import com.cdcrane.ekkochatsrv.notifications.api.NotificationUseCase;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans notifications out to the connections held by this node. Callers only ever touch the in-memory queues,
+ * the actual socket writes happen on a small sender pool, so a slow client can never block the publisher.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationService implements NotificationUseCase {
+
+    // Stop after this many messages so one busy connection can't hog a sender thread.
+    private static final int MAX_SENDS_PER_DRAIN = 32;
+
+    private final ConnectionRegistry registry;
+
+    @Value("${notifications.outbound.queue_capacity}")
+    private int queueCapacity;
+
+    @Value("${notifications.outbound.slow_consumer_policy}")
+    private SlowConsumerPolicy slowConsumerPolicy;
+
+    @Value("${notifications.outbound.sender_threads}")
+    private int senderThreads;
+
+    @Value("${notifications.outbound.slow_send_threshold_ms}")
+    private long slowSendThresholdMs;
+
+    private ExecutorService senders;
+
+    private final AtomicLong droppedMessages = new AtomicLong();
+    private final AtomicLong slowConsumerDisconnects = new AtomicLong();
+    private final AtomicLong slowSends = new AtomicLong();
+
+    @PostConstruct
+    private void startSenders() {
+
+        var threadNumber = new AtomicInteger();
+
+        senders = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread t = new Thread(r, "ws-sender-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    private void stopSenders() {
+        senders.shutdownNow();
+    }
+
+    @Override
+    public void sendToUser(UUID userId, String payload) {
+
+        var connections = registry.connectionsOf(userId);
+
+        if (connections.length == 0) return;
+
+        var message = new TextMessage(payload);
+
+        for (var connection : connections) {
+            enqueue(connection, message);
+        }
+    }
+
+    @Override
+    public void sendToUsers(Collection<UUID> userIds, String payload) {
+
+        TextMessage message = null;
+
+        for (UUID userId : userIds) {
+
+            var connections = registry.connectionsOf(userId);
+
+            if (connections.length == 0) continue;
+
+            if (message == null) message = new TextMessage(payload);
+
+            for (var connection : connections) {
+                enqueue(connection, message);
+            }
+        }
+    }
+
+    @Override
+    public boolean isConnected(UUID userId) {
+        return registry.isConnected(userId);
+    }
+
+    void enqueue(NotificationConnection connection, TextMessage message) {
+
+        switch (connection.enqueue(message, queueCapacity, slowConsumerPolicy)) {
+            case SCHEDULE_DRAIN -> senders.execute(() -> drain(connection));
+            case DROPPED -> droppedMessages.incrementAndGet();
+            case DROPPED_SCHEDULE_DRAIN -> {
+                droppedMessages.incrementAndGet();
+                senders.execute(() -> drain(connection));
+            }
+            case DISCONNECT -> {
+                slowConsumerDisconnects.incrementAndGet();
+                log.info("Disconnecting slow consumer {} after its outbound queue filled up.", connection.userId());
+                senders.execute(() -> close(connection, CloseStatus.SESSION_NOT_RELIABLE));
+            }
+            case QUEUED, CLOSED -> {
+            }
+        }
+    }
+
+    private void drain(NotificationConnection connection) {
+
+        for (int sent = 0; sent < MAX_SENDS_PER_DRAIN; sent++) {
+
+            TextMessage next = connection.next();
+
+            if (next == null) return;
+
+            long start = System.nanoTime();
+
+            try {
+
+                connection.session().sendMessage(next);
+
+            } catch (IOException | IllegalStateException e) {
+
+                log.debug("Send to {} failed, closing connection: {}", connection.userId(), e.getMessage());
+                close(connection, CloseStatus.SERVER_ERROR);
+                return;
+            }
+
+            if ((System.nanoTime() - start) / 1_000_000 > slowSendThresholdMs) {
+                slowSends.incrementAndGet();
+            }
+        }
+
+        // Still draining, continue behind whatever else is waiting for a sender.
+        senders.execute(() -> drain(connection));
+    }
+
+    void close(NotificationConnection connection, CloseStatus status) {
+
+        connection.markClosing();
+        registry.unregister(connection);
+
+        try {
+            if (connection.session().isOpen()) connection.session().close(status);
+        } catch (IOException e) {
+            log.debug("Failed to close connection for {}: {}", connection.userId(), e.getMessage());
+        }
+    }
+
+    long droppedMessages() {
+        return droppedMessages.get();
+    }
+
+    long slowConsumerDisconnects() {
+        return slowConsumerDisconnects.get();
+    }
+
+    long slowSends() {
+        return slowSends.get();
+    }
+}
@@ -0,0 +1,92 @@
+package com.cdcrane.ekkochatsrv.notifications.internal;
+
+import com.cdcrane.ekkochatsrv.presence.api.PresenceUseCase;
+import com.cdcrane.ekkochatsrv.users.principal.EkkoUserPrincipal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+
+/**
+ * Notifications only flow from server to client, anything the client sends counts as a presence heartbeat.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class NotificationSocketHandler extends TextWebSocketHandler {
+
+    private static final String CONNECTION_ATTRIBUTE = "ekkoConnection";
+
+    // Tomcat specific, bounds how long a blocking send to a stalled client can hold a sender thread.
+    private static final String TOMCAT_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final ConnectionRegistry registry;
+    private final NotificationService notificationService;
+    private final PresenceUseCase presenceUseCase;
+
+    @Value("${notifications.websocket.send_timeout_ms}")
+    private long sendTimeoutMs;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+
+        var principal = (EkkoUserPrincipal) session.getAttributes().remove(JwtHandshakeInterceptor.PRINCIPAL_ATTRIBUTE);
+
+        if (principal == null) {
+            try {
+                session.close(CloseStatus.POLICY_VIOLATION);
+            } catch (IOException e) {
+                log.debug("Failed to close unauthenticated websocket: {}", e.getMessage());
+            }
+            return;
+        }
+
+        var nativeSession = session.getNativeSession(jakarta.websocket.Session.class);
+        if (nativeSession != null) {
+            nativeSession.getUserProperties().put(TOMCAT_SEND_TIMEOUT, sendTimeoutMs);
+        }
+
+        var connection = new NotificationConnection(session, principal.getUserId());
+
+        session.getAttributes().put(CONNECTION_ATTRIBUTE, connection);
+        registry.register(connection);
+        presenceUseCase.heartbeat(connection.userId());
+
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+
+        var connection = (NotificationConnection) session.getAttributes().get(CONNECTION_ATTRIBUTE);
+
+        if (connection != null) {
+            presenceUseCase.heartbeat(connection.userId());
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.debug("Websocket transport error: {}", exception.getMessage());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+
+        var connection = (NotificationConnection) session.getAttributes().remove(CONNECTION_ATTRIBUTE);
+
+        if (connection != null) {
+            connection.markClosing();
+            registry.unregister(connection);
+
+            if (!registry.isConnected(connection.userId())) {
+                presenceUseCase.markOffline(connection.userId());
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.cdcrane.ekkochatsrv.notifications.internal;
+
+import com.cdcrane.ekkochatsrv.executors.ModuleExecutors;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+
+@Configuration
+class NotificationsExecutorConfig {
+
+    static final String EXECUTOR = "notificationsExecutor";
+
+    @Bean(EXECUTOR)
+    TaskExecutor notificationsExecutor(ModuleExecutors moduleExecutors) {
+        return moduleExecutors.create("notifications");
+    }
+}
@@ -0,0 +1,316 @@
+package com.cdcrane.ekkochatsrv.notifications.internal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Cluster bus on top of postgres LISTEN/NOTIFY, so scaling out doesn't need a broker next to the database.
+ * <p>
+ * Every node listens on its own channel and keeps its connected users in notification_routes.
+ * Published notifications are buffered for a few milliseconds, coalesced per user, then each flush does one route
+ * lookup for all of them and a single round trip of pg_notify calls, one (or more, NOTIFY payloads are capped at 8000 bytes)
+ * per target node. Users connected to this node are delivered to directly.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.bus.type", havingValue = "postgres")
+@Slf4j
+class PostgresClusterBus implements ClusterBus {
+
+    private static final int MAX_NOTIFY_BYTES = 7900;
+
+    private final NotificationService notificationService;
+    private final ConnectionRegistry registry;
+    private final JdbcTemplate jdbc;
+    private final JsonMapper jsonMapper;
+
+    private final UUID nodeId = UUID.randomUUID();
+    private final String channel = "ekko_node_" + nodeId.toString().replace("-", "");
+    private final ConcurrentLinkedQueue<Outgoing> outgoing = new ConcurrentLinkedQueue<>();
+
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+
+    @Value("${spring.datasource.username}")
+    private String datasourceUsername;
+
+    @Value("${spring.datasource.password}")
+    private String datasourcePassword;
+
+    @Value("${notifications.bus.node_timeout_ms}")
+    private long nodeTimeoutMs;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    PostgresClusterBus(NotificationService notificationService, ConnectionRegistry registry, JdbcTemplate jdbc, JsonMapper jsonMapper) {
+        this.notificationService = notificationService;
+        this.registry = registry;
+        this.jdbc = jdbc;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @PostConstruct
+    private void start() {
+
+        heartbeat();
+        registry.enableRouteTracking();
+
+        running = true;
+        listenerThread = new Thread(this::listen, "cluster-bus-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+
+        log.info("Postgres cluster bus started, this node is {}", nodeId);
+    }
+
+    @PreDestroy
+    private void stop() {
+
+        running = false;
+        listenerThread.interrupt();
+
+        jdbc.update("DELETE FROM notification_routes WHERE node_id = ?", nodeId);
+        jdbc.update("DELETE FROM notification_nodes WHERE node_id = ?", nodeId);
+    }
+
+    @Override
+    public void publish(Collection<UUID> userIds, String payload) {
+
+        if (!userIds.isEmpty()) {
+            outgoing.add(new Outgoing(userIds, payload));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.bus.flush_interval_ms}")
+    void flushOutgoing() {
+
+        if (outgoing.isEmpty()) return;
+
+        // Coalesce everything published since the last flush per user, dropping exact duplicates.
+        Map<UUID, LinkedHashSet<String>> byUser = new HashMap<>();
+        Outgoing next;
+
+        while ((next = outgoing.poll()) != null) {
+            for (UUID userId : next.userIds()) {
+                byUser.computeIfAbsent(userId, id -> new LinkedHashSet<>(2)).add(next.payload());
+            }
+        }
+
+        for (var entry : byUser.entrySet()) {
+            if (registry.isConnected(entry.getKey())) {
+                entry.getValue().forEach(payload -> notificationService.sendToUser(entry.getKey(), payload));
+            }
+        }
+
+        Map<UUID, List<UUID>> usersByNode = remoteRoutes(byUser.keySet());
+
+        if (usersByNode.isEmpty()) return;
+
+        List<String> channels = new ArrayList<>();
+        List<String> payloads = new ArrayList<>();
+
+        for (var node : usersByNode.entrySet()) {
+            encodeForNode(node.getKey(), node.getValue(), byUser, channels, payloads);
+        }
+
+        notifyAll(channels, payloads);
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.bus.flush_interval_ms}")
+    void flushRouteChanges() {
+
+        Set<UUID> changed = registry.drainRouteChanges();
+
+        if (changed.isEmpty()) return;
+
+        List<Object[]> connected = new ArrayList<>();
+        List<Object[]> disconnected = new ArrayList<>();
+
+        for (UUID userId : changed) {
+            (registry.isConnected(userId) ? connected : disconnected).add(new Object[]{userId, nodeId});
+        }
+
+        if (!connected.isEmpty()) {
+            jdbc.batchUpdate("INSERT INTO notification_routes (user_id, node_id, updated_at) VALUES (?, ?, now()) " +
+                    "ON CONFLICT (user_id, node_id) DO UPDATE SET updated_at = now()", connected);
+        }
+
+        if (!disconnected.isEmpty()) {
+            jdbc.batchUpdate("DELETE FROM notification_routes WHERE user_id = ? AND node_id = ?", disconnected);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.bus.heartbeat_interval_ms}")
+    void heartbeat() {
+
+        jdbc.update("INSERT INTO notification_nodes (node_id, heartbeat_at) VALUES (?, now()) " +
+                "ON CONFLICT (node_id) DO UPDATE SET heartbeat_at = now()", nodeId);
+
+        // Any node can clean up after a node that died without deregistering. Heartbeats are written with the database
+        // clock, so the timeout is measured with it too, a skewed node clock can't purge live nodes.
+        jdbc.update("DELETE FROM notification_routes WHERE node_id IN " +
+                "(SELECT node_id FROM notification_nodes WHERE heartbeat_at < now() - ? * interval '1 millisecond')", nodeTimeoutMs);
+        jdbc.update("DELETE FROM notification_nodes WHERE heartbeat_at < now() - ? * interval '1 millisecond'", nodeTimeoutMs);
+    }
+
+    private Map<UUID, List<UUID>> remoteRoutes(Set<UUID> userIds) {
+
+        Map<UUID, List<UUID>> usersByNode = new HashMap<>();
+
+        jdbc.execute((ConnectionCallback<Void>) con -> {
+
+            try (PreparedStatement ps = con.prepareStatement(
+                    "SELECT r.user_id, r.node_id FROM notification_routes r JOIN notification_nodes n ON n.node_id = r.node_id " +
+                            "WHERE r.user_id = ANY(?) AND r.node_id <> ? AND n.heartbeat_at >= now() - ? * interval '1 millisecond'")) {
+
+                ps.setArray(1, con.createArrayOf("uuid", userIds.toArray()));
+                ps.setObject(2, nodeId);
+                ps.setLong(3, nodeTimeoutMs);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        usersByNode.computeIfAbsent(rs.getObject(2, UUID.class), id -> new ArrayList<>())
+                                .add(rs.getObject(1, UUID.class));
+                    }
+                }
+            }
+
+            return null;
+        });
+
+        return usersByNode;
+    }
+
+    private void encodeForNode(UUID node, List<UUID> users, Map<UUID, LinkedHashSet<String>> byUser,
+                               List<String> channels, List<String> payloads) {
+
+        String nodeChannel = "ekko_node_" + node.toString().replace("-", "");
+        List<UserBatch> batch = new ArrayList<>();
+        int batchBytes = 16;
+
+        for (UUID userId : users) {
+
+            var entry = new UserBatch(userId, List.copyOf(byUser.get(userId)));
+            int entryBytes = jsonMapper.writeValueAsString(entry).getBytes(StandardCharsets.UTF_8).length + 1;
+
+            if (entryBytes > MAX_NOTIFY_BYTES) {
+                log.warn("Dropping notifications for {}, they don't fit in a single NOTIFY payload.", userId);
+                continue;
+            }
+
+            if (batchBytes + entryBytes > MAX_NOTIFY_BYTES) {
+                channels.add(nodeChannel);
+                payloads.add(jsonMapper.writeValueAsString(new NodeBatch(batch)));
+                batch = new ArrayList<>();
+                batchBytes = 16;
+            }
+
+            batch.add(entry);
+            batchBytes += entryBytes;
+        }
+
+        if (!batch.isEmpty()) {
+            channels.add(nodeChannel);
+            payloads.add(jsonMapper.writeValueAsString(new NodeBatch(batch)));
+        }
+    }
+
+    private void notifyAll(List<String> channels, List<String> payloads) {
+
+        jdbc.execute((ConnectionCallback<Void>) con -> {
+
+            try (PreparedStatement ps = con.prepareStatement(
+                    "SELECT pg_notify(c, p) FROM unnest(?::text[], ?::text[]) AS t(c, p)")) {
+
+                ps.setArray(1, con.createArrayOf("text", channels.toArray()));
+                ps.setArray(2, con.createArrayOf("text", payloads.toArray()));
+                ps.execute();
+            }
+
+            return null;
+        });
+    }
+
+    /**
+     * Runs on its own thread with a dedicated connection, LISTEN needs a session that stays open.
+     */
+    private void listen() {
+
+        while (running) {
+
+            try (Connection con = DriverManager.getConnection(datasourceUrl, datasourceUsername, datasourcePassword)) {
+
+                try (Statement st = con.createStatement()) {
+                    st.execute("LISTEN " + channel);
+                }
+
+                PGConnection pg = con.unwrap(PGConnection.class);
+
+                while (running) {
+
+                    PGNotification[] notifications = pg.getNotifications(500);
+
+                    if (notifications == null) continue;
+
+                    for (PGNotification n : notifications) {
+                        deliver(n.getParameter());
+                    }
+                }
+
+            } catch (SQLException e) {
+
+                if (!running) return;
+
+                log.warn("Cluster bus listener lost its connection, reconnecting: {}", e.getMessage());
+
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void deliver(String payload) {
+
+        try {
+
+            NodeBatch batch = jsonMapper.readValue(payload, NodeBatch.class);
+
+            for (UserBatch user : batch.d()) {
+                for (String p : user.p()) {
+                    notificationService.sendToUser(user.u(), p);
+                }
+            }
+
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed cluster bus payload: {}", e.getMessage());
+        }
+    }
+
+    private record Outgoing(Collection<UUID> userIds, String payload) {
+    }
+
+    // Short field names, every byte counts against the NOTIFY payload limit.
+    record NodeBatch(List<UserBatch> d) {
+    }
+
+    record UserBatch(UUID u, List<String> p) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.cdcrane.ekkochatsrv.notifications.internal;
+
+/**
+ * What to do when a connection's outbound queue is full because the client can't keep up.
+ */
+public enum SlowConsumerPolicy {
+    DROP_OLDEST,
+    DROP_NEWEST,
+    DISCONNECT
+}
@@ -0,0 +1,54 @@
+package com.cdcrane.ekkochatsrv.notifications.internal;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    public static final String NOTIFICATIONS_PATH = "/ws/notifications";
+
+    private final NotificationSocketHandler handler;
+    private final JwtHandshakeInterceptor handshakeInterceptor;
+
+    @Value("${cors.allowed-origins}")
+    private String[] allowedOrigins;
+
+    @Value("${notifications.websocket.max_message_buffer_bytes}")
+    private int maxMessageBufferBytes;
+
+    @Value("${notifications.websocket.idle_timeout_ms}")
+    private long idleTimeoutMs;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+
+        registry.addHandler(handler, NOTIFICATIONS_PATH)
+                .addInterceptors(handshakeInterceptor)
+                .setAllowedOrigins(allowedOrigins);
+
+    }
+
+    /**
+     * The container allocates its read buffers per session, clients barely send anything,
+     * so keeping these small is what keeps idle connections cheap.
+     */
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+
+        var container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(maxMessageBufferBytes);
+        container.setMaxBinaryMessageBufferSize(maxMessageBufferBytes);
+        container.setMaxSessionIdleTimeout(idleTimeoutMs);
+
+        return container;
+    }
+}
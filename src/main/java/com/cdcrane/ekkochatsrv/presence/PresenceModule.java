@@ -0,0 +1,10 @@
+package com.cdcrane.ekkochatsrv.presence;
+
+import org.springframework.modulith.ApplicationModule;
+
+/**
+ * Other modules should not depend on the 'internal' or 'web' submodules.
+ */
+@ApplicationModule
+public class PresenceModule {
+}
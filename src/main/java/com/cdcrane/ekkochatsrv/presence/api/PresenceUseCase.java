@@ -0,0 +1,22 @@
+package com.cdcrane.ekkochatsrv.presence.api;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface PresenceUseCase {
+
+    /**
+     * Marks the user online until the presence TTL passes without another heartbeat.
+     */
+    void heartbeat(UUID userId);
+
+    void markOffline(UUID userId);
+
+    boolean isOnline(UUID userId);
+
+    /**
+     * @return The ids from the input that are currently online, in input order.
+     */
+    List<UUID> onlineAmong(Collection<UUID> userIds);
+}
@@ -0,0 +1,4 @@
+@NamedInterface("api")
+package com.cdcrane.ekkochatsrv.presence.api;
+
+import org.springframework.modulith.NamedInterface;
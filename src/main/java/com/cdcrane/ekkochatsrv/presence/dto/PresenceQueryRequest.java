@@ -0,0 +1,10 @@
+package com.cdcrane.ekkochatsrv.presence.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record PresenceQueryRequest(@NotNull @Size(max = 500, message = "At most 500 user ids can be queried at once.") List<@NotNull UUID> userIds) {
+}
@@ -0,0 +1,7 @@
+package com.cdcrane.ekkochatsrv.presence.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+public record PresenceQueryResponse(List<UUID> online) {
+}
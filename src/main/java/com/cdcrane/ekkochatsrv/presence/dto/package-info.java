@@ -0,0 +1,4 @@
+@NamedInterface("dto")
+package com.cdcrane.ekkochatsrv.presence.dto;
+
+import org.springframework.modulith.NamedInterface;
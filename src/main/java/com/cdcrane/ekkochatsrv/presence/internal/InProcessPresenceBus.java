@@ -0,0 +1,22 @@
+package com.cdcrane.ekkochatsrv.presence.internal;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Single node, every heartbeat already lands in the only presence table there is.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.bus.type", havingValue = "in-process", matchIfMissing = true)
+class InProcessPresenceBus implements PresenceBus {
+
+    @Override
+    public void publish(UUID userId, boolean online) {
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+    }
+}
@@ -0,0 +1,195 @@
+package com.cdcrane.ekkochatsrv.presence.internal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Presence over postgres LISTEN/NOTIFY, runs whenever the notifications cluster bus does.
+ * <p>
+ * Presence can't go through the notifications bus itself, notifications already depends on presence for its heartbeats.
+ * Every node listens on one shared channel. Local changes are coalesced per user, only the latest state survives until
+ * the next flush, and broadcast in as few NOTIFY payloads as fit. Receivers apply them to their own table with their
+ * own clock, so the TTL holds regardless of clock skew between nodes.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.bus.type", havingValue = "postgres")
+@Slf4j
+class PostgresPresenceBus implements PresenceBus {
+
+    private static final String CHANNEL = "ekko_presence";
+    private static final int MAX_NOTIFY_BYTES = 7900;
+
+    private final JdbcTemplate jdbc;
+    private final JsonMapper jsonMapper;
+
+    private final UUID nodeId = UUID.randomUUID();
+    private final ConcurrentHashMap<UUID, Boolean> pending = new ConcurrentHashMap<>();
+
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+
+    @Value("${spring.datasource.username}")
+    private String datasourceUsername;
+
+    @Value("${spring.datasource.password}")
+    private String datasourcePassword;
+
+    private volatile Listener listener;
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    PostgresPresenceBus(JdbcTemplate jdbc, JsonMapper jsonMapper) {
+        this.jdbc = jdbc;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @PostConstruct
+    private void start() {
+
+        running = true;
+        listenerThread = new Thread(this::listen, "presence-bus-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    private void stop() {
+
+        running = false;
+        listenerThread.interrupt();
+    }
+
+    @Override
+    public void publish(UUID userId, boolean online) {
+        pending.put(userId, online);
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Scheduled(fixedDelayString = "${presence.bus.flush_interval_ms}")
+    void flush() {
+
+        if (pending.isEmpty()) return;
+
+        List<String> payloads = new ArrayList<>();
+        List<UUID> online = new ArrayList<>();
+        List<UUID> offline = new ArrayList<>();
+        int batchBytes = 64;
+
+        for (UUID userId : pending.keySet()) {
+
+            Boolean isOnline = pending.remove(userId);
+            if (isOnline == null) continue;
+
+            // Quoted UUID plus a comma.
+            if (batchBytes + 39 > MAX_NOTIFY_BYTES) {
+                payloads.add(jsonMapper.writeValueAsString(new PresenceBatch(nodeId, online, offline)));
+                online = new ArrayList<>();
+                offline = new ArrayList<>();
+                batchBytes = 64;
+            }
+
+            (isOnline ? online : offline).add(userId);
+            batchBytes += 39;
+        }
+
+        if (!online.isEmpty() || !offline.isEmpty()) {
+            payloads.add(jsonMapper.writeValueAsString(new PresenceBatch(nodeId, online, offline)));
+        }
+
+        jdbc.execute((ConnectionCallback<Void>) con -> {
+
+            try (PreparedStatement ps = con.prepareStatement("SELECT pg_notify('" + CHANNEL + "', p) FROM unnest(?::text[]) AS t(p)")) {
+
+                ps.setArray(1, con.createArrayOf("text", payloads.toArray()));
+                ps.execute();
+            }
+
+            return null;
+        });
+    }
+
+    /**
+     * Runs on its own thread with a dedicated connection, LISTEN needs a session that stays open.
+     */
+    private void listen() {
+
+        while (running) {
+
+            try (Connection con = DriverManager.getConnection(datasourceUrl, datasourceUsername, datasourcePassword)) {
+
+                try (Statement st = con.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+
+                PGConnection pg = con.unwrap(PGConnection.class);
+
+                while (running) {
+
+                    PGNotification[] notifications = pg.getNotifications(500);
+
+                    if (notifications == null) continue;
+
+                    for (PGNotification n : notifications) {
+                        deliver(n.getParameter());
+                    }
+                }
+
+            } catch (SQLException e) {
+
+                if (!running) return;
+
+                log.warn("Presence bus listener lost its connection, reconnecting: {}", e.getMessage());
+
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void deliver(String payload) {
+
+        var target = listener;
+
+        try {
+
+            PresenceBatch batch = jsonMapper.readValue(payload, PresenceBatch.class);
+
+            // NOTIFY reaches the sending session's node too, it already applied its own changes.
+            if (target == null || nodeId.equals(batch.n())) return;
+
+            batch.on().forEach(userId -> target.changed(userId, true));
+            batch.off().forEach(userId -> target.changed(userId, false));
+
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed presence bus payload: {}", e.getMessage());
+        }
+    }
+
+    // Short field names, every byte counts against the NOTIFY payload limit.
+    record PresenceBatch(UUID n, List<UUID> on, List<UUID> off) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.cdcrane.ekkochatsrv.presence.internal;
+
+import java.util.UUID;
+
+/**
+ * Shares heartbeats and disconnects between nodes, so every node can answer for users connected anywhere.
+ */
+interface PresenceBus {
+
+    void publish(UUID userId, boolean online);
+
+    /**
+     * Changes published by other nodes are handed to the listener, never the ones published here.
+     */
+    void subscribe(Listener listener);
+
+    interface Listener {
+
+        void changed(UUID userId, boolean online);
+    }
+}
@@ -0,0 +1,84 @@
+package com.cdcrane.ekkochatsrv.presence.internal;
+
+import com.cdcrane.ekkochatsrv.presence.api.PresenceUseCase;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Presence kept in memory on every node. Heartbeats and disconnects seen here are shared with the other nodes over the
+ * presence bus, so a query answers for users connected to any node.
+ */
+@Service
+@RequiredArgsConstructor
+public class PresenceService implements PresenceUseCase {
+
+    private final PresenceBus presenceBus;
+
+    @Value("${presence.ttl_ms}")
+    private long ttlMs;
+
+    @Value("${presence.tick_ms}")
+    private long tickMs;
+
+    @Value("${presence.shards}")
+    private int shards;
+
+    private PresenceTable table;
+
+    // Users with a socket on this node, markOffline is only called once the last one closes.
+    private final Set<UUID> heldHere = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    private void initializeTable() {
+        table = new PresenceTable(shards, ttlMs, tickMs, System.currentTimeMillis());
+
+        presenceBus.subscribe((userId, online) -> {
+            if (online) {
+                table.heartbeat(userId, System.currentTimeMillis());
+            } else if (heldHere.contains(userId)) {
+                // Another node lost its last socket, this one still holds the user. Tell that node they're online.
+                presenceBus.publish(userId, true);
+            } else {
+                table.remove(userId);
+            }
+        });
+    }
+
+    @Override
+    public void heartbeat(UUID userId) {
+        heldHere.add(userId);
+        table.heartbeat(userId, System.currentTimeMillis());
+        presenceBus.publish(userId, true);
+    }
+
+    @Override
+    public void markOffline(UUID userId) {
+        heldHere.remove(userId);
+        table.remove(userId);
+        presenceBus.publish(userId, false);
+    }
+
+    @Override
+    public boolean isOnline(UUID userId) {
+        return table.isOnline(userId, System.currentTimeMillis());
+    }
+
+    @Override
+    public List<UUID> onlineAmong(Collection<UUID> userIds) {
+        return table.onlineAmong(userIds, System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedRateString = "${presence.tick_ms}")
+    void expireStaleEntries() {
+        table.advance(System.currentTimeMillis());
+    }
+}
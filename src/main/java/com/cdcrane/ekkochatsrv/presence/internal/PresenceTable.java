@@ -0,0 +1,212 @@
+package com.cdcrane.ekkochatsrv.presence.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Online users by id, split over independent shards, with expiry driven by a hashed timer wheel.
+ * <p>
+ * Reads never lock: a lookup is a map get plus one volatile read. A heartbeat for a known user is a single CAS on its
+ * expiry. Expiry doesn't schedule anything per entry, every entry sits in exactly one wheel bucket and a tick only
+ * looks at the bucket whose time has come, moving refreshed entries forward and removing the rest.
+ */
+class PresenceTable {
+
+    private static final long DEAD = Long.MIN_VALUE;
+
+    private final ConcurrentHashMap<UUID, Entry>[] shards;
+    private final int shardMask;
+    private final ConcurrentLinkedQueue<Entry>[] wheel;
+    private final long tickMs;
+    private final long ttlMs;
+    private long lastTick;
+
+    @SuppressWarnings("unchecked")
+    PresenceTable(int shardCount, long ttlMs, long tickMs, long now) {
+
+        if (Integer.bitCount(shardCount) != 1) {
+            throw new IllegalArgumentException("Presence shard count must be a power of two.");
+        }
+
+        this.shards = new ConcurrentHashMap[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+
+        this.shardMask = shardCount - 1;
+        this.ttlMs = ttlMs;
+        this.tickMs = tickMs;
+
+        // Enough buckets that an entry's expiry is always less than one revolution away.
+        int buckets = (int) (ttlMs / tickMs) + 2;
+        this.wheel = new ConcurrentLinkedQueue[buckets];
+        for (int i = 0; i < buckets; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+
+        this.lastTick = now / tickMs;
+    }
+
+    void heartbeat(UUID userId, long now) {
+
+        long expiresAt = now + ttlMs;
+        var shard = shardOf(userId);
+
+        while (true) {
+
+            Entry existing = shard.get(userId);
+
+            if (existing != null) {
+
+                if (existing.refresh(expiresAt)) return;
+
+                // Expired concurrently, replace it with a fresh entry.
+                Entry fresh = new Entry(userId, expiresAt);
+                if (shard.replace(userId, existing, fresh)) {
+                    schedule(fresh, expiresAt);
+                    return;
+                }
+
+                continue;
+            }
+
+            Entry fresh = new Entry(userId, expiresAt);
+
+            if (shard.putIfAbsent(userId, fresh) == null) {
+                schedule(fresh, expiresAt);
+                return;
+            }
+        }
+    }
+
+    void remove(UUID userId) {
+
+        Entry existing = shardOf(userId).remove(userId);
+
+        if (existing != null) existing.kill();
+    }
+
+    boolean isOnline(UUID userId, long now) {
+
+        Entry entry = shardOf(userId).get(userId);
+
+        return entry != null && entry.expiresAt > now;
+    }
+
+    List<UUID> onlineAmong(Collection<UUID> userIds, long now) {
+
+        List<UUID> online = new ArrayList<>(Math.min(userIds.size(), 64));
+
+        for (UUID userId : userIds) {
+
+            Entry entry = shardOf(userId).get(userId);
+
+            if (entry != null && entry.expiresAt > now) {
+                online.add(userId);
+            }
+        }
+
+        return online;
+    }
+
+    /**
+     * Processes every bucket whose time has passed since the last call. Only one thread should call this.
+     */
+    void advance(long now) {
+
+        long currentTick = now / tickMs;
+
+        for (long tick = lastTick + 1; tick <= currentTick; tick++) {
+
+            var bucket = wheel[(int) (tick % wheel.length)];
+            int pending = bucket.size();
+
+            // Only the entries that were in the bucket when we started, anything re-added lands in a later bucket.
+            for (int i = 0; i < pending; i++) {
+
+                Entry entry = bucket.poll();
+                if (entry == null) break;
+
+                long expiresAt = entry.expiresAt;
+
+                if (expiresAt == DEAD || shardOf(entry.userId).get(entry.userId) != entry) continue;
+
+                if (expiresAt <= now) {
+                    if (entry.expire(expiresAt)) {
+                        shardOf(entry.userId).remove(entry.userId, entry);
+                        continue;
+                    }
+                    expiresAt = entry.expiresAt; // Refreshed while we looked at it.
+                    if (expiresAt == DEAD) continue;
+                }
+
+                // Never back into the bucket being processed, it would only be looked at again a full revolution later.
+                wheel[(int) (Math.max(expiresAt / tickMs, tick + 1) % wheel.length)].add(entry);
+            }
+        }
+
+        lastTick = currentTick;
+    }
+
+    int size() {
+
+        int size = 0;
+        for (var shard : shards) {
+            size += shard.size();
+        }
+
+        return size;
+    }
+
+    private void schedule(Entry entry, long expiresAt) {
+        wheel[(int) ((expiresAt / tickMs) % wheel.length)].add(entry);
+    }
+
+    private ConcurrentHashMap<UUID, Entry> shardOf(UUID userId) {
+
+        long bits = userId.getMostSignificantBits() ^ userId.getLeastSignificantBits();
+        int hash = (int) (bits ^ (bits >>> 32));
+
+        return shards[(hash ^ (hash >>> 16)) & shardMask];
+    }
+
+    private static final class Entry {
+
+        private static final AtomicLongFieldUpdater<Entry> EXPIRES_AT = AtomicLongFieldUpdater.newUpdater(Entry.class, "expiresAt");
+
+        private final UUID userId;
+        private volatile long expiresAt;
+
+        private Entry(UUID userId, long expiresAt) {
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * @return False if the entry already expired and has to be replaced.
+         */
+        private boolean refresh(long newExpiresAt) {
+
+            while (true) {
+
+                long current = expiresAt;
+
+                if (current == DEAD) return false;
+                if (current >= newExpiresAt || EXPIRES_AT.compareAndSet(this, current, newExpiresAt)) return true;
+            }
+        }
+
+        private boolean expire(long seenExpiresAt) {
+            return EXPIRES_AT.compareAndSet(this, seenExpiresAt, DEAD);
+        }
+
+        private void kill() {
+            expiresAt = DEAD;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.cdcrane.ekkochatsrv.presence.web;
+
+import com.cdcrane.ekkochatsrv.presence.api.PresenceUseCase;
+import com.cdcrane.ekkochatsrv.presence.dto.PresenceQueryRequest;
+import com.cdcrane.ekkochatsrv.presence.dto.PresenceQueryResponse;
+import com.cdcrane.ekkochatsrv.users.principal.EkkoUserPrincipal;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/presence")
+@RequiredArgsConstructor
+public class PresenceController {
+
+    private final PresenceUseCase presenceUseCase;
+
+    @PostMapping("/heartbeat")
+    public ResponseEntity<Void> heartbeat(@AuthenticationPrincipal EkkoUserPrincipal principal) {
+
+        presenceUseCase.heartbeat(principal.getUserId());
+
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+
+    @PostMapping("/query")
+    public ResponseEntity<PresenceQueryResponse> query(@RequestBody @Valid PresenceQueryRequest req) {
+
+        return ResponseEntity.ok(new PresenceQueryResponse(presenceUseCase.onlineAmong(req.userIds())));
+    }
+}
@@ -0,0 +1,11 @@
+package com.cdcrane.ekkochatsrv.profiling;
+
+import org.springframework.modulith.ApplicationModule;
+
+/**
+ * Sampled per request stage timings, see the requestprofiles actuator endpoint.
+ * Other modules should only use RequestProfiler and Stage.
+ */
+@ApplicationModule
+public class ProfilingModule {
+}
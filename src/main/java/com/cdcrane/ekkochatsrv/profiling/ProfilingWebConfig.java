@@ -0,0 +1,69 @@
+package com.cdcrane.ekkochatsrv.profiling;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Splits the handler part of a sampled request into the controller and writing its response body.
+ */
+@Configuration
+class ProfilingWebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ControllerStageInterceptor());
+    }
+
+    private static final class ControllerStageInterceptor implements HandlerInterceptor {
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+
+            RequestProfile profile = RequestProfiler.current();
+            if (profile != null) profile.controllerStarted();
+
+            return true;
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+
+            RequestProfile profile = RequestProfiler.current();
+            if (profile != null) profile.handlerFinished();
+        }
+    }
+
+    /**
+     * Runs right before the message converter writes the body, also for bodies from exception handlers.
+     */
+    @ControllerAdvice
+    static class SerializationStageAdvice implements ResponseBodyAdvice<Object> {
+
+        @Override
+        public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+            return true;
+        }
+
+        @Override
+        public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                      Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                      ServerHttpRequest request, ServerHttpResponse response) {
+
+            RequestProfile profile = RequestProfiler.current();
+            if (profile != null) profile.serializationStarted();
+
+            return body;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.cdcrane.ekkochatsrv.profiling;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds every Spring Data repository call to the profile of the request it runs in.
+ */
+@Component
+class RepositoryProfilingPostProcessor implements BeanPostProcessor {
+
+    private static final RepositoryMethodInvocationListener LISTENER = invocation -> RequestProfiler.completed(
+            "repository " + invocation.getRepositoryInterface().getSimpleName() + "." + invocation.getMethod().getName(),
+            invocation.getDuration(TimeUnit.NANOSECONDS));
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addInvocationListener(LISTENER));
+        }
+
+        return bean;
+    }
+}
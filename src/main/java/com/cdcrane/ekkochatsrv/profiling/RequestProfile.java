@@ -0,0 +1,100 @@
+package com.cdcrane.ekkochatsrv.profiling;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stage timings of one sampled request. Only its own request thread writes to it, it is read once published to
+ * {@link SlowestRequests} after the request finished.
+ */
+final class RequestProfile {
+
+    private final String method;
+    private final String uri;
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final int maxStages;
+
+    private final List<StageTiming> stages = new ArrayList<>();
+    private int droppedStages;
+
+    private long controllerStart;
+    private long serializationStart;
+
+    private int status;
+    private long totalNanos;
+
+    RequestProfile(String method, String uri, int maxStages) {
+        this.method = method;
+        this.uri = uri;
+        this.maxStages = maxStages;
+    }
+
+    void add(String name, long startNanos, long durationNanos) {
+
+        // An N+1 query loop shouldn't turn one profile into megabytes, the count still shows it happened.
+        if (stages.size() == maxStages) {
+            droppedStages++;
+            return;
+        }
+
+        stages.add(new StageTiming(name, (startNanos - this.startNanos) / 1000, durationNanos / 1000));
+    }
+
+    /**
+     * Everything before the handler runs is the servlet and security filter chain.
+     */
+    void controllerStarted() {
+
+        controllerStart = System.nanoTime();
+        add("filters", startNanos, controllerStart - startNanos);
+    }
+
+    void serializationStarted() {
+
+        if (controllerStart == 0 || serializationStart != 0) return;
+
+        serializationStart = System.nanoTime();
+        add("controller", controllerStart, serializationStart - controllerStart);
+    }
+
+    void handlerFinished() {
+
+        if (controllerStart == 0) return;
+
+        long now = System.nanoTime();
+
+        if (serializationStart != 0) {
+            add("serialization", serializationStart, now - serializationStart);
+        } else {
+            add("controller", controllerStart, now - controllerStart);
+        }
+
+        controllerStart = 0;
+    }
+
+    void finish(int status) {
+
+        this.status = status;
+        this.totalNanos = System.nanoTime() - startNanos;
+    }
+
+    long totalNanos() {
+        return totalNanos;
+    }
+
+    View view() {
+        return new View(method, uri, status, startedAt, totalNanos / 1000, List.copyOf(stages), droppedStages);
+    }
+
+    /**
+     * @param offsetMicros From the start of the request, stages overlap when one ran inside another.
+     */
+    record StageTiming(String name, long offsetMicros, long durationMicros) {
+    }
+
+    record View(String method, String uri, int status, Instant startedAt, long totalMicros,
+                List<StageTiming> stages, int droppedStages) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.cdcrane.ekkochatsrv.profiling;
+
+/**
+ * Entry point for code that wants its time to show up in the request profiles (see the requestprofiles actuator endpoint).
+ * <p>
+ * Only a sampled fraction of requests carries a profile, for every other request this is one ThreadLocal read.
+ * Profiles are per thread, work handed to other threads isn't part of the request's profile.
+ */
+public final class RequestProfiler {
+
+    private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+
+    private RequestProfiler() {
+    }
+
+    /**
+     * Use with try-with-resources around the work to time.
+     */
+    public static Stage stage(String name) {
+
+        RequestProfile profile = CURRENT.get();
+
+        if (profile == null) return Stage.NONE;
+
+        long start = System.nanoTime();
+
+        return () -> profile.add(name, start, System.nanoTime() - start);
+    }
+
+    /**
+     * For work that was timed elsewhere and has just finished.
+     */
+    public static void completed(String name, long durationNanos) {
+
+        RequestProfile profile = CURRENT.get();
+
+        if (profile != null) profile.add(name, System.nanoTime() - durationNanos, durationNanos);
+    }
+
+    static RequestProfile current() {
+        return CURRENT.get();
+    }
+
+    static void begin(RequestProfile profile) {
+        CURRENT.set(profile);
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+}
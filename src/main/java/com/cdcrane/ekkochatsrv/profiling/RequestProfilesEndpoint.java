@@ -0,0 +1,30 @@
+package com.cdcrane.ekkochatsrv.profiling;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * /actuator/requestprofiles lists the slowest sampled requests with their stages, DELETE starts over.
+ */
+@Component
+@Endpoint(id = "requestprofiles")
+@RequiredArgsConstructor
+class RequestProfilesEndpoint {
+
+    private final SlowestRequests slowestRequests;
+
+    @ReadOperation
+    public List<RequestProfile.View> slowest() {
+        return slowestRequests.snapshot().stream().map(RequestProfile::view).toList();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        slowestRequests.clear();
+    }
+}
@@ -0,0 +1,55 @@
+package com.cdcrane.ekkochatsrv.profiling;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Outermost filter, decides whether a request is sampled and hands finished profiles to {@link SlowestRequests}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+class RequestProfilingFilter extends OncePerRequestFilter {
+
+    private final SlowestRequests slowestRequests;
+
+    @Value("${profiling.sample_rate}")
+    private double sampleRate;
+
+    @Value("${profiling.max_stages}")
+    private int maxStages;
+
+    RequestProfilingFilter(SlowestRequests slowestRequests) {
+        this.slowestRequests = slowestRequests;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        var profile = new RequestProfile(request.getMethod(), request.getRequestURI(), maxStages);
+        RequestProfiler.begin(profile);
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestProfiler.end();
+            profile.finish(response.getStatus());
+            slowestRequests.offer(profile);
+        }
+    }
+}
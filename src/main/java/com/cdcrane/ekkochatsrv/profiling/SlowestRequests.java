@@ -0,0 +1,85 @@
+package com.cdcrane.ekkochatsrv.profiling;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The slowest sampled requests, in a fixed array of slots. A slower request takes the slot of the fastest one kept by CAS,
+ * no locks. Requests not slower than the last evicted one are turned away without scanning the slots.
+ */
+@Component
+class SlowestRequests {
+
+    private final AtomicReferenceArray<RequestProfile> slots;
+
+    // Lower bound of the fastest kept request, racy writes can only lower it which just costs a scan.
+    private volatile long floorNanos = -1;
+
+    SlowestRequests(@Value("${profiling.slowest_kept}") int size) {
+        this.slots = new AtomicReferenceArray<>(size);
+    }
+
+    void offer(RequestProfile profile) {
+
+        long nanos = profile.totalNanos();
+
+        if (nanos <= floorNanos) return;
+
+        while (true) {
+
+            int fastestIndex = -1;
+            RequestProfile fastest = null;
+            long fastestNanos = Long.MAX_VALUE;
+
+            for (int i = 0; i < slots.length(); i++) {
+
+                RequestProfile current = slots.get(i);
+                long currentNanos = current == null ? -1 : current.totalNanos();
+
+                if (currentNanos < fastestNanos) {
+                    fastestIndex = i;
+                    fastest = current;
+                    fastestNanos = currentNanos;
+                }
+            }
+
+            if (fastestIndex < 0 || nanos <= fastestNanos) return;
+
+            if (slots.compareAndSet(fastestIndex, fastest, profile)) {
+                floorNanos = fastestNanos;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return Slowest first.
+     */
+    List<RequestProfile> snapshot() {
+
+        List<RequestProfile> kept = new ArrayList<>(slots.length());
+
+        for (int i = 0; i < slots.length(); i++) {
+            RequestProfile profile = slots.get(i);
+            if (profile != null) kept.add(profile);
+        }
+
+        kept.sort(Comparator.comparingLong(RequestProfile::totalNanos).reversed());
+
+        return kept;
+    }
+
+    void clear() {
+
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+
+        floorNanos = -1;
+    }
+}
@@ -0,0 +1,16 @@
+package com.cdcrane.ekkochatsrv.profiling;
+
+/**
+ * A timed part of a sampled request, closing it records the time.
+ */
+public interface Stage extends AutoCloseable {
+
+    /**
+     * Returned when the current request isn't sampled, closing it does nothing.
+     */
+    Stage NONE = () -> {
+    };
+
+    @Override
+    void close();
+}
@@ -0,0 +1,10 @@
+package com.cdcrane.ekkochatsrv.sanitizer;
+
+import org.springframework.modulith.ApplicationModule;
+
+/**
+ * Makes user supplied plain text safe to render in HTML, shared by profile fields and chat messages.
+ */
+@ApplicationModule
+public class SanitizerModule {
+}
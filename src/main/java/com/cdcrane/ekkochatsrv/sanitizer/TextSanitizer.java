@@ -0,0 +1,66 @@
+package com.cdcrane.ekkochatsrv.sanitizer;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Escapes plain text for HTML in one pass over its chars.
+ * <p>
+ * Gives the same guarantee as {@code Jsoup.clean(input, Safelist.none())}: the output can't contain markup, only text
+ * and entities. Markup is escaped rather than stripped though, so a message reads exactly as it was typed, and
+ * whitespace is kept. Most messages contain nothing to escape, those are returned as the same instance without copying.
+ */
+@Component
+public class TextSanitizer {
+
+    // One bit per char below 64 that must not pass through: NUL, '&', '<' and '>'.
+    private static final long ESCAPED = 1L | 1L << '&' | 1L << '<' | 1L << '>';
+
+    /**
+     * @return The input itself if nothing needed escaping, null for null.
+     */
+    public String sanitize(String input) {
+
+        if (input == null) return null;
+
+        int length = input.length();
+        int i = 0;
+
+        while (i < length && !needsEscaping(input.charAt(i))) {
+            i++;
+        }
+
+        if (i == length) return input;
+
+        // Room for a handful of entities before the builder has to grow.
+        var out = new StringBuilder(length + 32);
+        int copied = 0;
+
+        for (; i < length; i++) {
+
+            char c = input.charAt(i);
+
+            if (!needsEscaping(c)) continue;
+
+            // Text between escapes is copied in runs, not char by char.
+            out.append(input, copied, i);
+            copied = i + 1;
+
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                default -> {
+                    // NUL is dropped, it has no place in text and some clients cut the string at it.
+                }
+            }
+        }
+
+        out.append(input, copied, length);
+
+        return out.toString();
+    }
+
+    private static boolean needsEscaping(char c) {
+        return c < 64 && (ESCAPED >>> c & 1) != 0;
+    }
+}
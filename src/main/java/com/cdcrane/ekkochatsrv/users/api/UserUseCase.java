@@ -1,10 +1,12 @@
 package com.cdcrane.ekkochatsrv.users.api;
 
+import com.cdcrane.ekkochatsrv.users.dto.PublicProfileDTO;
 import com.cdcrane.ekkochatsrv.users.dto.RegisterAccountRequest;
 import com.cdcrane.ekkochatsrv.users.dto.UserDTO;
 import com.cdcrane.ekkochatsrv.users.dto.VerifyEmailRequest;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface UserUseCase extends UserDetailsService {
@@ -13,6 +15,12 @@ public interface UserUseCase extends UserDetailsService {
 
     UserDTO findByUsernameOrEmail(String usernameOrEmail);
 
+    /**
+     * Profiles for member lists and the like, in the order the ids were given.
+     * Duplicate ids are returned once, ids without a user are left out.
+     */
+    List<PublicProfileDTO> findPublicProfiles(List<UUID> userIds);
+
     void registerUser(RegisterAccountRequest request);
 
     void handleEmailVerification(VerifyEmailRequest request);
@@ -0,0 +1,11 @@
+package com.cdcrane.ekkochatsrv.users.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+import java.util.UUID;
+
+// A body rather than query parameters, a full batch of ids doesn't fit in Tomcat's 8KB request header limit.
+// The batch size is checked by the service against users.profiles.max_batch_size.
+public record ProfileQueryRequest(@NotNull List<@NotNull UUID> userIds) {
+}
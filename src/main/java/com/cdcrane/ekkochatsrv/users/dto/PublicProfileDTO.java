@@ -0,0 +1,10 @@
+package com.cdcrane.ekkochatsrv.users.dto;
+
+import java.util.UUID;
+
+/**
+ * What other users may see of someone, no email or roles.
+ */
+public record PublicProfileDTO(UUID userId, String username,
+                               String fName, String lName) {
+}
@@ -2,5 +2,5 @@ package com.cdcrane.ekkochatsrv.users.events;
 
 import java.util.UUID;
 
-public record AccountRegisteredEvent(UUID userId, String username, String email, Integer generatedVerificationCode) {
+public record AccountRegisteredEvent(UUID registrationId, String username, String email, Integer generatedVerificationCode) {
 }
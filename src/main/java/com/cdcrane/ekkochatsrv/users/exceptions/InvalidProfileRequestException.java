@@ -0,0 +1,7 @@
+package com.cdcrane.ekkochatsrv.users.exceptions;
+
+public class InvalidProfileRequestException extends RuntimeException {
+    public InvalidProfileRequestException(String message) {
+        super(message);
+    }
+}
@@ -5,8 +5,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
-import java.util.Date;
 import java.util.Set;
 import java.util.UUID;
 
@@ -34,11 +35,9 @@ public class ApplicationUser {
 
     private Boolean enabled;
 
-    private Integer verificationCode;
-
-    private Date verificationCodeExpiration;
-
+    // Cached as role ids per user, changing a user's roles through Hibernate invalidates the entry.
     @ManyToMany(fetch = FetchType.LAZY, cascade = CascadeType.PERSIST)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user_roles")
     @JoinTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "role_id"))
     private Set<Role> roles;
 
@@ -0,0 +1,45 @@
+package com.cdcrane.ekkochatsrv.users.internal;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * A sign-up waiting for its email to be verified. Only verified ones become an {@link ApplicationUser}, the rest are
+ * purged once they expire, so users only ever holds accounts that can log in.
+ */
+@Entity
+@Table(name = "pending_registrations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PendingRegistration {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID registrationId;
+
+    private String username;
+
+    private String firstName;
+
+    private String lastName;
+
+    private String password;
+
+    private String email;
+
+    private Integer verificationCode;
+
+    private Date verificationCodeExpiration;
+
+    private Date createdAt;
+
+    private Date expiresAt;
+}
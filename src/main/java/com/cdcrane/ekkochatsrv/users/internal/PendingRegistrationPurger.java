@@ -0,0 +1,42 @@
+package com.cdcrane.ekkochatsrv.users.internal;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+
+/**
+ * Abandoned sign-ups are deleted in batches off the expiry index, each batch commits on its own.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class PendingRegistrationPurger {
+
+    private static final String PURGE_SQL = "DELETE FROM pending_registrations WHERE registration_id IN " +
+            "(SELECT registration_id FROM pending_registrations WHERE expires_at < ? ORDER BY expires_at LIMIT ?)";
+
+    private final JdbcTemplate jdbc;
+
+    @Value("${users.registration.purge_batch_size}")
+    private int purgeBatchSize;
+
+    @Scheduled(cron = "${users.registration.purge_cron}")
+    void purgeExpired() {
+
+        var now = new Timestamp(System.currentTimeMillis());
+        long purged = 0;
+        int deleted;
+
+        do {
+            deleted = jdbc.update(PURGE_SQL, now, purgeBatchSize);
+            purged += deleted;
+        } while (deleted == purgeBatchSize);
+
+        if (purged > 0) log.info("Purged {} expired pending registrations", purged);
+    }
+}
@@ -0,0 +1,20 @@
+package com.cdcrane.ekkochatsrv.users.internal;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PendingRegistrationRepository extends JpaRepository<PendingRegistration, UUID> {
+
+    Optional<PendingRegistration> findByEmail(String email);
+
+    // Signing up again with the same email replaces the earlier attempt.
+    @Modifying
+    @Query("DELETE FROM PendingRegistration p WHERE p.email = ?1")
+    int deleteByEmail(String email);
+}
@@ -0,0 +1,38 @@
+package com.cdcrane.ekkochatsrv.users.internal;
+
+import com.cdcrane.ekkochatsrv.users.dto.PublicProfileDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Recently requested public profiles, bounded by size. Nothing changes a profile yet,
+ * the TTL bounds how stale an entry can get once something does.
+ */
+@Component
+class PublicProfileCache {
+
+    // Lookups from every request thread, Caffeine reads don't take a lock like an access ordered map would.
+    private final Cache<UUID, PublicProfileDTO> entries;
+
+    PublicProfileCache(@Value("${users.profiles.cache.max_entries}") int maxEntries,
+                       @Value("${users.profiles.cache.ttl_ms}") long ttlMs) {
+
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+    }
+
+    PublicProfileDTO get(UUID userId) {
+        return entries.getIfPresent(userId);
+    }
+
+    void put(PublicProfileDTO profile) {
+        entries.put(profile.userId(), profile);
+    }
+}
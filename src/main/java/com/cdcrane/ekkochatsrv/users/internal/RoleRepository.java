@@ -1,15 +1,21 @@
 package com.cdcrane.ekkochatsrv.users.internal;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Integer> {
 
+    // Cached query results, a hit only resolves the id against the roles region and never reaches the database.
     @Query("SELECT r FROM Role r WHERE r.authority = 'USER'")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Role getUserRole();
 
     @Query("SELECT r FROM Role r WHERE r.authority = 'ADMIN'")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Role getAdminRole();
 }
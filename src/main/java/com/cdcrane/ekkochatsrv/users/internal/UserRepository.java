@@ -2,22 +2,35 @@ package com.cdcrane.ekkochatsrv.users.internal;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import com.cdcrane.ekkochatsrv.users.dto.PublicProfileDTO;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface UserRepository extends JpaRepository<ApplicationUser, UUID> {
 
-    @Query("SELECT u FROM ApplicationUser u JOIN FETCH u.roles WHERE u.userId = ?1")
-    Optional<ApplicationUser> findByUserId(UUID userId);
+    // Roles aren't joined in, they come from the second level cache (see ApplicationUser.roles) without a query.
+    @Query("SELECT u FROM ApplicationUser u WHERE u.username = ?1 OR u.email = ?1")
+    Optional<ApplicationUser> findByEmailOrUsername(String username);
 
-    @Query("SELECT u FROM ApplicationUser u JOIN FETCH u.roles WHERE u.username = ?1 OR u.email = ?1")
-    Optional<ApplicationUser> findByEmailOrUsernameWithRoles(String username);
+    // Roles joined in from the database, never the cache. Logins and token refreshes grant authorities, another
+    // node's cached roles may still hold one that was revoked.
+    @Query("SELECT u FROM ApplicationUser u LEFT JOIN FETCH u.roles WHERE u.userId = ?1")
+    Optional<ApplicationUser> findWithRolesByUserId(UUID userId);
+
+    @Query("SELECT u FROM ApplicationUser u LEFT JOIN FETCH u.roles WHERE u.username = ?1 OR u.email = ?1")
+    Optional<ApplicationUser> findWithRolesByEmailOrUsername(String username);
 
     Optional<ApplicationUser> findByEmail(String email);
 
+    // Only the public columns, no entities or roles are loaded.
+    @Query("SELECT new com.cdcrane.ekkochatsrv.users.dto.PublicProfileDTO(u.userId, u.username, u.firstName, u.lastName) FROM ApplicationUser u WHERE u.userId IN ?1")
+    List<PublicProfileDTO> findPublicProfiles(Collection<UUID> userIds);
+
     Boolean existsByUsername(String username);
 
     Boolean existsByEmail(String email);
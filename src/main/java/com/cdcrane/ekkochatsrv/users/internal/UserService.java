@@ -1,31 +1,33 @@
 package com.cdcrane.ekkochatsrv.users.internal;
 
+import com.cdcrane.ekkochatsrv.sanitizer.TextSanitizer;
 import com.cdcrane.ekkochatsrv.users.principal.EkkoUserPrincipal;
 import com.cdcrane.ekkochatsrv.users.api.UserUseCase;
+import com.cdcrane.ekkochatsrv.users.dto.PublicProfileDTO;
 import com.cdcrane.ekkochatsrv.users.dto.RegisterAccountRequest;
 import com.cdcrane.ekkochatsrv.users.dto.UserDTO;
 import com.cdcrane.ekkochatsrv.users.dto.VerifyEmailRequest;
 import com.cdcrane.ekkochatsrv.users.events.AccountRegisteredEvent;
 import com.cdcrane.ekkochatsrv.users.events.EmailVerificationFailEvent;
 import com.cdcrane.ekkochatsrv.users.exceptions.IdentityTakenException;
+import com.cdcrane.ekkochatsrv.users.exceptions.InvalidProfileRequestException;
 import com.cdcrane.ekkochatsrv.users.exceptions.InvalidVerificationException;
 import com.cdcrane.ekkochatsrv.users.exceptions.UserAlreadyVerifiedException;
 import com.cdcrane.ekkochatsrv.users.exceptions.UserNotFoundException;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
-import org.jsoup.Jsoup;
-import org.jsoup.safety.Safelist;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SecureRandom;
-import java.util.Date;
-import java.util.Set;
-import java.util.UUID;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,14 +37,30 @@ class UserService implements UserUseCase {
     private final UserRepository userRepo;
     private final PasswordEncoder passwordEncoder;
     private final RoleRepository roleRepo;
+    private final PendingRegistrationRepository pendingRepo;
+    private final PublicProfileCache publicProfileCache;
+    private final TextSanitizer textSanitizer;
     private final ApplicationEventPublisher publisher;
+    private final MeterRegistry meterRegistry;
     private final Integer minutes10ms = 600000;
 
+    @Value("${users.registration.ttl_ms}")
+    private long registrationTtlMs;
+
+    @Value("${users.profiles.max_batch_size}")
+    private int maxProfileBatchSize;
+
+    // Spring's @Transactional rather than jakarta's, only it can mark the lookups read only so they may use a replica.
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
-        var user = userRepo.findByEmailOrUsernameWithRoles(username)
-                .orElseThrow(() -> new UserNotFoundException("User not found with username: " + username));
+        // The database part of a login, roles included, BCrypt is timed separately by the auth module.
+        Timer.Sample sample = Timer.start(meterRegistry);
+        var found = userRepo.findWithRolesByEmailOrUsername(username);
+        sample.stop(meterRegistry.timer("ekko.users.lookup", "purpose", "login", "found", String.valueOf(found.isPresent())));
+
+        var user = found.orElseThrow(() -> new UserNotFoundException("User not found with username: " + username));
 
         return new EkkoUserPrincipal(user.getUserId(), user.getUsername(),
                 user.getPassword(), user.getRoles().stream().map(r -> new SimpleGrantedAuthority(r.getAuthority())).toList(),
@@ -51,9 +69,11 @@ class UserService implements UserUseCase {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDTO findById(UUID id) {
 
-        var u = userRepo.findByUserId(id)
+        // Refreshing a token issues its authorities again, they must be current.
+        var u = userRepo.findWithRolesByUserId(id)
                 .orElseThrow(() -> new UserNotFoundException("User not found with username: " + id));
 
         return new UserDTO(u.getUserId(), u.getUsername(),
@@ -64,9 +84,10 @@ class UserService implements UserUseCase {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDTO findByUsernameOrEmail(String usernameOrEmail) {
 
-        var u = userRepo.findByEmailOrUsernameWithRoles(usernameOrEmail)
+        var u = userRepo.findByEmailOrUsername(usernameOrEmail)
                 .orElseThrow(() -> new UserNotFoundException("User not found with username: " + usernameOrEmail));
 
         return new UserDTO(u.getUserId(), u.getUsername(),
@@ -76,82 +97,156 @@ class UserService implements UserUseCase {
                         .collect(Collectors.toSet()));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<PublicProfileDTO> findPublicProfiles(List<UUID> userIds) {
+
+        if (userIds.isEmpty() || userIds.size() > maxProfileBatchSize) {
+            throw new InvalidProfileRequestException("Between 1 and " + maxProfileBatchSize + " user ids can be requested at once.");
+        }
+
+        Map<UUID, PublicProfileDTO> found = new HashMap<>();
+        Set<UUID> misses = new HashSet<>();
+
+        for (UUID userId : userIds) {
+
+            var cached = publicProfileCache.get(userId);
+
+            if (cached != null) {
+                found.put(userId, cached);
+            } else {
+                misses.add(userId);
+            }
+        }
+
+        // One query for everything the cache didn't have.
+        if (!misses.isEmpty()) {
+            for (var profile : userRepo.findPublicProfiles(misses)) {
+                publicProfileCache.put(profile);
+                found.put(profile.userId(), profile);
+            }
+        }
+
+        List<PublicProfileDTO> profiles = new ArrayList<>(found.size());
+        Set<UUID> seen = new HashSet<>();
+
+        for (UUID userId : userIds) {
+
+            var profile = found.get(userId);
+
+            if (profile != null && seen.add(userId)) profiles.add(profile);
+        }
+
+        return profiles;
+    }
+
     @Override
     @Transactional
     public void registerUser(RegisterAccountRequest request) {
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+
         if (userRepo.existsByEmail(request.email())) {
+            sample.stop(meterRegistry.timer("ekko.users.register", "outcome", "email_taken"));
             throw new IdentityTakenException("User with email " + request.email() + " already exists!");
         }
 
         if (userRepo.existsByUsername(request.username())) {
+            sample.stop(meterRegistry.timer("ekko.users.register", "outcome", "username_taken"));
             throw new IdentityTakenException("User with username " + request.username() + " already exists!");
         }
 
         var hash = passwordEncoder.encode(request.password());
+        var now = System.currentTimeMillis();
 
-        Role userRole = roleRepo.getUserRole();
-
-        var account = ApplicationUser.builder()
+        // Staged until the email is verified, see handleEmailVerification.
+        var registration = PendingRegistration.builder()
                 .username(removeHtml(request.username()))
                 .firstName(removeHtml(request.firstName()))
                 .lastName(removeHtml(request.lastName()))
                 .password(hash)
                 .email(request.email())
-                .enabled(false) // Disabled until email verification is complete.
                 .verificationCode(this.generateVerificationCode())
-                .verificationCodeExpiration(new Date(System.currentTimeMillis() + minutes10ms))
-                .roles(Set.of(userRole))
+                .verificationCodeExpiration(new Date(now + minutes10ms))
+                .createdAt(new Date(now))
+                .expiresAt(new Date(now + registrationTtlMs))
                 .build();
 
-        var saved = userRepo.save(account);
+        // Flushed before the insert, the email is unique.
+        pendingRepo.deleteByEmail(request.email());
+        var saved = pendingRepo.save(registration);
+
+        publisher.publishEvent(new AccountRegisteredEvent(saved.getRegistrationId(), saved.getUsername(), saved.getEmail(), saved.getVerificationCode()));
 
-        publisher.publishEvent(new AccountRegisteredEvent(saved.getUserId(), saved.getUsername(), saved.getEmail(), saved.getVerificationCode()));
+        sample.stop(meterRegistry.timer("ekko.users.register", "outcome", "success"));
 
     }
 
     @Override
-    @Transactional(dontRollbackOn = InvalidVerificationException.class) // Can't roll back on that exception, or code change won't persist.
+    @Transactional(noRollbackFor = InvalidVerificationException.class) // Can't roll back on that exception, or code change won't persist.
     public void handleEmailVerification(VerifyEmailRequest request) {
 
-        var user = userRepo.findByEmail(request.email())
-                .orElseThrow(() -> new UserNotFoundException("User not found with username: " + request.email()));
+        var now = new Date();
 
-        if (user.getEnabled()) throw new UserAlreadyVerifiedException("User is already verified!");
+        // An expired registration is as good as gone, the purge just hasn't removed it yet.
+        var pending = pendingRepo.findByEmail(request.email()).filter(r -> now.before(r.getExpiresAt()));
 
-        var now = new Date();
+        if (pending.isEmpty()) {
+
+            if (userRepo.existsByEmail(request.email())) throw new UserAlreadyVerifiedException("User is already verified!");
+
+            throw new UserNotFoundException("User not found with username: " + request.email());
+        }
+
+        var registration = pending.get();
 
-        if (now.after(user.getVerificationCodeExpiration())) {
+        if (now.after(registration.getVerificationCodeExpiration())) {
 
             // Generate new code, persist, and send out event.
-            user.setVerificationCode(this.generateVerificationCode());
-            user.setVerificationCodeExpiration(new Date(System.currentTimeMillis() + minutes10ms));
-            userRepo.save(user);
+            registration.setVerificationCode(this.generateVerificationCode());
+            registration.setVerificationCodeExpiration(new Date(System.currentTimeMillis() + minutes10ms));
+            pendingRepo.save(registration);
 
-            publisher.publishEvent(new EmailVerificationFailEvent(user.getUsername(), user.getEmail(), user.getVerificationCode()));
+            publisher.publishEvent(new EmailVerificationFailEvent(registration.getEmail(), registration.getUsername(), registration.getVerificationCode()));
 
+            meterRegistry.counter("ekko.users.verification", "outcome", "expired").increment();
             throw new InvalidVerificationException("Verification code expired, a new one has been generated.");
 
         }
 
-        if (!user.getVerificationCode().equals(request.code())) {
+        if (!registration.getVerificationCode().equals(request.code())) {
 
             // Generate new code, persist, and send out event.
-            user.setVerificationCode(this.generateVerificationCode());
-            user.setVerificationCodeExpiration(new Date(System.currentTimeMillis() + minutes10ms));
-            userRepo.save(user);
+            registration.setVerificationCode(this.generateVerificationCode());
+            registration.setVerificationCodeExpiration(new Date(System.currentTimeMillis() + minutes10ms));
+            pendingRepo.save(registration);
 
-            publisher.publishEvent(new EmailVerificationFailEvent(user.getEmail(), user.getUsername(), user.getVerificationCode()));
+            publisher.publishEvent(new EmailVerificationFailEvent(registration.getEmail(), registration.getUsername(), registration.getVerificationCode()));
 
+            meterRegistry.counter("ekko.users.verification", "outcome", "wrong_code").increment();
             throw new InvalidVerificationException("Verification code is incorrect, a new one has been generated.");
 
         } else {
 
-            user.setVerificationCode(null);
-            user.setVerificationCodeExpiration(null);
-            user.setEnabled(true);
+            // Someone else may have verified the same username first, usernames aren't reserved while pending.
+            if (userRepo.existsByUsername(registration.getUsername()) || userRepo.existsByEmail(registration.getEmail())) {
+                throw new IdentityTakenException("User with username " + registration.getUsername() + " already exists!");
+            }
+
+            var account = ApplicationUser.builder()
+                    .username(registration.getUsername())
+                    .firstName(registration.getFirstName())
+                    .lastName(registration.getLastName())
+                    .password(registration.getPassword())
+                    .email(registration.getEmail())
+                    .enabled(true)
+                    .roles(Set.of(roleRepo.getUserRole()))
+                    .build();
+
+            userRepo.save(account);
+            pendingRepo.delete(registration);
 
-            userRepo.save(user);
+            meterRegistry.counter("ekko.users.verification", "outcome", "success").increment();
 
         }
 
@@ -165,8 +260,9 @@ class UserService implements UserUseCase {
 
     }
 
+    // Names stay trimmed like they were when Jsoup cleaned them.
     private String removeHtml(String input) {
 
-        return Jsoup.clean(input, Safelist.none());
+        return textSanitizer.sanitize(input.strip());
     }
 }
@@ -1,16 +1,17 @@
 package com.cdcrane.ekkochatsrv.users.web;
 
 import com.cdcrane.ekkochatsrv.users.api.UserUseCase;
+import com.cdcrane.ekkochatsrv.users.dto.ProfileQueryRequest;
+import com.cdcrane.ekkochatsrv.users.dto.PublicProfileDTO;
 import com.cdcrane.ekkochatsrv.users.dto.RegisterAccountRequest;
 import com.cdcrane.ekkochatsrv.users.dto.VerifyEmailRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/user")
@@ -36,4 +37,10 @@ public class UserController {
 
     }
 
+    @PostMapping("/profiles/query")
+    public ResponseEntity<List<PublicProfileDTO>> queryProfiles(@RequestBody @Valid ProfileQueryRequest req) {
+
+        return ResponseEntity.ok(userUseCase.findPublicProfiles(req.userIds()));
+    }
+
 }
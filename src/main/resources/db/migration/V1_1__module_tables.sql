@@ -0,0 +1,146 @@
+-- Tables of the chat, keys, notifications and attachments modules, added after the released baseline. Runs on
+-- databases baselined at V1 as well as on new ones.
+
+-- keys
+CREATE TABLE user_key_bundles
+(
+    user_id               UUID PRIMARY KEY,
+    public_key            TEXT,
+    encrypted_private_key TEXT,
+    encrypted_kek         TEXT,
+    kdf_salt              VARCHAR(255),
+    kdf_params            TEXT,
+    key_version           INTEGER,
+    updated_at            TIMESTAMP(6)
+);
+
+-- chat
+CREATE SEQUENCE messages_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE messages
+(
+    id              BIGINT PRIMARY KEY,
+    conversation_id UUID,
+    sender_id       UUID,
+    body            BYTEA,
+    created_at      TIMESTAMP(6)
+);
+
+CREATE INDEX idx_messages_conversation_id ON messages (conversation_id, id);
+
+CREATE TABLE message_key_rotation_checkpoints
+(
+    target_key_version INTEGER PRIMARY KEY,
+    last_message_id    BIGINT,
+    migrated_count     BIGINT,
+    completed          BOOLEAN,
+    updated_at         TIMESTAMP(6)
+);
+
+CREATE TABLE conversation_members
+(
+    conversation_id      UUID NOT NULL,
+    user_id              UUID NOT NULL,
+    last_read_message_id BIGINT,
+    joined_at            TIMESTAMP(6),
+    PRIMARY KEY (conversation_id, user_id)
+);
+
+CREATE TABLE unread_counters
+(
+    user_id         UUID NOT NULL,
+    conversation_id UUID NOT NULL,
+    unread          BIGINT,
+    updated_at      TIMESTAMP(6),
+    PRIMARY KEY (user_id, conversation_id)
+);
+
+CREATE TABLE inbox_entries
+(
+    user_id          UUID NOT NULL,
+    conversation_id  UUID NOT NULL,
+    last_message_id  BIGINT,
+    last_sender_id   UUID,
+    last_activity_at TIMESTAMP(6),
+    PRIMARY KEY (user_id, conversation_id)
+);
+
+CREATE INDEX idx_inbox_entries_user_activity ON inbox_entries (user_id, last_activity_at DESC, conversation_id DESC);
+
+CREATE TABLE conversation_heads
+(
+    conversation_id  UUID PRIMARY KEY,
+    last_message_id  BIGINT,
+    last_sender_id   UUID,
+    last_activity_at TIMESTAMP(6)
+);
+
+CREATE SEQUENCE user_changes_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE user_changes
+(
+    id              BIGINT PRIMARY KEY,
+    tx_id           XID8 NOT NULL DEFAULT pg_current_xact_id(),
+    user_id         UUID,
+    type            VARCHAR(255) CHECK (type IN ('MESSAGE_CREATED', 'READ_CURSOR_MOVED')),
+    conversation_id UUID,
+    ref_id          BIGINT,
+    created_at      TIMESTAMP(6)
+);
+
+CREATE INDEX idx_user_changes_user_tx ON user_changes (user_id, tx_id, id);
+CREATE INDEX idx_user_changes_created_at ON user_changes (created_at);
+
+-- notifications
+CREATE TABLE notification_nodes
+(
+    node_id      UUID PRIMARY KEY,
+    heartbeat_at TIMESTAMP(6)
+);
+
+CREATE TABLE notification_routes
+(
+    user_id    UUID NOT NULL,
+    node_id    UUID NOT NULL,
+    updated_at TIMESTAMP(6),
+    PRIMARY KEY (user_id, node_id)
+);
+
+-- attachments
+CREATE TABLE attachment_blobs
+(
+    sha256     VARCHAR(64) PRIMARY KEY,
+    size_bytes BIGINT,
+    created_at TIMESTAMP(6)
+);
+
+CREATE TABLE attachment_usage
+(
+    user_id    UUID PRIMARY KEY,
+    used_bytes BIGINT
+);
+
+CREATE TABLE attachments
+(
+    attachment_id UUID PRIMARY KEY,
+    owner_id      UUID,
+    sha256        VARCHAR(64),
+    content_type  VARCHAR(255),
+    file_name     VARCHAR(255),
+    size_bytes    BIGINT,
+    created_at    TIMESTAMP(6)
+);
+
+-- Spring Modulith archive of completed publications, ddl-auto may have created it already.
+CREATE TABLE IF NOT EXISTS event_publication_archive
+(
+    id                     UUID PRIMARY KEY,
+    listener_id            VARCHAR(255),
+    event_type             VARCHAR(255),
+    serialized_event       TEXT,
+    publication_date       TIMESTAMP(6) WITH TIME ZONE,
+    completion_date        TIMESTAMP(6) WITH TIME ZONE,
+    status                 VARCHAR(255),
+    completion_attempts    INTEGER,
+    last_resubmission_date TIMESTAMP(6) WITH TIME ZONE
+);
@@ -0,0 +1,51 @@
+-- Schema of the released code as Hibernate ddl-auto: update created it, databases that already have it are baselined
+-- at this version. Everything added since comes in later migrations.
+
+-- users
+CREATE TABLE roles
+(
+    role_id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    authority VARCHAR(255)
+);
+
+CREATE TABLE users
+(
+    user_id                      UUID PRIMARY KEY,
+    username                     VARCHAR(255),
+    first_name                   VARCHAR(255),
+    last_name                    VARCHAR(255),
+    password                     VARCHAR(255),
+    email                        VARCHAR(255),
+    enabled                      BOOLEAN,
+    verification_code            INTEGER,
+    verification_code_expiration TIMESTAMP(6)
+);
+
+CREATE TABLE user_roles
+(
+    user_id UUID   NOT NULL REFERENCES users (user_id),
+    role_id BIGINT NOT NULL REFERENCES roles (role_id),
+    PRIMARY KEY (user_id, role_id)
+);
+
+-- auth
+CREATE TABLE refresh_tokens
+(
+    jti          UUID PRIMARY KEY,
+    hashed_token VARCHAR(255),
+    expiry       TIMESTAMP(6)
+);
+
+-- Spring Modulith event publication registry
+CREATE TABLE event_publication
+(
+    id                     UUID PRIMARY KEY,
+    listener_id            VARCHAR(255),
+    event_type             VARCHAR(255),
+    serialized_event       TEXT,
+    publication_date       TIMESTAMP(6) WITH TIME ZONE,
+    completion_date        TIMESTAMP(6) WITH TIME ZONE,
+    status                 VARCHAR(255),
+    completion_attempts    INTEGER,
+    last_resubmission_date TIMESTAMP(6) WITH TIME ZONE
+);
@@ -0,0 +1,26 @@
+-- Indexes for the queries run on every request, Hibernate never created anything beyond primary keys.
+-- Creating the unique ones fails if duplicates slipped in while nothing enforced them, clean those up first.
+
+-- Login looks users up by username or email, registration checks both are free.
+CREATE UNIQUE INDEX IF NOT EXISTS uq_users_username ON users (username);
+CREATE UNIQUE INDEX IF NOT EXISTS uq_users_email ON users (email);
+
+-- Roles are loaded by authority on registration, the primary key covers user_id lookups of user_roles.
+CREATE UNIQUE INDEX IF NOT EXISTS uq_roles_authority ON roles (authority);
+CREATE INDEX IF NOT EXISTS idx_user_roles_role ON user_roles (role_id);
+
+-- Expired refresh tokens are found by expiry.
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expiry ON refresh_tokens (expiry);
+
+-- Unread counts, the inbox and the unread rebuild go through a user's memberships, the primary key starts with the conversation.
+CREATE INDEX IF NOT EXISTS idx_conversation_members_user ON conversation_members (user_id, conversation_id);
+
+-- A stopping node removes its routes by node.
+CREATE INDEX IF NOT EXISTS idx_notification_routes_node ON notification_routes (node_id);
+
+-- Incomplete publications are looked up by completion date on every restart and resubmission.
+CREATE INDEX IF NOT EXISTS idx_event_publication_completion_date ON event_publication (completion_date);
+
+-- Registration expects both roles to exist.
+INSERT INTO roles (authority) SELECT 'USER' WHERE NOT EXISTS (SELECT 1 FROM roles WHERE authority = 'USER');
+INSERT INTO roles (authority) SELECT 'ADMIN' WHERE NOT EXISTS (SELECT 1 FROM roles WHERE authority = 'ADMIN');
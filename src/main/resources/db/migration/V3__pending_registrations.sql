@@ -0,0 +1,33 @@
+-- Sign-ups live here until their email is verified, users only holds accounts that can log in.
+CREATE TABLE pending_registrations
+(
+    registration_id              UUID PRIMARY KEY,
+    username                     VARCHAR(255),
+    first_name                   VARCHAR(255),
+    last_name                    VARCHAR(255),
+    password                     VARCHAR(255),
+    email                        VARCHAR(255),
+    verification_code            INTEGER,
+    verification_code_expiration TIMESTAMP(6),
+    created_at                   TIMESTAMP(6),
+    expires_at                   TIMESTAMP(6)
+);
+
+-- Verification looks registrations up by email, one per email.
+CREATE UNIQUE INDEX uq_pending_registrations_email ON pending_registrations (email);
+
+-- The purge deletes by expiry.
+CREATE INDEX idx_pending_registrations_expires_at ON pending_registrations (expires_at);
+
+-- Move unverified accounts over, they get the usual week to finish verifying.
+INSERT INTO pending_registrations (registration_id, username, first_name, last_name, password, email,
+                                   verification_code, verification_code_expiration, created_at, expires_at)
+SELECT user_id, username, first_name, last_name, password, email,
+       verification_code, verification_code_expiration, now(), now() + INTERVAL '7 days'
+FROM users
+WHERE enabled = false AND verification_code IS NOT NULL;
+
+DELETE FROM user_roles WHERE user_id IN (SELECT user_id FROM users WHERE enabled = false AND verification_code IS NOT NULL);
+DELETE FROM users WHERE enabled = false AND verification_code IS NOT NULL;
+
+ALTER TABLE users DROP COLUMN verification_code, DROP COLUMN verification_code_expiration;
@@ -0,0 +1,9 @@
+-- Newest transaction whose change log entries the retention purge deleted, null until the first purge.
+-- A sync cursor at or before it may have missed entries and has to start over.
+CREATE TABLE change_log_retention
+(
+    singleton      BOOLEAN PRIMARY KEY DEFAULT true CHECK (singleton),
+    purged_through XID8
+);
+
+INSERT INTO change_log_retention (singleton) VALUES (true);
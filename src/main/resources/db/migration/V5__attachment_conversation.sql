@@ -0,0 +1,3 @@
+-- The conversation an attachment was shared into, its members may download it besides the owner.
+-- Null for attachments only the owner can see, which is every attachment uploaded before this.
+ALTER TABLE attachments ADD COLUMN conversation_id UUID;
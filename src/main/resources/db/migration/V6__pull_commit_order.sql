@@ -0,0 +1,11 @@
+-- Messages are pulled in (tx_id, id) order behind the same snapshot guard as the change log. Ids come from a pooled
+-- sequence shared by parallel writers, so they aren't in commit order and a plain id watermark can skip messages.
+-- Existing rows all get this migration's transaction, they are committed long ago and still ordered by id within it.
+ALTER TABLE messages ADD COLUMN tx_id XID8 NOT NULL DEFAULT pg_current_xact_id();
+
+CREATE INDEX idx_messages_conversation_tx ON messages (conversation_id, tx_id, id);
+
+-- A head is also the large group's sync marker, every advance gives it a fresh change log position so members
+-- syncing past it learn they have messages to pull.
+ALTER TABLE conversation_heads ADD COLUMN tx_id XID8 NOT NULL DEFAULT pg_current_xact_id();
+ALTER TABLE conversation_heads ADD COLUMN change_id BIGINT NOT NULL DEFAULT nextval('user_changes_id_seq');
@@ -3,7 +3,7 @@ package com.cdcrane.ekkochatsrv;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "encryption.message_key=Uauyj7rNZv8CAZPPNmZuLv/hbvWOO/C69+lg3zNK7fA=")
 class EkkochatsrvApplicationTests {
 
     @Test
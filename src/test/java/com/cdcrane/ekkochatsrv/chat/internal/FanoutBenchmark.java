@@ -0,0 +1,130 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import com.cdcrane.ekkochatsrv.chat.internal.UnreadCounterTable.CounterKey;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run with: ./mvnw test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.cdcrane.ekkochatsrv.chat.internal.FanoutBenchmark
+ * <p>
+ * Sends one message to groups of 10, 100 and 10k members and measures the work the ingestion path does besides
+ * inserting the message: planning the batch, building the inbox rows and change log entries, and counting it unread
+ * for every recipient. ON_WRITE never switches, HYBRID uses the default threshold. The "rows" aux counter is the
+ * number of database rows that send writes, main() prints it per group size afterwards.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FanoutBenchmark {
+
+    private static final int DEFAULT_THRESHOLD = 200;
+
+    public enum Strategy { ON_WRITE, HYBRID }
+
+    @Param({"10", "100", "10000"})
+    private int members;
+
+    @Param({"ON_WRITE", "HYBRID"})
+    private Strategy strategy;
+
+    private FanoutPolicy policy;
+    private UnreadCounterTable unread;
+    private List<ChatMessage> batch;
+    private Map<UUID, List<UUID>> membersByConversation;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Written {
+        public long rows;
+    }
+
+    @Setup
+    public void setup() {
+
+        policy = policyFor(strategy);
+        unread = new UnreadCounterTable(64);
+
+        UUID conversationId = UUID.randomUUID();
+        List<UUID> memberIds = new ArrayList<>(members);
+        for (int i = 0; i < members; i++) {
+            memberIds.add(UUID.randomUUID());
+        }
+
+        batch = List.of(new ChatMessage(1L, conversationId, memberIds.getFirst(), new byte[64], new Date(), null));
+        membersByConversation = Map.of(conversationId, memberIds);
+    }
+
+    @Benchmark
+    public void send(Written written, Blackhole bh) {
+        written.rows += rowsWritten(policy, batch, membersByConversation, unread, bh);
+    }
+
+    /**
+     * Mirrors MessageIngestionPipeline.writeBatch and ChatMessageService without the database.
+     * @return Rows written for the batch, the message itself included. Unread rows are counted as written once per message,
+     * the real flush merges them across messages, so fan-out on write is shown at its worst case here.
+     */
+    static long rowsWritten(FanoutPolicy policy, List<ChatMessage> batch, Map<UUID, List<UUID>> membersByConversation,
+                            UnreadCounterTable unread, Blackhole bh) {
+
+        var plan = MessageIngestionPipeline.plan(batch, membersByConversation, policy);
+
+        var inboxRows = InboxProjector.upsertRows(plan.perMember(), plan.perMemberMembers());
+        bh.consume(inboxRows);
+        bh.consume(plan.changes());
+
+        long unreadRows = 0;
+        for (ChatMessage message : plan.perMember()) {
+            for (UUID memberId : plan.perMemberMembers().get(message.getConversationId())) {
+                if (!memberId.equals(message.getSenderId())) {
+                    unread.increment(new CounterKey(memberId, message.getConversationId()), 1);
+                    unreadRows++;
+                }
+            }
+        }
+
+        bh.consume(unread.drain());
+
+        long headRows = plan.sharedMembers().size();
+
+        return batch.size() + inboxRows.size() + plan.changes().size() + unreadRows + headRows;
+    }
+
+    static FanoutPolicy policyFor(Strategy strategy) {
+        return new FanoutPolicy(strategy == Strategy.ON_WRITE ? Integer.MAX_VALUE : DEFAULT_THRESHOLD, 1000);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+
+        new Runner(new OptionsBuilder()
+                .include(FanoutBenchmark.class.getSimpleName())
+                .build()).run();
+
+        var bh = new Blackhole("Today's password is swordfish. I understand instantiating Blackholes directly is dangerous.");
+
+        for (int size : new int[]{10, 100, 10_000}) {
+
+            UUID conversationId = UUID.randomUUID();
+            List<UUID> memberIds = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                memberIds.add(UUID.randomUUID());
+            }
+
+            var batch = List.of(new ChatMessage(1L, conversationId, memberIds.getFirst(), new byte[64], new Date(), null));
+
+            for (Strategy strategy : Strategy.values()) {
+                long rows = rowsWritten(policyFor(strategy), batch, Map.of(conversationId, memberIds), new UnreadCounterTable(64), bh);
+                System.out.printf("%6d members, %-8s %6d rows written per message%n", size, strategy, rows);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FanoutPolicyTests {
+
+    private final FanoutPolicy policy = new FanoutPolicy(3, 1000);
+
+    @Test
+    public void testThresholdSwitchesToFanOutOnRead() {
+
+        assertFalse(policy.fanOutOnRead(2));
+        assertTrue(policy.fanOutOnRead(3));
+        assertTrue(policy.fanOutOnRead(10_000));
+    }
+
+    @Test
+    public void testPlanSplitsBatchByGroupSize() {
+
+        UUID small = UUID.randomUUID();
+        UUID large = UUID.randomUUID();
+        List<UUID> smallMembers = List.of(UUID.randomUUID(), UUID.randomUUID());
+        List<UUID> largeMembers = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        var toSmall = message(1, small, smallMembers.getFirst());
+        var toLarge = message(2, large, largeMembers.getFirst());
+
+        var plan = MessageIngestionPipeline.plan(List.of(toSmall, toLarge), Map.of(small, smallMembers, large, largeMembers), policy);
+
+        assertEquals(List.of(toSmall), plan.perMember());
+        assertEquals(List.of(toLarge), plan.shared());
+        assertEquals(largeMembers, plan.sharedMembers().get(large));
+
+        // One entry per member of the small conversation, sender included, and none for the large group.
+        assertEquals(2, plan.changes().size());
+        assertTrue(plan.changes().stream().allMatch(c -> c.conversationId().equals(small) && c.refId() == 1));
+        assertEquals(smallMembers, plan.changes().stream().map(ChangeLog.Change::userId).toList());
+    }
+
+    private ChatMessage message(long id, UUID conversationId, UUID senderId) {
+        return ChatMessage.builder().id(id).conversationId(conversationId).senderId(senderId).body(new byte[16]).createdAt(new Date()).build();
+    }
+}
@@ -0,0 +1,109 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import com.cdcrane.ekkochatsrv.crypto.api.MessageEncryptionUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class InboxServiceTests {
+
+    private final UUID userId = UUID.randomUUID();
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final MessageEncryptionUseCase encryption = mock(MessageEncryptionUseCase.class);
+    private final UnreadCounterService unreadCounters = mock(UnreadCounterService.class);
+
+    private InboxService inboxService;
+
+    @BeforeEach
+    public void setUp() {
+
+        when(encryption.decryptAll(anyList())).thenAnswer(invocation -> {
+            List<byte[]> bodies = invocation.getArgument(0);
+            return bodies.stream().map(b -> new String(b, StandardCharsets.UTF_8)).toList();
+        });
+
+        inboxService = new InboxService(jdbc, encryption, unreadCounters, new FanoutPolicy(200, 1000));
+        ReflectionTestUtils.setField(inboxService, "maxPageSize", 50);
+        ReflectionTestUtils.setField(inboxService, "previewLength", 100);
+    }
+
+    @Test
+    public void testMergedPageKeepsPulledCountsOfLargeGroups() throws Exception {
+
+        UUID own = UUID.randomUUID();
+        UUID shared = UUID.randomUUID();
+
+        returnRows(row(own, 10, 2, false, 2000), row(shared, 20, 7, true, 1000));
+
+        // Deltas not flushed yet only exist for fanned out on write conversations.
+        when(unreadCounters.currentUnread(userId, own, 2)).thenReturn(5L);
+
+        var page = inboxService.getInbox(userId, null, 20);
+
+        assertEquals(List.of(own, shared), page.entries().stream().map(e -> e.conversationId()).toList());
+        assertEquals(5, page.entries().get(0).unread());
+        assertEquals(7, page.entries().get(1).unread());
+        assertNull(page.nextCursor());
+
+        verify(unreadCounters, never()).currentUnread(eq(userId), eq(shared), anyLong());
+    }
+
+    @Test
+    public void testBothHalvesAreAskedForOneRowMore() throws Exception {
+
+        returnRows(row(UUID.randomUUID(), 10, 0, false, 3000), row(UUID.randomUUID(), 20, 0, true, 2000));
+
+        var page = inboxService.getInbox(userId, null, 1);
+
+        assertEquals(1, page.entries().size());
+        assertNotNull(page.nextCursor());
+
+        // Own entries, count cap, shared heads, merged page, each limited to page size + 1.
+        verify(jdbc).query(anyString(), any(RowMapper.class), eq(userId), eq(2), eq(1000), eq(userId), eq(2), eq(2));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void returnRows(ResultSet... rows) {
+
+        when(jdbc.query(anyString(), any(RowMapper.class), any(Object[].class))).thenAnswer(invocation -> {
+
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            List<Object> mapped = new ArrayList<>();
+
+            for (int i = 0; i < rows.length; i++) {
+                mapped.add(mapper.mapRow(rows[i], i));
+            }
+
+            return mapped;
+        });
+    }
+
+    private ResultSet row(UUID conversationId, long lastMessageId, long unread, boolean shared, long activityAt) throws Exception {
+
+        ResultSet rs = mock(ResultSet.class);
+
+        when(rs.getObject(1, UUID.class)).thenReturn(conversationId);
+        when(rs.getLong(2)).thenReturn(lastMessageId);
+        when(rs.getObject(3, UUID.class)).thenReturn(UUID.randomUUID());
+        when(rs.getTimestamp(4)).thenReturn(new Timestamp(activityAt));
+        when(rs.getBytes(5)).thenReturn("hello".getBytes(StandardCharsets.UTF_8));
+        when(rs.getLong(6)).thenReturn(unread);
+        when(rs.getBoolean(7)).thenReturn(shared);
+
+        return rs;
+    }
+}
@@ -0,0 +1,148 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import com.cdcrane.ekkochatsrv.chat.exceptions.MessageIngestionOverloadedException;
+import com.cdcrane.ekkochatsrv.notifications.api.EphemeralEventUseCase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class MessageIngestionPipelineTests {
+
+    private final UUID conversationId = UUID.randomUUID();
+    private final List<UUID> members = List.of(UUID.randomUUID(), UUID.randomUUID());
+
+    private final ChatMessageRepository messageRepo = mock(ChatMessageRepository.class);
+    private final EphemeralEventUseCase ephemeralEvents = mock(EphemeralEventUseCase.class);
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    private MessageIngestionPipeline pipeline;
+
+    @AfterEach
+    public void stop() {
+        if (pipeline != null) ReflectionTestUtils.invokeMethod(pipeline, "stopWriters");
+    }
+
+    @Test
+    public void testMessagesWithinOneWindowShareOneCommit() throws Exception {
+
+        pipeline = pipeline(100, 1, 200);
+
+        var futures = List.of(submit(), submit(), submit());
+
+        for (var future : futures) {
+            assertNotNull(future.get(5, TimeUnit.SECONDS).getId());
+        }
+
+        assertEquals(List.of(3), batchSizes);
+
+        // Pushed after the commit on the ephemeral path, never as durable events.
+        verify(ephemeralEvents, timeout(1000).times(3)).messageCreated(eq(conversationId), anyLong(), any(), any(), eq(members));
+    }
+
+    @Test
+    public void testFullQueueIsRefused() {
+
+        // No writers, nothing ever leaves the queue.
+        pipeline = pipeline(1, 0, 0);
+
+        submit();
+
+        assertThrows(MessageIngestionOverloadedException.class, this::submit);
+    }
+
+    @Test
+    public void testShutdownFailsMessagesNoWriterTook() throws Exception {
+
+        pipeline = pipeline(10, 0, 0);
+
+        var queued = submit();
+
+        ReflectionTestUtils.invokeMethod(pipeline, "stopWriters");
+        pipeline = null;
+
+        var e = assertThrows(ExecutionException.class, () -> queued.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(MessageIngestionOverloadedException.class, e.getCause());
+    }
+
+    @Test
+    public void testShutdownDrainsTheQueue() throws Exception {
+
+        var release = new CountDownLatch(1);
+        pipeline = pipeline(10, 1, 0, release);
+
+        var first = submit();
+        var second = submit();
+
+        var stopping = new Thread(() -> ReflectionTestUtils.invokeMethod(pipeline, "stopWriters"));
+        stopping.start();
+
+        release.countDown();
+        stopping.join(5000);
+        pipeline = null;
+
+        assertNotNull(first.get(1, TimeUnit.SECONDS).getId());
+        assertNotNull(second.get(1, TimeUnit.SECONDS).getId());
+    }
+
+    private CompletableFuture<ChatMessage> submit() {
+
+        var message = ChatMessage.builder().conversationId(conversationId).senderId(members.getFirst())
+                .body(new byte[16]).createdAt(new Date()).build();
+
+        return pipeline.submit(message, members);
+    }
+
+    private MessageIngestionPipeline pipeline(int queueCapacity, int writers, long batchWindowMs) {
+        return pipeline(queueCapacity, writers, batchWindowMs, new CountDownLatch(0));
+    }
+
+    /**
+     * @param release Inserts wait for this, so a test can hold a batch in flight.
+     */
+    private MessageIngestionPipeline pipeline(int queueCapacity, int writers, long batchWindowMs, CountDownLatch release) {
+
+        when(messageRepo.saveAll(anyList())).thenAnswer(invocation -> {
+
+            // Interrupts from the shutdown must not cut the insert short.
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    release.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+
+            List<ChatMessage> messages = invocation.getArgument(0);
+            messages.forEach(m -> m.setId(nextId.getAndIncrement()));
+            batchSizes.add(messages.size());
+            return messages;
+        });
+
+        var created = new MessageIngestionPipeline(messageRepo, mock(InboxProjector.class), mock(ChangeLog.class),
+                new FanoutPolicy(100, 1000), ephemeralEvents, mock(PlatformTransactionManager.class));
+
+        ReflectionTestUtils.setField(created, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(created, "maxBatchSize", 100);
+        ReflectionTestUtils.setField(created, "batchWindowMs", batchWindowMs);
+        ReflectionTestUtils.setField(created, "writerCount", writers);
+        ReflectionTestUtils.invokeMethod(created, "startWriters");
+
+        return created;
+    }
+}
@@ -0,0 +1,127 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import com.cdcrane.ekkochatsrv.chat.exceptions.InvalidCursorException;
+import com.cdcrane.ekkochatsrv.chat.internal.ChangeLog.Chunk;
+import com.cdcrane.ekkochatsrv.chat.internal.ChangeLog.Entry;
+import com.cdcrane.ekkochatsrv.chat.internal.ChangeLog.Position;
+import com.cdcrane.ekkochatsrv.crypto.api.MessageEncryptionUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class SyncServiceTests {
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID conversationId = UUID.randomUUID();
+
+    private final ChangeLog changeLog = mock(ChangeLog.class);
+    private final MessageEncryptionUseCase encryption = mock(MessageEncryptionUseCase.class);
+
+    private SyncService syncService;
+
+    @BeforeEach
+    public void setUp() {
+
+        // "Decrypts" by reading the bytes as text, so body sizes are known.
+        when(encryption.decryptAll(anyList())).thenAnswer(invocation -> {
+            List<byte[]> bodies = invocation.getArgument(0);
+            return bodies.stream().map(b -> new String(b, StandardCharsets.UTF_8)).toList();
+        });
+
+        syncService = new SyncService(changeLog, encryption);
+        ReflectionTestUtils.setField(syncService, "pageBytes", 1000);
+        ReflectionTestUtils.setField(syncService, "readChunk", 10);
+    }
+
+    @Test
+    public void testCursorRoundTrip() {
+
+        // Transaction ids are unsigned 64 bit, above Long.MAX_VALUE must survive too.
+        var position = new Position("18446744073709551615", 42);
+
+        assertEquals(position, Position.decode(position.encode()));
+
+        assertThrows(InvalidCursorException.class, () -> Position.decode("not a cursor"));
+        assertThrows(InvalidCursorException.class, () -> Position.decode(new Position("1; DROP TABLE x", 1).encode()));
+    }
+
+    @Test
+    public void testPageIsCutAtTheByteBudget() {
+
+        // 180 bytes of overhead plus 400 of body each, only one fits in 1000 bytes.
+        var entries = List.of(entry(1, 400), entry(2, 400), entry(3, 400));
+        when(changeLog.read(eq(userId), any(), anyInt())).thenReturn(new Chunk(entries, new Position("100", 0)));
+
+        var page = syncService.sync(userId, null);
+
+        assertEquals(1, page.changes().size());
+        assertTrue(page.hasMore());
+        assertEquals(new Position("1", 1), Position.decode(page.cursor()));
+    }
+
+    @Test
+    public void testOversizedChangeIsStillHandedOut() {
+
+        when(changeLog.read(eq(userId), any(), anyInt())).thenReturn(new Chunk(List.of(entry(1, 5000)), new Position("100", 0)));
+
+        var page = syncService.sync(userId, null);
+
+        assertEquals(1, page.changes().size());
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    public void testCaughtUpCursorMovesToTheSafePoint() {
+
+        when(changeLog.read(eq(userId), any(), anyInt())).thenReturn(new Chunk(List.of(entry(1, 10)), new Position("100", 0)));
+
+        var page = syncService.sync(userId, null);
+
+        // Nothing the snapshot guard held back can sort before the safe point, so skipping to it loses nothing.
+        assertEquals(new Position("100", 0), Position.decode(page.cursor()));
+        assertFalse(page.resetRequired());
+    }
+
+    @Test
+    public void testCursorNeverMovesBack() {
+
+        var cursor = new Position("200", 7).encode();
+        when(changeLog.read(eq(userId), any(), anyInt())).thenReturn(new Chunk(List.of(), new Position("100", 0)));
+
+        var page = syncService.sync(userId, cursor);
+
+        assertEquals(new Position("200", 7), Position.decode(page.cursor()));
+    }
+
+    @Test
+    public void testPurgedCursorRequiresReset() {
+
+        var cursor = new Position("1", 1).encode();
+        when(changeLog.purgedPast(new Position("1", 1))).thenReturn(true);
+        when(changeLog.safePoint()).thenReturn(new Position("900", 0));
+
+        var page = syncService.sync(userId, cursor);
+
+        assertTrue(page.resetRequired());
+        assertTrue(page.changes().isEmpty());
+        assertEquals(new Position("900", 0), Position.decode(page.cursor()));
+        verify(changeLog, never()).read(any(), any(), anyInt());
+    }
+
+    private Entry entry(long txId, int bodyBytes) {
+
+        byte[] body = "x".repeat(bodyBytes).getBytes(StandardCharsets.UTF_8);
+
+        return new Entry(new Position(String.valueOf(txId), 1), ChangeType.MESSAGE_CREATED, conversationId,
+                txId, new Date(), userId, body);
+    }
+}
@@ -0,0 +1,80 @@
+package com.cdcrane.ekkochatsrv.chat.internal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class UnreadCounterServiceTests {
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID senderId = UUID.randomUUID();
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+
+    private UnreadCounterService unreadCounters;
+
+    @BeforeEach
+    public void setUp() {
+
+        unreadCounters = new UnreadCounterService(mock(ConversationMemberRepository.class), mock(ChangeLog.class),
+                new FanoutPolicy(200, 1000), jdbc, mock(PlatformTransactionManager.class));
+
+        ReflectionTestUtils.setField(unreadCounters, "stripes", 4);
+        ReflectionTestUtils.invokeMethod(unreadCounters, "initializeTable");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLargeGroupsUseThePulledCount() throws Exception {
+
+        UUID own = UUID.randomUUID();
+        UUID shared = UUID.randomUUID();
+
+        // Not flushed yet, only the stored count of the own conversation gets them added.
+        unreadCounters.messageDelivered(own, senderId, List.of(userId, senderId));
+        unreadCounters.messageDelivered(shared, senderId, List.of(userId, senderId));
+
+        when(jdbc.query(anyString(), any(RowMapper.class), any(Object[].class))).thenAnswer(invocation -> {
+
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            List<Object> mapped = new ArrayList<>();
+            mapped.add(mapper.mapRow(row(own, 3, false, 0), 0));
+            mapped.add(mapper.mapRow(row(shared, 0, true, 42), 1));
+            return mapped;
+        });
+
+        var counts = unreadCounters.getUnreadCounts(userId);
+
+        assertEquals(own, counts.get(0).conversationId());
+        assertEquals(4, counts.get(0).unread());
+        assertEquals(shared, counts.get(1).conversationId());
+        assertEquals(42, counts.get(1).unread());
+
+        // The pulled count stops at the cap.
+        verify(jdbc).query(contains(FanoutPolicy.PULLED_UNREAD_SQL), any(RowMapper.class), eq(1000), eq(userId));
+    }
+
+    private ResultSet row(UUID conversationId, long stored, boolean shared, long pulled) throws Exception {
+
+        ResultSet rs = mock(ResultSet.class);
+
+        when(rs.getObject(1, UUID.class)).thenReturn(conversationId);
+        when(rs.getLong(2)).thenReturn(stored);
+        when(rs.getBoolean(3)).thenReturn(shared);
+        when(rs.getLong(4)).thenReturn(pulled);
+
+        return rs;
+    }
+}
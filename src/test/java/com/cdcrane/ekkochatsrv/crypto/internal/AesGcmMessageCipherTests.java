@@ -0,0 +1,123 @@
+package com.cdcrane.ekkochatsrv.crypto.internal;
+
+import com.cdcrane.ekkochatsrv.crypto.exceptions.MessageCryptoException;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AesGcmMessageCipherTests {
+
+    private final SecretKey oldKey = new SecretKeySpec(new byte[32], "AES");
+    private final SecretKey newKey = new SecretKeySpec("0123456789abcdef0123456789abcdef".getBytes(), "AES");
+
+    @Test
+    public void testRoundTripAndBatch() {
+
+        var cipher = new AesGcmMessageCipher(Map.of(1, oldKey), 1);
+
+        byte[] encrypted = cipher.encrypt("Hello from EkkoChat ✓");
+
+        assertEquals(1, AesGcmMessageCipher.keyVersionOf(encrypted));
+        assertEquals("Hello from EkkoChat ✓", cipher.decrypt(encrypted));
+
+        var page = List.of("first", "", "third");
+        assertEquals(page, cipher.decryptAll(cipher.encryptAll(page)));
+
+    }
+
+    @Test
+    public void testNoncesAreUnique() {
+
+        var cipher = new AesGcmMessageCipher(Map.of(1, oldKey), 1);
+
+        byte[] a = cipher.encrypt("same");
+        byte[] b = cipher.encrypt("same");
+
+        assertFalse(java.util.Arrays.equals(a, b));
+
+    }
+
+    @Test
+    public void testOldVersionsStillDecryptAfterRotation() {
+
+        var before = new AesGcmMessageCipher(Map.of(1, oldKey), 1);
+        var after = new AesGcmMessageCipher(Map.of(1, oldKey, 2, newKey), 2);
+
+        byte[] stored = before.encrypt("kept across rotation");
+
+        assertEquals("kept across rotation", after.decrypt(stored));
+        assertEquals(2, AesGcmMessageCipher.keyVersionOf(after.encrypt("new")));
+
+    }
+
+    @Test
+    public void testTamperedHeaderIsRejected() {
+
+        var cipher = new AesGcmMessageCipher(Map.of(1, oldKey, 2, newKey), 1);
+
+        byte[] stored = cipher.encrypt("do not touch");
+        stored[2] = 2; // Claim it was written with key version 2.
+
+        assertThrows(MessageCryptoException.class, () -> cipher.decrypt(stored));
+
+    }
+
+    @Test
+    public void testCompressedRoundTripWithDictionary() {
+
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            samples.add(("Are we still meeting at the station tomorrow morning? Message " + i).getBytes(StandardCharsets.UTF_8));
+        }
+
+        var compressor = new MessageCompressor(Map.of(1, DictionaryTrainer.train(samples, 4096)), true, 1, 32);
+        var cipher = new AesGcmMessageCipher(Map.of(1, oldKey), 1, compressor);
+        var plain = new AesGcmMessageCipher(Map.of(1, oldKey), 1);
+
+        String message = "Are we still meeting at the station tomorrow morning? I'll bring the tickets.";
+
+        byte[] compressed = cipher.encrypt(message);
+
+        assertEquals(AesGcmMessageCipher.FORMAT_V2, compressed[0]);
+        assertTrue(compressed.length < plain.encrypt(message).length);
+        assertEquals(message, cipher.decrypt(compressed));
+
+        // Too short to compress still gets the v2 header, just with no codec.
+        assertEquals("ok", cipher.decrypt(cipher.encrypt("ok")));
+
+    }
+
+    @Test
+    public void testUncompressedMessagesStayReadableWithCompressionOn() {
+
+        var before = new AesGcmMessageCipher(Map.of(1, oldKey), 1);
+        var after = new AesGcmMessageCipher(Map.of(1, oldKey), 1, new MessageCompressor(Map.of(), true, 0, 32));
+
+        byte[] stored = before.encrypt("written before compression was switched on");
+
+        assertEquals("written before compression was switched on", after.decrypt(stored));
+
+    }
+
+    @Test
+    public void testMissingDictionaryIsRejected() {
+
+        List<byte[]> samples = List.of("hello there, how are you doing today".getBytes(), "hello there, how are you doing now".getBytes());
+
+        var writer = new AesGcmMessageCipher(Map.of(1, oldKey), 1,
+                new MessageCompressor(Map.of(3, DictionaryTrainer.train(samples, 1024)), true, 3, 8));
+        var reader = new AesGcmMessageCipher(Map.of(1, oldKey), 1, new MessageCompressor(Map.of(), true, 0, 8));
+
+        byte[] stored = writer.encrypt("hello there, how are you doing today? hello there!");
+
+        assertThrows(MessageCryptoException.class, () -> reader.decrypt(stored));
+
+    }
+}
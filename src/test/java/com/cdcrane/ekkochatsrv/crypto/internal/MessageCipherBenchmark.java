@@ -0,0 +1,108 @@
+package com.cdcrane.ekkochatsrv.crypto.internal;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run with: ./mvnw test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.cdcrane.ekkochatsrv.crypto.internal.MessageCipherBenchmark
+ * <p>
+ * The "bytes" aux counter is reported per second, divide by 1_000_000 for MB/s.
+ * The page benchmarks use a 50 message history page, so the score per op is the cost of decrypting one page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageCipherBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"64", "512", "4096"})
+    private int messageLength;
+
+    private AesGcmMessageCipher cipher;
+    private String message;
+    private byte[] encryptedMessage;
+    private List<String> page;
+    private List<byte[]> encryptedPage;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Throughput {
+        public long bytes;
+    }
+
+    @Setup
+    public void setup() {
+
+        byte[] raw = new byte[32];
+        new SecureRandom().nextBytes(raw);
+        SecretKey key = new SecretKeySpec(raw, "AES");
+
+        cipher = new AesGcmMessageCipher(Map.of(1, key), 1);
+
+        message = "a".repeat(messageLength);
+        encryptedMessage = cipher.encrypt(message);
+
+        page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(message);
+        }
+
+        encryptedPage = cipher.encryptAll(page);
+    }
+
+    @Benchmark
+    public byte[] encryptSingle(Throughput t) {
+        t.bytes += messageLength;
+        return cipher.encrypt(message);
+    }
+
+    @Benchmark
+    public String decryptSingle(Throughput t) {
+        t.bytes += messageLength;
+        return cipher.decrypt(encryptedMessage);
+    }
+
+    @Benchmark
+    public void decryptPageBatch(Throughput t, Blackhole bh) {
+        t.bytes += (long) messageLength * PAGE_SIZE;
+        bh.consume(cipher.decryptAll(encryptedPage));
+    }
+
+    @Benchmark
+    public void decryptPageOneByOne(Throughput t, Blackhole bh) {
+        t.bytes += (long) messageLength * PAGE_SIZE;
+        for (byte[] encrypted : encryptedPage) {
+            bh.consume(cipher.decrypt(encrypted));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public void perMessageOverheadInPage(Blackhole bh) {
+        bh.consume(cipher.decryptAll(encryptedPage));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+
+        new Runner(new OptionsBuilder()
+                .include(MessageCipherBenchmark.class.getSimpleName())
+                .build()).run();
+
+        System.out.println("Stored size overhead per message: " + (AesGcmMessageCipher.PREFIX_LENGTH + AesGcmMessageCipher.TAG_BITS / 8) + " bytes");
+    }
+}
@@ -0,0 +1,126 @@
+package com.cdcrane.ekkochatsrv.crypto.internal;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run with: ./mvnw test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.cdcrane.ekkochatsrv.crypto.internal.MessageCompressionBenchmark
+ * <p>
+ * Scores are the CPU cost per message. The dictionary is trained on one half of a generated chat corpus and measured on
+ * the other half, main() prints the stored size of that half for every mode afterwards.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageCompressionBenchmark {
+
+    private static final int CORPUS_SIZE = 4000;
+
+    private static final String[] OPENERS = {"hey", "Hey!", "hi there", "ok so", "lol", "Good morning", "btw", "omg", "Sorry,", "Thanks!"};
+    private static final String[] PHRASES = {
+            "are you still coming tonight?", "I'll be there in like 10 minutes", "did you see the message from the group chat",
+            "can we move the meeting to tomorrow afternoon", "just got home, that was a long day", "what time does the train leave",
+            "sounds good to me, let me know when you're free", "I think I left my keys at your place", "send me the link when you get a chance",
+            "haha yeah that's exactly what I was thinking", "running a bit late, start without me", "happy birthday!! hope you have a great one"};
+
+    public enum Compression { NONE, DEFLATE, DICTIONARY }
+
+    @Param({"NONE", "DEFLATE", "DICTIONARY"})
+    private Compression compression;
+
+    private AesGcmMessageCipher cipher;
+    private List<String> messages;
+    private List<byte[]> stored;
+    private int next;
+
+    @Setup
+    public void setup() {
+        messages = corpus(CORPUS_SIZE, 42).subList(CORPUS_SIZE / 2, CORPUS_SIZE);
+        cipher = cipherFor(compression);
+        stored = cipher.encryptAll(messages);
+    }
+
+    @Benchmark
+    public byte[] encrypt() {
+        return cipher.encrypt(messages.get(next++ % messages.size()));
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return cipher.decrypt(stored.get(next++ % stored.size()));
+    }
+
+    static AesGcmMessageCipher cipherFor(Compression mode) {
+
+        byte[] raw = new byte[32];
+        new SecureRandom().nextBytes(raw);
+        SecretKey key = new SecretKeySpec(raw, "AES");
+
+        if (mode == Compression.NONE) return new AesGcmMessageCipher(Map.of(1, key), 1);
+
+        if (mode == Compression.DEFLATE) return new AesGcmMessageCipher(Map.of(1, key), 1, new MessageCompressor(Map.of(), true, 0, 32));
+
+        List<byte[]> samples = new ArrayList<>();
+        for (String message : corpus(CORPUS_SIZE, 42).subList(0, CORPUS_SIZE / 2)) {
+            samples.add(message.getBytes(StandardCharsets.UTF_8));
+        }
+
+        var compressor = new MessageCompressor(Map.of(1, DictionaryTrainer.train(samples, 32 * 1024)), true, 1, 32);
+
+        return new AesGcmMessageCipher(Map.of(1, key), 1, compressor);
+    }
+
+    static List<String> corpus(int size, long seed) {
+
+        Random random = new Random(seed);
+        List<String> corpus = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+
+            var sb = new StringBuilder(OPENERS[random.nextInt(OPENERS.length)]);
+            int phrases = 1 + random.nextInt(3);
+
+            for (int p = 0; p < phrases; p++) {
+                sb.append(' ').append(PHRASES[random.nextInt(PHRASES.length)]);
+                if (random.nextInt(4) == 0) sb.append(' ').append(random.nextInt(1000));
+            }
+
+            corpus.add(sb.toString());
+        }
+
+        return corpus;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+
+        new Runner(new OptionsBuilder()
+                .include(MessageCompressionBenchmark.class.getSimpleName())
+                .build()).run();
+
+        List<String> messages = corpus(CORPUS_SIZE, 42).subList(CORPUS_SIZE / 2, CORPUS_SIZE);
+        long plainBytes = messages.stream().mapToLong(m -> m.getBytes(StandardCharsets.UTF_8).length).sum();
+
+        for (Compression mode : Compression.values()) {
+
+            long storedBytes = cipherFor(mode).encryptAll(messages).stream().mapToLong(b -> b.length).sum();
+
+            System.out.printf("%-10s stored %d bytes for %d bytes of text, %.1f bytes per message, ratio %.2f%n", mode, storedBytes,
+                    plainBytes, (double) storedBytes / messages.size(), (double) storedBytes / plainBytes);
+        }
+    }
+}
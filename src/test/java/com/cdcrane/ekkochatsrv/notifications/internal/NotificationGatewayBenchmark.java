@@ -0,0 +1,202 @@
+package com.cdcrane.ekkochatsrv.notifications.internal;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run with: ./mvnw test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.cdcrane.ekkochatsrv.notifications.internal.NotificationGatewayBenchmark
+ * <p>
+ * Prints the heap used per idle connection by the gateway (registry entry, connection state, user id and a stub session)
+ * for 100k connections, then benchmarks fanning one notification out to groups of connected users.
+ * The servlet container's own per-session buffers are bounded by notifications.websocket.max_message_buffer_bytes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationGatewayBenchmark {
+
+    private static final int IDLE_CONNECTIONS = 100_000;
+
+    @Param({"10", "1000"})
+    private int recipients;
+
+    private NotificationService service;
+    private List<UUID> recipientIds;
+
+    @Setup
+    public void setup() {
+
+        var registry = new ConnectionRegistry();
+        service = newService(registry);
+
+        recipientIds = new ArrayList<>(recipients);
+
+        for (int i = 0; i < recipients; i++) {
+            var userId = UUID.randomUUID();
+            recipientIds.add(userId);
+            registry.register(new NotificationConnection(new StubSession(i), userId));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(service, "stopSenders");
+    }
+
+    @Benchmark
+    public void fanOut() {
+        service.sendToUsers(recipientIds, "{\"type\":\"MESSAGE\",\"conversationId\":\"c0ffee\"}");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+
+        measureIdleFootprint();
+
+        new Runner(new OptionsBuilder()
+                .include(NotificationGatewayBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private static void measureIdleFootprint() {
+
+        var registry = new ConnectionRegistry();
+        long before = usedHeapAfterGc();
+
+        for (int i = 0; i < IDLE_CONNECTIONS; i++) {
+            registry.register(new NotificationConnection(new StubSession(i), UUID.randomUUID()));
+        }
+
+        long after = usedHeapAfterGc();
+
+        System.out.printf("%d idle connections, %d bytes of gateway heap per connection (registry holds %d)%n",
+                IDLE_CONNECTIONS, (after - before) / IDLE_CONNECTIONS, registry.connectionCount());
+    }
+
+    private static long usedHeapAfterGc() {
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static NotificationService newService(ConnectionRegistry registry) {
+
+        var service = new NotificationService(registry);
+        ReflectionTestUtils.setField(service, "queueCapacity", 64);
+        ReflectionTestUtils.setField(service, "slowConsumerPolicy", SlowConsumerPolicy.DROP_OLDEST);
+        ReflectionTestUtils.setField(service, "senderThreads", 4);
+        ReflectionTestUtils.setField(service, "slowSendThresholdMs", 250L);
+        ReflectionTestUtils.invokeMethod(service, "startSenders");
+
+        return service;
+    }
+
+    /**
+     * Session that accepts and discards every message.
+     */
+    private record StubSession(int number) implements WebSocketSession {
+
+        @Override
+        public String getId() {
+            return Integer.toString(number);
+        }
+
+        @Override
+        public URI getUri() {
+            return null;
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return HttpHeaders.EMPTY;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return Map.of();
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.cdcrane.ekkochatsrv.presence.internal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PresenceServiceTests {
+
+    private final UUID userId = UUID.randomUUID();
+
+    @Test
+    public void testUserStaysOnlineWhileAnotherNodeHoldsThem() {
+
+        var bus = new LinkedBuses();
+        var first = node(bus.node());
+        var second = node(bus.node());
+
+        first.heartbeat(userId);
+        second.heartbeat(userId);
+
+        // Their socket on the second node closes, the first still holds one.
+        second.markOffline(userId);
+
+        assertTrue(first.isOnline(userId));
+        assertTrue(second.isOnline(userId));
+
+        first.markOffline(userId);
+
+        assertFalse(first.isOnline(userId));
+        assertFalse(second.isOnline(userId));
+    }
+
+    @Test
+    public void testHeartbeatOnOneNodeIsSeenOnTheOther() {
+
+        var bus = new LinkedBuses();
+        var first = node(bus.node());
+        var second = node(bus.node());
+
+        first.heartbeat(userId);
+
+        assertTrue(second.isOnline(userId));
+    }
+
+    private PresenceService node(PresenceBus presenceBus) {
+
+        var presence = new PresenceService(presenceBus);
+
+        ReflectionTestUtils.setField(presence, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(presence, "tickMs", 1_000L);
+        ReflectionTestUtils.setField(presence, "shards", 4);
+        ReflectionTestUtils.invokeMethod(presence, "initializeTable");
+
+        return presence;
+    }
+
+    /**
+     * Hands every change straight to the listeners of the other nodes, like the postgres bus after a flush.
+     */
+    private static class LinkedBuses {
+
+        private final List<PresenceBus.Listener> listeners = new ArrayList<>();
+
+        PresenceBus node() {
+
+            return new PresenceBus() {
+
+                private PresenceBus.Listener own;
+
+                @Override
+                public void publish(UUID userId, boolean online) {
+                    for (var listener : List.copyOf(listeners)) {
+                        if (listener != own) listener.changed(userId, online);
+                    }
+                }
+
+                @Override
+                public void subscribe(Listener listener) {
+                    own = listener;
+                    listeners.add(listener);
+                }
+            };
+        }
+    }
+}
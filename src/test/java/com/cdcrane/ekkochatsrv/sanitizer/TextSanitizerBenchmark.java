@@ -0,0 +1,87 @@
+package com.cdcrane.ekkochatsrv.sanitizer;
+
+import org.jsoup.Jsoup;
+import org.jsoup.safety.Safelist;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run with: ./mvnw test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.cdcrane.ekkochatsrv.sanitizer.TextSanitizerBenchmark
+ * <p>
+ * Scores are the cost per message of a generated chat corpus, where the given percentage of messages contains
+ * something to escape (an ampersand, a {@code <3}, a pasted tag). Allocation is shown with -prof gc.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextSanitizerBenchmark {
+
+    private static final int CORPUS_SIZE = 4000;
+
+    private static final String[] PLAIN = {
+            "are you still coming tonight?", "I'll be there in like 10 minutes", "did you see the message from the group chat",
+            "can we move the meeting to tomorrow afternoon", "just got home, that was a long day", "what time does the train leave",
+            "sounds good to me, let me know when you're free", "haha yeah that's exactly what I was thinking 😂",
+            "running a bit late, start without me", "happy birthday!! hope you have a great one"};
+
+    private static final String[] ESCAPED = {
+            "fish & chips tonight?", "love you <3", "check https://example.com/search?q=ekko&lang=en",
+            "the build says <ConversationNotFoundException>", "5 > 3 but < 10", "<b>bold</b> doesn't work here"};
+
+    @Param({"0", "10", "100"})
+    private int escapedPercent;
+
+    private final TextSanitizer sanitizer = new TextSanitizer();
+    private List<String> messages;
+    private int next;
+
+    @Setup
+    public void setup() {
+        messages = corpus(CORPUS_SIZE, escapedPercent, 42);
+    }
+
+    @Benchmark
+    public String textSanitizer() {
+        return sanitizer.sanitize(messages.get(next++ % messages.size()));
+    }
+
+    @Benchmark
+    public String jsoupClean() {
+        return Jsoup.clean(messages.get(next++ % messages.size()), Safelist.none());
+    }
+
+    static List<String> corpus(int size, int escapedPercent, long seed) {
+
+        Random random = new Random(seed);
+        List<String> corpus = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+
+            var sb = new StringBuilder(PLAIN[random.nextInt(PLAIN.length)]);
+
+            if (random.nextInt(2) == 0) sb.append(' ').append(PLAIN[random.nextInt(PLAIN.length)]);
+            if (random.nextInt(100) < escapedPercent) sb.append(' ').append(ESCAPED[random.nextInt(ESCAPED.length)]);
+
+            corpus.add(sb.toString());
+        }
+
+        return corpus;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+
+        new Runner(new OptionsBuilder()
+                .include(TextSanitizerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,38 @@
+package com.cdcrane.ekkochatsrv.sanitizer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextSanitizerTests {
+
+    private final TextSanitizer sanitizer = new TextSanitizer();
+
+    @Test
+    public void testCleanTextIsReturnedAsIs() {
+
+        String message = "see you at 8? it's \"fine\" either way\nbye 😀";
+
+        assertSame(message, sanitizer.sanitize(message));
+        assertSame("", sanitizer.sanitize(""));
+        assertNull(sanitizer.sanitize(null));
+
+    }
+
+    @Test
+    public void testMarkupIsEscaped() {
+
+        assertEquals("&lt;script&gt;alert(1)&lt;/script&gt;", sanitizer.sanitize("<script>alert(1)</script>"));
+        assertEquals("fish &amp; chips &lt;3", sanitizer.sanitize("fish & chips <3"));
+        assertEquals("&amp;lt;b&amp;gt;", sanitizer.sanitize("&lt;b&gt;"));
+        assertEquals("&lt;img src=x onerror=alert(1)&gt;", sanitizer.sanitize("<img src=x onerror=alert(1)>"));
+
+    }
+
+    @Test
+    public void testNulIsDropped() {
+
+        assertEquals("ab&lt;", sanitizer.sanitize("a\0b<\0"));
+
+    }
+}
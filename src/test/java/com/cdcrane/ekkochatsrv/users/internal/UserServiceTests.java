@@ -0,0 +1,152 @@
+package com.cdcrane.ekkochatsrv.users.internal;
+
+import com.cdcrane.ekkochatsrv.sanitizer.TextSanitizer;
+import com.cdcrane.ekkochatsrv.users.dto.RegisterAccountRequest;
+import com.cdcrane.ekkochatsrv.users.dto.VerifyEmailRequest;
+import com.cdcrane.ekkochatsrv.users.events.AccountRegisteredEvent;
+import com.cdcrane.ekkochatsrv.users.events.EmailVerificationFailEvent;
+import com.cdcrane.ekkochatsrv.users.exceptions.InvalidVerificationException;
+import com.cdcrane.ekkochatsrv.users.exceptions.UserNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The V3 move of unverified users into pending_registrations is plain SQL and needs a database, it isn't covered here.
+ */
+public class UserServiceTests {
+
+    private static final String EMAIL = "jo@example.com";
+
+    private final UserRepository userRepo = mock(UserRepository.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final RoleRepository roleRepo = mock(RoleRepository.class);
+    private final PendingRegistrationRepository pendingRepo = mock(PendingRegistrationRepository.class);
+    private final ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+
+    private UserService userService;
+
+    @BeforeEach
+    public void setUp() {
+
+        userService = new UserService(userRepo, passwordEncoder, roleRepo, pendingRepo, mock(PublicProfileCache.class),
+                new TextSanitizer(), publisher, new SimpleMeterRegistry());
+
+        ReflectionTestUtils.setField(userService, "registrationTtlMs", 86_400_000L);
+    }
+
+    @Test
+    public void testCorrectCodePromotesRegistration() {
+
+        var registration = registration(123456, 60_000, 3_600_000);
+        var userRole = mock(Role.class);
+
+        when(pendingRepo.findByEmail(EMAIL)).thenReturn(Optional.of(registration));
+        when(roleRepo.getUserRole()).thenReturn(userRole);
+
+        userService.handleEmailVerification(new VerifyEmailRequest(EMAIL, 123456));
+
+        var saved = ArgumentCaptor.forClass(ApplicationUser.class);
+        verify(userRepo).save(saved.capture());
+        verify(pendingRepo).delete(registration);
+
+        assertEquals("jo", saved.getValue().getUsername());
+        assertEquals(EMAIL, saved.getValue().getEmail());
+        assertEquals("hash", saved.getValue().getPassword());
+        assertTrue(saved.getValue().getEnabled());
+        assertEquals(Set.of(userRole), saved.getValue().getRoles());
+    }
+
+    @Test
+    public void testExpiredRegistrationIsUnknown() {
+
+        when(pendingRepo.findByEmail(EMAIL)).thenReturn(Optional.of(registration(123456, 60_000, -1)));
+
+        assertThrows(UserNotFoundException.class, () -> userService.handleEmailVerification(new VerifyEmailRequest(EMAIL, 123456)));
+
+        verify(userRepo, never()).save(any());
+    }
+
+    @Test
+    public void testExpiredCodeIsReplaced() {
+
+        var registration = registration(123456, -1, 3_600_000);
+        when(pendingRepo.findByEmail(EMAIL)).thenReturn(Optional.of(registration));
+
+        assertThrows(InvalidVerificationException.class, () -> userService.handleEmailVerification(new VerifyEmailRequest(EMAIL, 123456)));
+
+        var event = ArgumentCaptor.forClass(Object.class);
+        verify(publisher).publishEvent(event.capture());
+
+        var failed = assertInstanceOf(EmailVerificationFailEvent.class, event.getValue());
+        assertEquals(EMAIL, failed.email());
+        assertEquals("jo", failed.username());
+        assertEquals(registration.getVerificationCode(), failed.newVerificationCode());
+
+        verify(userRepo, never()).save(any());
+    }
+
+    @Test
+    public void testRegisteringAgainReplacesEarlierAttempt() {
+
+        var registrationId = UUID.randomUUID();
+
+        when(passwordEncoder.encode("password123")).thenReturn("hash");
+        when(pendingRepo.save(any())).thenAnswer(invocation -> {
+            PendingRegistration r = invocation.getArgument(0);
+            r.setRegistrationId(registrationId);
+            return r;
+        });
+
+        userService.registerUser(new RegisterAccountRequest("jo", "Jo", "Doe", EMAIL, "password123"));
+
+        // The earlier attempt is gone before the new one is inserted, the email is unique.
+        var order = inOrder(pendingRepo);
+        order.verify(pendingRepo).deleteByEmail(EMAIL);
+        order.verify(pendingRepo).save(any());
+
+        var event = ArgumentCaptor.forClass(Object.class);
+        verify(publisher).publishEvent(event.capture());
+
+        var registered = assertInstanceOf(AccountRegisteredEvent.class, event.getValue());
+        assertEquals(registrationId, registered.registrationId());
+        assertEquals(EMAIL, registered.email());
+
+        verify(userRepo, never()).save(any());
+    }
+
+    /**
+     * @param codeValidMs Negative for a code that already expired.
+     * @param registrationValidMs Negative for a registration that already expired.
+     */
+    private PendingRegistration registration(int code, long codeValidMs, long registrationValidMs) {
+
+        long now = System.currentTimeMillis();
+
+        return PendingRegistration.builder()
+                .registrationId(UUID.randomUUID())
+                .username("jo")
+                .firstName("Jo")
+                .lastName("Doe")
+                .password("hash")
+                .email(EMAIL)
+                .verificationCode(code)
+                .verificationCodeExpiration(new Date(now + codeValidMs))
+                .createdAt(new Date(now - 1000))
+                .expiresAt(new Date(now + registrationValidMs))
+                .build();
+    }
+}